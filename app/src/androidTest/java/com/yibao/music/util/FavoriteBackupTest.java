@@ -0,0 +1,69 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   FavoriteBackupTest
+ * @ Des:    1万首歌里恢复1千首收藏：id变化后按 (歌名, 歌手, 时长) 匹配，一次事务更新，进度回调有频率限制。
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoriteBackupTest {
+    private static final int SONG_COUNT = 10000;
+    private static final int FAVORITE_COUNT = 1000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, (bean, i) -> {
+            bean.setArtist("周杰伦 " + i % 500);
+            bean.setDuration(200_000 + i);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void restoreByHash() {
+        List<FavoriteJournal.Record> records = new ArrayList<>(FAVORITE_COUNT);
+        for (int i = 0; i < FAVORITE_COUNT; i++) {
+            int song = i * (SONG_COUNT / FAVORITE_COUNT);
+            // 重装后歌曲id变了，歌名大小写和空白也不完全相同
+            records.add(new FavoriteJournal.Record(SONG_COUNT + song + 1, " 晴天  " + song, "周杰伦 " + song % 500,
+                    200_000 + song, String.valueOf(i)));
+        }
+        FavoriteBackupUtil.FavoriteMatcher matcher = new FavoriteBackupUtil.FavoriteMatcher(records);
+        int[] progressCount = new int[1];
+        int count = FavoriteBackupUtil.restore(mMusicDao, matcher, (current, total) -> progressCount[0]++);
+
+        assertEquals(FAVORITE_COUNT, count);
+        assertEquals(FAVORITE_COUNT, mMusicDao.queryBuilder().where(MusicBeanDao.Properties.IsFavorite.eq(true)).count());
+        MusicBean bean = mMusicDao.load(11L);
+        assertTrue(bean.getIsFavorite());
+        assertEquals("1", bean.getTime());
+        assertTrue(progressCount[0] < 50);
+    }
+}
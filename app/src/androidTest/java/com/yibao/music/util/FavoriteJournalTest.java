@@ -0,0 +1,140 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.yibao.music.model.MusicBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   FavoriteJournalTest
+ * @ Des:    收藏日志的旧文件导入、按歌曲删除、重放、压缩和写到一半的记录的处理。
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoriteJournalTest {
+    private File mJournal;
+    private File mLegacyFile;
+
+    @Before
+    public void setup() throws IOException {
+        File dir = InstrumentationRegistry.getInstrumentation().getTargetContext().getCacheDir();
+        mJournal = new File(dir, "favorite.journal");
+        mLegacyFile = new File(dir, "favorite.txt");
+        mJournal.delete();
+        write(mLegacyFile, "晴天T1600000000000\n晴天2T1600000000001\n七里香T1600000000002\n", false);
+    }
+
+    @After
+    public void tearDown() {
+        mJournal.delete();
+        mLegacyFile.delete();
+    }
+
+    @Test
+    public void removeOnlyTheSong() {
+        FavoriteJournal journal = newJournal();
+        assertEquals(3, journal.size());
+        // 旧版本按包含歌名删除，会把 "晴天2" 一起删掉
+        journal.remove(song(1, "晴天"));
+        assertEquals(2, journal.size());
+        journal.add(song(2, "七里香"));
+        assertEquals(2, journal.size());
+
+        FavoriteJournal replayed = newJournal();
+        assertEquals(2, replayed.size());
+        assertTrue(titlesOf(replayed).contains("晴天2"));
+    }
+
+    @Test
+    public void compact() {
+        FavoriteJournal journal = newJournal();
+        for (int i = 0; i < 200; i++) {
+            journal.add(song(100 + i, "song " + i));
+            journal.remove(song(100 + i, "song " + i));
+        }
+        // 压缩在当前线程执行
+        assertTrue(journal.getLineCount() < 200);
+        assertEquals(3, newJournal().size());
+    }
+
+    @Test
+    public void skipRecordBrokenInFirstFields() throws IOException {
+        assertEquals(3, newJournal().size());
+        write(mJournal, "+\t7\t", true);
+        FavoriteJournal replayed = newJournal();
+        assertEquals(3, replayed.size());
+        replayed.add(song(8, "稻香"));
+        assertEquals(4, newJournal().size());
+    }
+
+    @Test
+    public void skipRecordBrokenInTitle() throws IOException {
+        assertEquals(3, newJournal().size());
+        // 断在最后一个字段（歌名）里，字段数量完整但没有换行
+        write(mJournal, "+\t7\t周杰伦\t0\t2020-01-01 00:00:00\t稻", true);
+        FavoriteJournal replayed = newJournal();
+        assertEquals(3, replayed.size());
+        assertFalse(titlesOf(replayed).contains("稻"));
+        replayed.add(song(8, "稻香"));
+
+        FavoriteJournal reloaded = newJournal();
+        assertEquals(4, reloaded.size());
+        assertTrue(titlesOf(reloaded).contains("稻香"));
+    }
+
+    @Test
+    public void appendAfterTornTail() throws IOException {
+        FavoriteJournal journal = newJournal();
+        assertEquals(3, journal.size());
+        // 已经加载之后追加写到一半失败
+        write(mJournal, "+\t7\t周杰伦\t0\t2020-01-01 00:00:00\t稻", true);
+        journal.add(song(8, "稻香"));
+
+        FavoriteJournal reloaded = newJournal();
+        assertEquals(4, reloaded.size());
+        assertTrue(titlesOf(reloaded).contains("稻香"));
+    }
+
+    private FavoriteJournal newJournal() {
+        return new FavoriteJournal(mJournal, mLegacyFile, Runnable::run);
+    }
+
+    private static Set<String> titlesOf(FavoriteJournal journal) {
+        Set<String> titles = new HashSet<>();
+        for (FavoriteJournal.Record record : journal.getFavorites()) {
+            titles.add(record.title);
+        }
+        return titles;
+    }
+
+    private static MusicBean song(long id, String title) {
+        MusicBean bean = new MusicBean();
+        bean.setId(id);
+        bean.setTitle(title);
+        bean.setArtist("周杰伦");
+        bean.setTime(StringUtil.getTime());
+        return bean;
+    }
+
+    private static void write(File file, String text, boolean append) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, append)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
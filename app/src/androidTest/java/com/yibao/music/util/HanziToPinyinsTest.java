@@ -0,0 +1,88 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   HanziToPinyinsTest
+ * @ Des:    拼音查找表和原来逐字调用pinyin4j得到的首字母一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class HanziToPinyinsTest {
+    private static final int TITLE_COUNT = 5000;
+    private static final String ASCII = "ABCxyz 0123-_";
+
+    private String[] mTitles;
+
+    @Before
+    public void setup() {
+        mTitles = randomTitles(TITLE_COUNT);
+    }
+
+    @Test
+    public void sameAsPinyin4j() {
+        for (String title : mTitles) {
+            assertEquals(title, legacyFirstChar(title), HanziToPinyins.stringToPinyinSpecial(title));
+        }
+    }
+
+    /**
+     * 汉字和 ASCII 字符随机组成的标题，和 MusicBenchmark 使用相同的数据
+     */
+    static String[] randomTitles(int count) {
+        Random random = new Random(7);
+        String[] titles = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = 2 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                builder.append(random.nextInt(4) == 0 ? ASCII.charAt(random.nextInt(ASCII.length()))
+                        : (char) (0x4e00 + random.nextInt(0x9fa5 - 0x4e00 + 1)));
+            }
+            titles[i] = builder.toString();
+        }
+        return titles;
+    }
+
+    /**
+     * 原来的实现：整串逐字转换拼音后取首字母
+     */
+    static char legacyFirstChar(String input) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= 0x4e00 && c <= 0x9fa5) {
+                HanyuPinyinOutputFormat hanyuPinyin = new HanyuPinyinOutputFormat();
+                hanyuPinyin.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+                hanyuPinyin.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+                hanyuPinyin.setVCharType(HanyuPinyinVCharType.WITH_U_UNICODE);
+                String[] pinyinArray = null;
+                try {
+                    pinyinArray = PinyinHelper.toHanyuPinyinStringArray(c, hanyuPinyin);
+                } catch (BadHanyuPinyinOutputFormatCombination e) {
+                    e.printStackTrace();
+                }
+                result.append(pinyinArray != null && pinyinArray.length > 0 ? pinyinArray[0] : "#");
+            } else {
+                result.append(c);
+            }
+        }
+        char first = result.toString().toUpperCase().charAt(0);
+        return first >= 'A' && first <= 'Z' ? first : '#';
+    }
+}
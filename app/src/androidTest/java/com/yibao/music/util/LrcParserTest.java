@@ -0,0 +1,63 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.LyricTimeline;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   LrcParserTest
+ * @ Des:    LRC解析的正确性：标签、多时间标签、偏移和大文件
+ */
+@RunWith(AndroidJUnit4.class)
+public class LrcParserTest {
+    private static final int CORPUS_LINES = 5000;
+
+    private char[] mCorpus;
+
+    @Before
+    public void setup() {
+        mCorpus = corpus(CORPUS_LINES);
+    }
+
+    @Test
+    public void parseTags() {
+        String lrc = "[ti: 晴天 ]\r\n[ar:周杰伦]\r\n[offset:500]\n[00:01.00][01:00.5]副歌\n[00:02.123]第二行\n[00:03]\n[00:03:45]三\n";
+        LyricTimeline timeline = LrcParser.parse(lrc.toCharArray(), lrc.length());
+        assertEquals("晴天", timeline.getTitle());
+        assertEquals("周杰伦", timeline.getArtist());
+        assertEquals(4, timeline.size());
+        assertEquals(500, timeline.getStartTime(0));
+        assertEquals(1623, timeline.getStartTime(1));
+        assertEquals(2950, timeline.getStartTime(2));
+        assertEquals(60000, timeline.getStartTime(3));
+        assertEquals("副歌", timeline.getContent(3));
+    }
+
+    @Test
+    public void parseLargeFile() {
+        LyricTimeline timeline = LrcParser.parse(mCorpus, mCorpus.length);
+        assertEquals(CORPUS_LINES, timeline.size());
+        assertEquals((CORPUS_LINES - 1) * 1500, timeline.getStartTime(CORPUS_LINES - 1));
+        assertEquals("故事的小黄花 从出生那年就飘着 " + (CORPUS_LINES - 1), timeline.getContent(CORPUS_LINES - 1));
+    }
+
+    /**
+     * 每 1.5 秒一行的歌词，和 MusicBenchmark 使用相同的数据
+     */
+    static char[] corpus(int lines) {
+        StringBuilder builder = new StringBuilder("[ti:晴天]\n[ar:周杰伦]\n[offset:0]\n");
+        for (int i = 0; i < lines; i++) {
+            int time = i * 1500;
+            builder.append(String.format("[%02d:%02d.%02d]", time / 60000, time / 1000 % 60, time % 1000 / 10))
+                    .append("故事的小黄花 从出生那年就飘着 ").append(i).append('\n');
+        }
+        return builder.toString().toCharArray();
+    }
+}
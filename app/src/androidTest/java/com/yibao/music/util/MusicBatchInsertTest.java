@@ -0,0 +1,72 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicBatchInsertTest
+ * @ Des:    首次扫描分批事务写库：全部写入，重复扫描时按id替换不会多出记录。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicBatchInsertTest {
+    private static final int SONG_COUNT = 1000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+    private List<MusicBean> mMusicList;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        mMusicList = TestMusicDb.songs(SONG_COUNT, (bean, i) -> {
+            bean.setArtist("周杰伦");
+            bean.setAlbum("叶惠美");
+            bean.setAlbumId(i % 100);
+            bean.setDuration(269000);
+            bean.setSongUrl("/sdcard/Music/" + i + ".mp3");
+            bean.setFirstChar("Q");
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void insertInBatches() {
+        insertInBatches(mMusicList);
+        assertEquals(SONG_COUNT, mMusicDao.count());
+        assertEquals("/sdcard/Music/42.mp3", mMusicDao.load(43L).getSongUrl());
+
+        // 再次扫描，同一首歌按id替换
+        mMusicList.get(42).setDuration(1000);
+        insertInBatches(mMusicList);
+        assertEquals(SONG_COUNT, mMusicDao.count());
+        assertEquals(1000, mMusicDao.load(43L).getDuration());
+    }
+
+    /**
+     * 和 LoadMusicDataService 一样，每批 SCAN_BATCH_SIZE 首一个事务
+     */
+    private void insertInBatches(List<MusicBean> musicList) {
+        for (int from = 0; from < musicList.size(); from += MusicListUtil.SCAN_BATCH_SIZE) {
+            mMusicDao.insertOrReplaceInTx(musicList.subList(from, Math.min(musicList.size(), from + MusicListUtil.SCAN_BATCH_SIZE)));
+        }
+    }
+}
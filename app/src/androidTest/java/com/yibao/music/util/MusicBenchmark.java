@@ -0,0 +1,190 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicBenchmark
+ * @ Des:    吞吐量和耗时对比，只输出结果不做断言，行为由对应的测试检查。
+ * 平时用 -e notAnnotation androidx.test.filters.LargeTest 跳过，需要时用 -e class 单独运行。
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class MusicBenchmark {
+    private static final int WARM_UP = 20;
+    private static final int ROUNDS = 100;
+    private static final int QUERY_ROUNDS = 20;
+    private static final int SONG_COUNT = 50000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void lrcParse() {
+        char[] corpus = LrcParserTest.corpus(5000);
+        for (int i = 0; i < WARM_UP; i++) {
+            LrcParser.parse(corpus, corpus.length);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        int lines = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            lines += LrcParser.parse(corpus, corpus.length).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println("LrcParser  " + lines * 1000_000_000L / Math.max(1, elapsed) + " 行/秒, "
+                + (usedAfter - usedBefore) / ROUNDS + " 字节/次");
+    }
+
+    @Test
+    public void insert() {
+        List<MusicBean> musicList = TestMusicDb.songs(SONG_COUNT, (bean, i) -> {
+            bean.setArtist("周杰伦");
+            bean.setAlbum("叶惠美");
+            bean.setSongUrl("/sdcard/Music/" + i + ".mp3");
+        });
+        long start = System.nanoTime();
+        for (int from = 0; from < SONG_COUNT; from += MusicListUtil.SCAN_BATCH_SIZE) {
+            mMusicDao.insertOrReplaceInTx(musicList.subList(from, Math.min(SONG_COUNT, from + MusicListUtil.SCAN_BATCH_SIZE)));
+        }
+        long batchedMs = (System.nanoTime() - start) / 1000_000;
+
+        mMusicDao.deleteAll();
+        start = System.nanoTime();
+        for (MusicBean bean : musicList) {
+            mMusicDao.insertOrReplace(bean);
+        }
+        long singleMs = (System.nanoTime() - start) / 1000_000;
+        System.out.println("写入 " + SONG_COUNT + " 首  逐条 " + singleMs + " ms  分批 " + batchedMs + " ms");
+    }
+
+    @Test
+    public void pinyinFirstChar() {
+        String[] titles = HanziToPinyinsTest.randomTitles(SONG_COUNT);
+        // 查找表第一次使用时生成，单独计时
+        long start = System.nanoTime();
+        HanziToPinyins.warmUp();
+        long buildMs = (System.nanoTime() - start) / 1000_000;
+
+        start = System.nanoTime();
+        for (String title : titles) {
+            HanziToPinyinsTest.legacyFirstChar(title);
+        }
+        long legacyMs = (System.nanoTime() - start) / 1000_000;
+
+        start = System.nanoTime();
+        for (String title : titles) {
+            HanziToPinyins.stringToPinyinSpecial(title);
+        }
+        long tableMs = (System.nanoTime() - start) / 1000_000;
+        System.out.println("首字母 " + SONG_COUNT + " 个标题  pinyin4j " + legacyMs + " ms  查找表 " + tableMs
+                + " ms  建表 " + buildMs + " ms");
+    }
+
+    @Test
+    public void queries() {
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, MusicQueryPlanTest::fill);
+        List<String> indexes = new ArrayList<>();
+        try (Cursor cursor = mDatabase.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'MUSIC_BEAN' AND sql IS NOT NULL", null)) {
+            while (cursor.moveToNext()) {
+                indexes.add(cursor.getString(0));
+            }
+        }
+        for (String index : indexes) {
+            mDatabase.execSQL("DROP INDEX " + index);
+        }
+        long[] before = runQueries();
+        MusicBeanDao.createTable(mDatabase, true);
+        mDatabase.execSQL("ANALYZE");
+        long[] after = runQueries();
+        for (int i = 0; i < MusicQueryPlanTest.QUERIES.length; i++) {
+            System.out.println(MusicQueryPlanTest.QUERIES[i][0] + "\n    " + before[i] / 1000 + " us -> " + after[i] / 1000 + " us");
+        }
+    }
+
+    @Test
+    public void search() {
+        MusicSearchUtil.createTable(mDatabase);
+        List<MusicBean> musicList = TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, MusicSearchTest::fill);
+        long start = System.nanoTime();
+        MusicSearchUtil.index(mDatabase, musicList);
+        long indexMs = (System.nanoTime() - start) / 1000_000;
+
+        start = System.nanoTime();
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            mMusicDao.queryBuilder().where(MusicBeanDao.Properties.Title.like("%晴天%")).list();
+        }
+        long likeUs = (System.nanoTime() - start) / QUERY_ROUNDS / 1000;
+        start = System.nanoTime();
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            MusicSearchUtil.search(mMusicDao, "晴天", Constant.NUMBER_ELEVEN);
+        }
+        long ftsUs = (System.nanoTime() - start) / QUERY_ROUNDS / 1000;
+        System.out.println("建立搜索表 " + indexMs + " ms  搜索 晴天  LIKE " + likeUs + " us  FTS " + ftsUs + " us");
+    }
+
+    @Test
+    public void rxBusPost() {
+        RxBus.Topic<Integer> topic = RxBus.getInstance().topic("benchmark_topic", Integer.class);
+        Disposable disposable = topic.toObservable().subscribe(o -> {
+        });
+        int count = 100000;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            topic.post(i);
+        }
+        long postNs = (System.nanoTime() - start) / count;
+        disposable.dispose();
+        System.out.println("RxBus 每个事件 " + postNs + " ns  " + RxBus.getInstance().getPostCounts().size() + " 个主题");
+    }
+
+    private long[] runQueries() {
+        String[][] queries = MusicQueryPlanTest.QUERIES;
+        long[] elapsed = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            String[] args = MusicQueryPlanTest.argsOf(queries[i]);
+            long start = System.nanoTime();
+            for (int round = 0; round < QUERY_ROUNDS; round++) {
+                try (Cursor cursor = mDatabase.rawQuery(queries[i][0], args)) {
+                    while (cursor.moveToNext()) {
+                        cursor.getLong(0);
+                    }
+                }
+            }
+            elapsed[i] = (System.nanoTime() - start) / QUERY_ROUNDS;
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,90 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicDbWriterTest
+ * @ Des:    写入线程合并同一行的更新、一批一个事务，单个操作失败不影响同一批的其它操作。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicDbWriterTest {
+    private static final int SONG_COUNT = 20;
+    private static final int UPDATE_COUNT = 5000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+    private MusicDbWriter mWriter;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, (bean, i) -> {
+            bean.setArtist("周杰伦");
+            bean.setAlbum("叶惠美");
+            bean.setSongUrl("/sdcard/Music/" + i + ".mp3");
+        });
+        mWriter = TestMusicDb.newWriter(mDatabase);
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void mergeUpdates() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(UPDATE_COUNT);
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            MusicBean bean = new MusicBean();
+            bean.setId((long) i % SONG_COUNT + 1);
+            bean.setTitle("晴天 " + (i % SONG_COUNT));
+            bean.setSongUrl("/sdcard/Music/" + (i % SONG_COUNT) + ".mp3");
+            bean.setPlayFrequency(i);
+            futures.add(mWriter.update(mMusicDao, bean));
+        }
+        mWriter.flush().join();
+        for (CompletableFuture<Void> future : futures) {
+            assertTrue(future.isDone());
+        }
+        // 每一行保留最后一次提交的数据
+        for (int i = 0; i < SONG_COUNT; i++) {
+            assertEquals(UPDATE_COUNT - SONG_COUNT + i, mMusicDao.load((long) i + 1).getPlayFrequency());
+        }
+    }
+
+    @Test
+    public void failureOnlyAffectsItself() {
+        MusicBean first = mMusicDao.load(1L);
+        first.setSongScore(5);
+        CompletableFuture<Void> ok = mWriter.update(mMusicDao, first);
+        CompletableFuture<Void> failed = mWriter.submit(() -> {
+            throw new IllegalStateException("写入失败");
+        });
+        CompletableFuture<Integer> counted = mWriter.call(() -> (int) mMusicDao.count());
+        mWriter.flush().join();
+
+        assertTrue(ok.isDone() && !ok.isCompletedExceptionally());
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(SONG_COUNT, (int) counted.join());
+        assertEquals(5, mMusicDao.load(1L).getSongScore());
+    }
+}
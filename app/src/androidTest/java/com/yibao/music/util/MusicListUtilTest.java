@@ -4,6 +4,7 @@ import android.content.Context;
 import androidx.test.platform.app.InstrumentationRegistry;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.yibao.music.MusicApplication;
 import com.yibao.music.model.AlbumInfo;
 import com.yibao.music.model.ArtistInfo;
 import com.yibao.music.model.MusicBean;
@@ -16,6 +17,7 @@ import org.junit.runner.RunWith;
 import java.util.List;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @ Author: Luoshipeng
@@ -51,8 +53,19 @@ public class MusicListUtilTest {
 
     @Test
     public void sortAbcList() {
-        List<MusicBean> abcList = MusicListUtil.sortByAbc(mMusicDataList);
+        List<MusicBean> abcList = MusicListUtil.orderByAbc(MusicApplication.getInstance().getMusicDao().queryBuilder());
         assertNotNull(abcList);
+        // 按 SORT_KEY 排序（SQLite 中 NULL 在最前），相同时按id
+        for (int i = 1; i < abcList.size(); i++) {
+            MusicBean previous = abcList.get(i - 1);
+            MusicBean bean = abcList.get(i);
+            int compare = sortKey(previous).compareTo(sortKey(bean));
+            assertTrue(compare < 0 || compare == 0 && previous.getId() < bean.getId());
+        }
+    }
+
+    private static String sortKey(MusicBean bean) {
+        return bean.getSortKey() == null ? "" : bean.getSortKey();
     }
 
     @Test
@@ -63,13 +76,13 @@ public class MusicListUtilTest {
 
     @Test
     public void sortArtistList() {
-        List<ArtistInfo> artistList = MusicListUtil.getArtistList(mMusicDataList);
+        List<ArtistInfo> artistList = MusicSummaryUtil.getArtistList();
         assertNotNull(artistList);
     }
 
     @Test
     public void sortAlbumList() {
-        List<AlbumInfo> albumList = MusicListUtil.getAlbumList(mMusicDataList);
+        List<AlbumInfo> albumList = MusicSummaryUtil.getAlbumList();
         assertNotNull(albumList);
     }
 
@@ -0,0 +1,118 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicPageListTest
+ * @ Des:    分页列表的顺序和一次性加载一致，只保留有限的页，字母跳转只加载一页，删除的歌曲不改变大小。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicPageListTest {
+    private static final int SONG_COUNT = 5000;
+    private static final String LETTERS = "abcdefghjklmnopqrstwxyz";
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, (bean, i) -> {
+            String title = LETTERS.charAt(i % LETTERS.length()) + "song " + i;
+            bean.setTitle(title);
+            bean.setFirstChar(String.valueOf(HanziToPinyins.stringToPinyinSpecial(title)));
+            bean.setSortKey(HanziToPinyins.toSortKey(title));
+            bean.setSongScore(i % 6);
+            bean.setListenTime(i % 7 * 1000L);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void sameOrderAsFullList() {
+        List<MusicBean> fullList = mMusicDao.queryBuilder()
+                .orderDesc(MusicBeanDao.Properties.SongScore, MusicBeanDao.Properties.ListenTime, MusicBeanDao.Properties.Id).build().list();
+        MusicPageList pageList = new MusicPageList(mMusicDao, null, null, MusicPageList.ORDER_SCORE);
+        long firstScreen = pageList.get(0).getId();
+
+        assertEquals(fullList.size(), pageList.size());
+        assertEquals((long) fullList.get(0).getId(), firstScreen);
+        for (int i = 0; i < fullList.size(); i++) {
+            assertEquals(fullList.get(i).getId(), pageList.get(i).getId());
+        }
+        assertTrue(pageList.getLoadedPageCount() <= 6);
+    }
+
+    @Test
+    public void sectionIndexMatchesSortKey() {
+        MusicPageList pageList = new MusicPageList(mMusicDao, null, null, MusicPageList.ORDER_ABC);
+        List<MusicBean> fullList = MusicListUtil.orderByAbc(mMusicDao.queryBuilder());
+        SectionIndex sectionIndex = pageList.getSectionIndex();
+        // 分组和id一起读出，还没有加载任何一页
+        assertEquals(0, pageList.getLoadedPageCount());
+        int position = sectionIndex.getPositionForSection('S');
+        assertEquals("S", pageList.get(position).getFirstChar());
+        assertEquals("R", fullList.get(position - 1).getFirstChar());
+        assertEquals(1, pageList.getLoadedPageCount());
+        // 没有 I 开头的歌曲
+        assertEquals(-1, sectionIndex.getPositionForSection('I'));
+        assertEquals(0, sectionIndex.getCount('I'));
+
+        // 删除后后面的分组前移
+        int countS = sectionIndex.getCount('S');
+        int positionT = sectionIndex.getPositionForSection('T');
+        pageList.remove(position);
+        assertEquals(countS - 1, sectionIndex.getCount('S'));
+        assertEquals(positionT - 1, sectionIndex.getPositionForSection('T'));
+        assertEquals("T", pageList.get(positionT - 1).getFirstChar());
+    }
+
+    @Test
+    public void deletedRowKeepsSizeAndRequestsReload() throws InterruptedException {
+        MusicPageList pageList = new MusicPageList(mMusicDao, null, null, MusicPageList.ORDER_SCORE);
+        int size = pageList.size();
+        int index = 5;
+        long deletedId = pageList.get(index).getId();
+        // 访问后面的页，第一页被回收
+        for (int page = 1; page <= 6; page++) {
+            pageList.get(page * MusicPageList.PAGE_SIZE);
+        }
+        CountDownLatch changed = new CountDownLatch(1);
+        pageList.setOnChangedListener(list -> changed.countDown());
+        mMusicDao.deleteByKey(deletedId);
+
+        // 重新读取这一页时大小不变，删除的歌曲是占位的空行
+        MusicBean placeholder = pageList.get(index);
+        assertEquals(size, pageList.size());
+        assertEquals(deletedId, (long) placeholder.getId());
+        assertEquals("", placeholder.getTitle());
+        assertTrue(changed.await(5, TimeUnit.SECONDS));
+
+        pageList.reload();
+        assertEquals(size - 1, pageList.size());
+        assertTrue(pageList.get(index).getId() != deletedId);
+    }
+}
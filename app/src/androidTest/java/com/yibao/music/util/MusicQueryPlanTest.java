@@ -0,0 +1,98 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicQueryPlanTest
+ * @ Des:    MUSIC_BEAN 常用查询的 EXPLAIN QUERY PLAN 都用到索引，排序不需要临时 B 树。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicQueryPlanTest {
+    private static final int SONG_COUNT = 5000;
+    private static final String SELECT = "SELECT * FROM \"MUSIC_BEAN\" T ";
+    /**
+     * 和 QueryMusicFlagListUtil、PlayListFragment、SongViewModel 中 greenDAO 生成的语句一致
+     */
+    static final String[][] QUERIES = {
+            {SELECT + "WHERE T.\"ARTIST\"=? ORDER BY T.\"SORT_KEY\" ASC,T.\"_id\" ASC", "周杰伦 7"},
+            {SELECT + "WHERE T.\"ALBUM\"=? ORDER BY T.\"SORT_KEY\" ASC,T.\"_id\" ASC", "叶惠美 42"},
+            {SELECT + "WHERE T.\"PLAY_LIST_FLAG\"=?", "跑步"},
+            {SELECT + "WHERE T.\"PLAY_LIST_FLAG\"=? AND T.\"TITLE\"=?", "跑步", "晴天 100"},
+            {SELECT + "WHERE T.\"TITLE\"=?", "晴天 100"},
+            {SELECT + "WHERE T.\"IS_FAVORITE\"=? ORDER BY T.\"TIME\" DESC", "1"},
+            {SELECT + "ORDER BY T.\"SONG_SCORE\" DESC,T.\"LISTEN_TIME\" DESC,T.\"_id\" DESC LIMIT 100"},
+            {SELECT + "ORDER BY T.\"PLAY_FREQUENCY\" DESC LIMIT 100"},
+            {SELECT + "ORDER BY T.\"ADD_TIME\" DESC LIMIT 100"},
+            {SELECT + "ORDER BY T.\"SORT_KEY\" ASC,T.\"_id\" ASC LIMIT 100"}};
+
+    private Database mDatabase;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        MusicBeanDao musicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        TestMusicDb.insertSongs(musicDao, SONG_COUNT, MusicQueryPlanTest::fill);
+        mDatabase.execSQL("ANALYZE");
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void queriesUseIndexes() {
+        for (String[] query : QUERIES) {
+            String plan = explain(query);
+            assertTrue(query[0] + "\n    " + plan, plan.contains("INDEX"));
+            assertFalse(query[0] + "\n    " + plan, plan.contains("TEMP B-TREE"));
+        }
+    }
+
+    /**
+     * 和 MusicBenchmark 使用相同的数据
+     */
+    static void fill(MusicBean bean, int i) {
+        bean.setSortKey("qingtian " + i);
+        bean.setArtist("周杰伦 " + i % 500);
+        bean.setAlbum("叶惠美 " + i % 2000);
+        bean.setAddTime(i);
+        bean.setPlayFrequency(i % 97);
+        bean.setSongScore(i % 11);
+        bean.setPlayListFlag(i % 50 == 0 ? "跑步" : null);
+        bean.setIsFavorite(i % 20 == 0);
+        bean.setTime(String.valueOf(i));
+    }
+
+    static String[] argsOf(String[] query) {
+        String[] args = new String[query.length - 1];
+        System.arraycopy(query, 1, args, 0, args.length);
+        return args;
+    }
+
+    private String explain(String[] query) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = mDatabase.rawQuery("EXPLAIN QUERY PLAN " + query[0], argsOf(query))) {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
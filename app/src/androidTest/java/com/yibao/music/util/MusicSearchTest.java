@@ -0,0 +1,68 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicSearchTest
+ * @ Des:    MUSIC_SEARCH 全文搜索和原来 LIKE '%key%' 全表扫描的结果一致，拼音、首字母和前缀也能搜到。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicSearchTest {
+    private static final int SONG_COUNT = 5000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        MusicSearchUtil.createTable(mDatabase);
+        List<MusicBean> musicList = TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, MusicSearchTest::fill);
+        MusicSearchUtil.index(mDatabase, musicList);
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void sameResultAsLike() {
+        int likeCount = mMusicDao.queryBuilder().where(MusicBeanDao.Properties.Title.like("%晴天%")).list().size();
+        assertEquals(SONG_COUNT / 100, likeCount);
+        assertEquals(likeCount, MusicSearchUtil.search(mMusicDao, "晴天", Constant.NUMBER_ELEVEN).size());
+
+        // 拼音、拼音首字母和前缀都能搜到
+        assertEquals(likeCount, MusicSearchUtil.search(mMusicDao, "qingtian", Constant.NUMBER_ELEVEN).size());
+        assertEquals(likeCount, MusicSearchUtil.search(mMusicDao, "qt", Constant.NUMBER_ELEVEN).size());
+        assertTrue(MusicSearchUtil.search(mMusicDao, "zjl", Constant.NUMBER_THIRTEEN).size() >= SONG_COUNT / 500);
+        assertEquals(0, MusicSearchUtil.search(mMusicDao, " - ", Constant.NUMBER_FOURTEEN).size());
+    }
+
+    /**
+     * 和 MusicBenchmark 使用相同的数据
+     */
+    static void fill(MusicBean bean, int i) {
+        bean.setTitle(i % 100 == 0 ? "晴天 " + i : "Song " + i);
+        bean.setSortKey(HanziToPinyins.toSortKey(bean.getTitle()));
+        bean.setArtist("周杰伦 " + i % 500);
+        bean.setAlbum("叶惠美 " + i % 2000);
+    }
+}
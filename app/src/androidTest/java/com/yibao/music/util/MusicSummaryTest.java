@@ -0,0 +1,86 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.AlbumInfo;
+import com.yibao.music.model.ArtistInfo;
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.AlbumInfoDao;
+import com.yibao.music.model.greendao.ArtistInfoDao;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.DaoSession;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   MusicSummaryTest
+ * @ Des:    艺术家、专辑汇总表的重建和增量更新，按 SORT_KEY 读出专辑汇总。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MusicSummaryTest {
+    private static final int SONG_COUNT = 10000;
+    private static final int ARTIST_COUNT = 500;
+    private static final int ALBUM_COUNT = 2000;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+    private ArtistInfoDao mArtistDao;
+    private AlbumInfoDao mAlbumDao;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        DaoSession session = new DaoMaster(mDatabase).newSession();
+        mMusicDao = session.getMusicBeanDao();
+        mArtistDao = session.getArtistInfoDao();
+        mAlbumDao = session.getAlbumInfoDao();
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, (bean, i) -> {
+            bean.setArtist("周杰伦 " + i % ARTIST_COUNT);
+            bean.setAlbum("叶惠美 " + i % ALBUM_COUNT);
+            bean.setAlbumId(i % ALBUM_COUNT);
+            bean.setIssueYear(2000 + i % 20);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void rebuildAndUpdate() {
+        MusicSummaryUtil.rebuild(mDatabase);
+        assertEquals(ARTIST_COUNT, mArtistDao.count());
+        assertEquals(ALBUM_COUNT, mAlbumDao.count());
+
+        ArtistInfo artist = mArtistDao.queryBuilder().where(ArtistInfoDao.Properties.Artist.eq("周杰伦 7")).unique();
+        assertEquals(SONG_COUNT / ARTIST_COUNT, artist.getSongCount());
+        assertEquals(ALBUM_COUNT / ARTIST_COUNT, artist.getAlbumCount());
+        // 组内第一首歌是 id 8
+        assertEquals("叶惠美 7", artist.getAlbumName());
+
+        // 删除一个专辑的全部歌曲后只更新受影响的艺术家和专辑
+        List<MusicBean> albumSongs = mMusicDao.queryBuilder().where(MusicBeanDao.Properties.Album.eq("叶惠美 7")).list();
+        mMusicDao.deleteInTx(albumSongs);
+        MusicSummaryUtil.update(mDatabase, Collections.singletonList("周杰伦 7"), Collections.singletonList("叶惠美 7"));
+        assertNull(mAlbumDao.queryBuilder().where(AlbumInfoDao.Properties.AlbumName.eq("叶惠美 7")).unique());
+        artist = mArtistDao.queryBuilder().where(ArtistInfoDao.Properties.Artist.eq("周杰伦 7")).unique();
+        assertEquals(SONG_COUNT / ARTIST_COUNT - albumSongs.size(), artist.getSongCount());
+        assertEquals(ALBUM_COUNT / ARTIST_COUNT - 1, artist.getAlbumCount());
+
+        List<AlbumInfo> albumList = mAlbumDao.queryBuilder().orderAsc(AlbumInfoDao.Properties.SortKey, AlbumInfoDao.Properties.Id).list();
+        assertEquals(ALBUM_COUNT - 1, albumList.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   PlayStatsRecorderTest
+ * @ Des:    播放统计按歌曲汇总后只累加统计列，整行更新时旧的实体不会把统计写回去。使用内存数据库。
+ */
+@RunWith(AndroidJUnit4.class)
+public class PlayStatsRecorderTest {
+    private static final int SONG_COUNT = 10;
+
+    private Database mDatabase;
+    private MusicBeanDao mMusicDao;
+    private PlayStatsRecorder mRecorder;
+
+    @Before
+    public void setup() {
+        mDatabase = TestMusicDb.open();
+        mMusicDao = new DaoMaster(mDatabase).newSession().getMusicBeanDao();
+        PlayStatsRecorder.createTrigger(mDatabase);
+        TestMusicDb.insertSongs(mMusicDao, SONG_COUNT, (bean, i) -> bean.setSongUrl("/sdcard/Music/" + i + ".mp3"));
+        mRecorder = new PlayStatsRecorder(TestMusicDb.newWriter(mDatabase), mMusicDao);
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void aggregateAndKeepStats() {
+        // 歌曲1 马上切走，歌曲2 播放完成，歌曲1 再播放后服务退出
+        MusicBean stale = mMusicDao.load(1L);
+        mRecorder.onTrackStart(1, true);
+        mRecorder.onTrackStart(2, true);
+        mRecorder.onCompletion();
+        mRecorder.onTrackStart(1, false);
+        mRecorder.onPlaying(true);
+        mRecorder.stop().join();
+
+        // load 优先返回缓存的实体，先清掉缓存再读数据库
+        mMusicDao.detachAll();
+        MusicBean first = mMusicDao.load(1L);
+        assertEquals(2, first.getPlayFrequency());
+        assertEquals(2, first.getSkipCount());
+        assertEquals(0, first.getCompleteCount());
+        MusicBean second = mMusicDao.load(2L);
+        assertEquals(1, second.getPlayFrequency());
+        assertEquals(0, second.getSkipCount());
+        assertEquals(1, second.getCompleteCount());
+
+        // 播放前读出的实体整行更新，评分写入，统计保持不变
+        stale.setSongScore(5);
+        mMusicDao.update(stale);
+        mMusicDao.detachAll();
+        first = mMusicDao.load(1L);
+        assertEquals(5, first.getSongScore());
+        assertEquals(2, first.getPlayFrequency());
+        assertEquals(2, first.getSkipCount());
+    }
+}
@@ -0,0 +1,82 @@
+package com.yibao.music.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   RxBusTest
+ * @ Des:    事件只分发给自己主题的订阅者，高频主题合并后最后一个事件不丢失，也不会晚于立即发送的事件到达。
+ */
+@RunWith(AndroidJUnit4.class)
+public class RxBusTest {
+    private static final int TOPIC_COUNT = 20;
+    private static final int EVENT_COUNT = 1000;
+
+    @Test
+    public void dispatchOnlyToTopic() {
+        RxBus bus = RxBus.getInstance();
+        CompositeDisposable disposables = new CompositeDisposable();
+        int[] received = new int[TOPIC_COUNT];
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            int topic = i;
+            disposables.add(bus.topic("test_topic_" + i, Integer.class).toObservable().subscribe(o -> received[topic]++));
+        }
+        int[] intKeyReceived = new int[1];
+        disposables.add(bus.toObservableType(-100, String.class).subscribe(o -> intKeyReceived[0]++));
+        RxBus.Topic<Integer> topic = bus.topic("test_topic_0", Integer.class);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            topic.post(i);
+        }
+        bus.post(-100, "int key");
+        disposables.dispose();
+
+        assertEquals(EVENT_COUNT, received[0]);
+        for (int i = 1; i < TOPIC_COUNT; i++) {
+            assertEquals(0, received[i]);
+        }
+        assertEquals(1, intKeyReceived[0]);
+        assertEquals(EVENT_COUNT, topic.getPostCount());
+    }
+
+    @Test
+    public void conflateKeepsLatest() {
+        TestScheduler scheduler = new TestScheduler();
+        // 第一个事件距离上次发送超过一个间隔，立即发送
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        RxBus.Topic<Integer> topic = new RxBus(scheduler).topic("test_progress", Integer.class).setConflateInterval(50);
+        List<Integer> received = new ArrayList<>();
+        Disposable disposable = topic.toObservable().subscribe(received::add);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            topic.post(i);
+        }
+        assertEquals(Arrays.asList(0), received);
+        // 间隔到了只发送最新的一个，中间的都丢弃
+        scheduler.advanceTimeBy(50, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList(0, EVENT_COUNT - 1), received);
+        assertEquals(EVENT_COUNT - 2, topic.getDroppedCount());
+
+        // 立即发送的完成事件之后不会再收到旧的进度
+        topic.post(1);
+        topic.post(2);
+        topic.postNow(-1);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        disposable.dispose();
+        assertEquals(Arrays.asList(0, EVENT_COUNT - 1, -1), received);
+        assertEquals(EVENT_COUNT, topic.getDroppedCount());
+        assertEquals(EVENT_COUNT + 3, topic.getPostCount());
+    }
+}
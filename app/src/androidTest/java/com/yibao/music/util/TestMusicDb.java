@@ -0,0 +1,73 @@
+package com.yibao.music.util;
+
+import android.os.Process;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.DaoMaster;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   TestMusicDb
+ * @ Des:    测试共用的内存数据库、歌曲数据和写入线程。
+ */
+final class TestMusicDb {
+
+    /**
+     * 按序号填充一首歌的其它字段
+     */
+    interface SongFiller {
+        void fill(MusicBean bean, int i);
+    }
+
+    private TestMusicDb() {
+    }
+
+    /**
+     * name 为 null 时创建内存数据库
+     */
+    static Database open() {
+        DaoMaster.DevOpenHelper helper = new DaoMaster.DevOpenHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        return helper.getWritableDb();
+    }
+
+    /**
+     * 生成 count 首歌，id 从1开始，歌名为 "晴天 " + 序号，filler 不为null时再填充其它字段
+     */
+    static List<MusicBean> songs(int count, SongFiller filler) {
+        List<MusicBean> musicList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MusicBean bean = new MusicBean();
+            bean.setId((long) i + 1);
+            bean.setTitle("晴天 " + i);
+            if (filler != null) {
+                filler.fill(bean, i);
+            }
+            musicList.add(bean);
+        }
+        return musicList;
+    }
+
+    /**
+     * 生成歌曲并在一个事务中写入
+     */
+    static List<MusicBean> insertSongs(MusicBeanDao musicDao, int count, SongFiller filler) {
+        List<MusicBean> musicList = songs(count, filler);
+        musicDao.insertInTx(musicList);
+        return musicList;
+    }
+
+    /**
+     * 使用单独线程池的写入线程，不影响应用的共享线程池
+     */
+    static MusicDbWriter newWriter(Database database) {
+        return new MusicDbWriter(database, new ThreadPoolProxy("test-db-writer", 1, 512, Process.THREAD_PRIORITY_BACKGROUND, true));
+    }
+}
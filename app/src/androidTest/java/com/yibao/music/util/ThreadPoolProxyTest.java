@@ -0,0 +1,112 @@
+package com.yibao.music.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   ThreadPoolProxyTest
+ * @ Des:    共享线程池按优先级执行，队列满时的拒绝策略和统计，RxJava 的任务不受队列容量限制。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ThreadPoolProxyTest {
+
+    @Test
+    public void priorityAndRejection() throws InterruptedException {
+        ThreadPoolProxy pool = new ThreadPoolProxy("test", 1, 4, Process.THREAD_PRIORITY_BACKGROUND, false);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<String> order = new CopyOnWriteArrayList<>();
+        occupy(pool, block);
+        pool.execute(() -> record(order, "normal1", done));
+        pool.execute(() -> record(order, "low", done), ThreadPoolProxy.PRIORITY_LOW);
+        pool.execute(() -> record(order, "high", done), ThreadPoolProxy.PRIORITY_HIGH);
+        pool.execute(() -> record(order, "normal2", done));
+        // 排队的任务都在 queuedAt 之前提交、在 block 放开之后开始，等待时间不会少于两者之差
+        long queuedAt = SystemClock.elapsedRealtime();
+        // 队列已满，丢弃
+        pool.execute(() -> record(order, "rejected", done));
+        assertEquals(4, pool.getQueueSize());
+        assertEquals(1, pool.getRejectedCount());
+
+        long heldMs = SystemClock.elapsedRealtime() - queuedAt;
+        block.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("high", "normal1", "normal2", "low"), order);
+        assertTrue(pool.getMaxWaitMs() >= heldMs);
+    }
+
+    @Test
+    public void callerRunsWhenFull() throws InterruptedException {
+        ThreadPoolProxy pool = new ThreadPoolProxy("test-writer", 1, 1, Process.THREAD_PRIORITY_BACKGROUND, true);
+        CountDownLatch block = new CountDownLatch(1);
+        occupy(pool, block);
+        pool.execute(() -> {
+        });
+        Thread[] ranOn = new Thread[1];
+        pool.execute(() -> ranOn[0] = Thread.currentThread());
+        block.countDown();
+        assertEquals(Thread.currentThread(), ranOn[0]);
+        assertEquals(1, pool.getRejectedCount());
+    }
+
+    @Test
+    public void schedulerNeverRunsOnCaller() throws InterruptedException {
+        ThreadPoolProxy pool = new ThreadPoolProxy("test-rx", 1, 1, Process.THREAD_PRIORITY_BACKGROUND, true);
+        CountDownLatch block = new CountDownLatch(1);
+        occupy(pool, block);
+        pool.execute(() -> {
+        });
+        // 队列已满，RxJava 的任务仍然进入队列，不在提交的线程执行
+        List<Thread> ranOn = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.getScheduler().scheduleDirect(() -> {
+                ranOn.add(Thread.currentThread());
+                done.countDown();
+            });
+        }
+        assertTrue(ranOn.isEmpty());
+        assertEquals(0, pool.getRejectedCount());
+
+        block.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertFalse(ranOn.contains(Thread.currentThread()));
+    }
+
+    /**
+     * 提交一个等待 block 的任务，等它开始执行后返回，线程池唯一的线程被占用
+     */
+    private static void occupy(ThreadPoolProxy pool, CountDownLatch block) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+    }
+
+    private static void record(List<String> order, String name, CountDownLatch done) {
+        order.add(name);
+        done.countDown();
+    }
+}
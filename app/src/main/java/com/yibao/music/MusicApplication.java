@@ -7,6 +7,7 @@ import androidx.multidex.MultiDex;
 
 import com.baidu.mobstat.StatService;
 import com.yibao.music.model.greendao.AlbumInfoDao;
+import com.yibao.music.model.greendao.ArtistInfoDao;
 import com.yibao.music.model.greendao.DaoMaster;
 import com.yibao.music.model.greendao.DaoSession;
 import com.yibao.music.model.greendao.DaoUpgradeHelper;
@@ -14,6 +15,10 @@ import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.model.greendao.PlayListBeanDao;
 import com.yibao.music.model.greendao.SearchHistoryBeanDao;
 import com.yibao.music.util.CrashHandler;
+import com.yibao.music.util.HanziToPinyins;
+import com.yibao.music.util.MusicDbWriter;
+import com.yibao.music.util.ThreadPoolProxy;
+import com.yibao.music.util.ThreadPoolProxyFactory;
 
 /**
  * 作者：Stran on 2017/3/23 15:12
@@ -42,6 +47,9 @@ public class MusicApplication
     public void onCreate() {
         super.onCreate();
         appContext = this;
+        // 在任何 RxJava 调度器使用之前替换
+        ThreadPoolProxyFactory.installRxSchedulers();
+        ThreadPoolProxyFactory.getCpu().execute(HanziToPinyins::warmUp, ThreadPoolProxy.PRIORITY_LOW);
         StatService.setAuthorizedState(this, false);
         StatService.start(this);
         CrashHandler.getInstance().init();
@@ -49,8 +57,17 @@ public class MusicApplication
         MultiDex.install(this);
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThreadPoolProxyFactory.logMetrics();
+        MusicDbWriter.getInstance().logStats();
+    }
+
     private void setUpDataBase() {
         DaoUpgradeHelper helper = new DaoUpgradeHelper(this, "favorite-db", null);
+        // WAL 模式下读不会被写入线程的事务阻塞，写入统一由 MusicDbWriter 完成
+        helper.setWriteAheadLoggingEnabled(true);
         SQLiteDatabase db = helper.getWritableDatabase();
         DaoMaster daoMaster = new DaoMaster(db);
         mDaoSession = daoMaster.newSession();
@@ -83,4 +100,8 @@ public class MusicApplication
     public AlbumInfoDao getAlbumDao() {
         return mDaoSession.getAlbumInfoDao();
     }
+
+    public ArtistInfoDao getArtistDao() {
+        return mDaoSession.getArtistInfoDao();
+    }
 }
@@ -28,13 +28,11 @@ import com.yibao.music.model.MusicBean
 import com.yibao.music.model.greendao.MusicBeanDao
 import com.yibao.music.service.MusicPlayService
 import com.yibao.music.service.MusicPlayService.AudioBinder
+import com.yibao.music.service.PlaybackClock
 import com.yibao.music.util.*
 import com.yibao.music.util.HandleBackUtil.handleBackPress
 import com.yibao.music.util.SpUtils.ContentValue
-import io.reactivex.Observable
-import io.reactivex.android.schedulers.AndroidSchedulers
 import java.io.File
-import java.util.concurrent.TimeUnit
 
 /**
  * @author lsp
@@ -386,15 +384,12 @@ class MusicActivity : BaseActivity(), OnMusicItemClickListener, OnUpdateTitleLis
         disposableQqLyric()
         if (mQqLyricsDisposable == null) {
             if (lyricList.size > 1 && lyricsPlayPosition < lyricList.size) {
-                mQqLyricsDisposable = Observable.interval(
-                    1600, TimeUnit.MICROSECONDS
-                ) //                    .subscribeOn(Schedulers.io())
-                    .observeOn(AndroidSchedulers.mainThread()).subscribe {
+                mQqLyricsDisposable = PlaybackClock.getInstance().ticks(PlaybackClock.LYRIC_INTERVAL)
+                    .subscribe { progress ->
                         //通过集合，播放过的歌词就从集合中删除
                         val lyrBean =
                             lyricList[if (lyricsPlayPosition == lyricList.size || lyricsPlayPosition > lyricList.size) lyricList.size - 1 else lyricsPlayPosition]
                         val lyrics = lyrBean.content
-                        val progress = audioBinder!!.progress
                         val startTime = lyrBean.startTime
                         val musicList = audioBinder!!.musicList
                         if (musicList != null && progress > startTime) {
@@ -451,12 +446,10 @@ class MusicActivity : BaseActivity(), OnMusicItemClickListener, OnUpdateTitleLis
         }
     }
 
-    override fun updateCurrentPlayProgress() {
+    override fun updateCurrentPlayProgress(progress: Int) {
         if (audioBinder != null) {
-            if (audioBinder!!.isPlaying) {
-                mBinding.smartisanControlBar.setSongProgress(audioBinder!!.progress)
-                mBinding.qqControlBar.setProgress(audioBinder!!.progress)
-            }
+            mBinding.smartisanControlBar.setSongProgress(progress)
+            mBinding.qqControlBar.setProgress(progress)
         }
     }
 
@@ -496,7 +489,7 @@ class MusicActivity : BaseActivity(), OnMusicItemClickListener, OnUpdateTitleLis
                 mCurrentMusicBean, mBinding.qqControlBar, mBinding.smartisanControlBar
             )
             updatePlayBtnStatus()
-            updateCurrentPlayProgress()
+            updateCurrentPlayProgress(audioBinder!!.progress)
             setDuration()
             updateQqBar()
         }
@@ -541,7 +534,7 @@ class MusicActivity : BaseActivity(), OnMusicItemClickListener, OnUpdateTitleLis
             }
             val songUrl = musicBean.songUrl
             // 先从本地数据库删除歌曲，再彻底删除歌曲文件。
-            mMusicDao.delete(musicBean)
+            MusicDaoUtil.deleteMusic(musicBean)
             FileUtil.deleteFile(File(songUrl))
             mBus.post(Constant.DELETE_SONG, moreMenuStatus.position)
         } else {
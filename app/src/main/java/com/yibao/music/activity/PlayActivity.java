@@ -30,6 +30,7 @@ import com.yibao.music.util.FileUtil;
 import com.yibao.music.util.ImageUitl;
 import com.yibao.music.util.LogUtil;
 import com.yibao.music.util.LyricsUtil;
+import com.yibao.music.util.MusicDaoUtil;
 import com.yibao.music.util.SnakbarUtil;
 import com.yibao.music.util.StringUtil;
 
@@ -170,7 +171,7 @@ public class PlayActivity extends BasePlayActivity implements View.OnClickListen
                 audioBinder.playNext();
                 String songUrl = mCurrentMusicInfo.getSongUrl();
                 // 先从本地数据库删除歌曲，再彻底删除歌曲文件。
-                mMusicDao.delete(mCurrentMusicInfo);
+                MusicDaoUtil.deleteMusic(mCurrentMusicInfo);
                 FileUtil.deleteFile(new File(songUrl));
                 break;
             default:
@@ -207,8 +208,8 @@ public class PlayActivity extends BasePlayActivity implements View.OnClickListen
      * Rxbus接收歌曲时时的进度 和 时间，并更新UI
      */
     @Override
-    protected void updateCurrentPlayProgress() {
-        updateMusicProgress(audioBinder.getProgress());
+    protected void updateCurrentPlayProgress(int progress) {
+        updateMusicProgress(progress);
     }
 
     protected void updateMusicProgress(int progress) {
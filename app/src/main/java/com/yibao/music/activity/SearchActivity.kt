@@ -16,12 +16,9 @@ import com.yibao.music.fragment.dialogfrag.MoreMenuBottomDialog
 import com.yibao.music.model.MusicBean
 import com.yibao.music.service.MusicPlayService
 import com.yibao.music.service.MusicPlayService.AudioBinder
+import com.yibao.music.service.PlaybackClock
 import com.yibao.music.util.*
 import com.yibao.music.viewmodel.SearchViewModel
-import io.reactivex.Observable
-import io.reactivex.android.schedulers.AndroidSchedulers
-import io.reactivex.schedulers.Schedulers
-import java.util.concurrent.TimeUnit
 
 /**
  * @author lsp
@@ -74,8 +71,8 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
     override fun onResume() {
         super.onResume()
         // 搜索结果
-        mViewModel.searchViewModel.observe(this) { musicList ->
-            setData(musicList)
+        mViewModel.searchViewModel.observe(this) { result ->
+            setData(result)
         }
         mViewModel.historyViewModel.observe(this) { historyList ->
             mBinding.flowlayout.setData(historyList)
@@ -97,19 +94,17 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
         startPlayActivity()
     }
 
-    private fun setData(musicList: List<MusicBean>) {
-        LogUtil.d(TAG, "当前页面标识   $mPosition")
+    private fun setData(result: SearchViewModel.SearchResult) {
+        LogUtil.d(TAG, "当前页面标识   ${result.position}")
+        val musicList = result.musicList
         if (musicList.isEmpty()) {
             mBinding.tvNoSearchResult.visibility = View.VISIBLE
             mBinding.recyclerSearch.visibility = View.GONE
         } else {
             mBinding.tvNoSearchResult.visibility = View.GONE
             mBinding.recyclerSearch.visibility = View.VISIBLE
-            val editCondition = mBinding.editSearch.text.toString().trim()
-
-
-            // 列表数据
-            mAdapter = DetailsViewAdapter(this, musicList, mPosition, editCondition)
+            // 列表数据，播放时按产生这份结果的关键字和类别重新查询队列
+            mAdapter = DetailsViewAdapter(this, musicList, result.position, result.key)
             mBinding.recyclerSearch.adapter = mAdapter
             mAdapter!!.setOnItemMenuListener(object :
                 BaseBindingAdapter.OnOpenItemMoreMenuListener {
@@ -203,9 +198,9 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
         mBinding.searchCategoryRoot.root.visibility =
             if (searchKey.isEmpty()) View.GONE else View.VISIBLE
         mBinding.groupSearch.visibility = if (searchKey.isEmpty()) View.VISIBLE else View.GONE
-        if (searchKey.isNotEmpty()) {
-            mViewModel.searchMusic(searchKey, position)
-        } else {
+        // 关键字为空时取消还没返回的搜索
+        mViewModel.searchMusic(searchKey, position)
+        if (searchKey.isEmpty()) {
             // 获取历史记录
             mViewModel.getHistory()
         }
@@ -230,9 +225,9 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
         }
     }
 
-    override fun updateCurrentPlayProgress() {
+    override fun updateCurrentPlayProgress(progress: Int) {
         if (audioBinder != null) {
-            mBinding.smartisanControlBar.setSongProgress(audioBinder!!.progress)
+            mBinding.smartisanControlBar.setSongProgress(progress)
         }
     }
 
@@ -261,7 +256,7 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
     private fun switchListCategory(position: Int) {
         mPosition = position
         val searchKey = mBinding.editSearch.text.trim().toString()
-        mViewModel.searchMusic(searchKey, position)
+        mViewModel.searchMusic(searchKey, position, true)
         when (position) {
             11 -> {
                 setAllCategoryNotNormal()
@@ -327,9 +322,8 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
 
 
     override fun startMusicServiceFlag(
-        position: Int, pageType: Int, conditon: String
+        position: Int, pageType: Int, condition: String
     ) {
-        val condition = mBinding.editSearch.text.toString().trim()
         val intent = Intent(this, MusicPlayService::class.java)
         intent.putExtra(Constant.PAGE_TYPE, pageType)
         intent.putExtra(Constant.CONDITION, condition)
@@ -356,20 +350,18 @@ class SearchActivity : BaseBindingActivity<ActivitySearchBinding>(), OnMusicItem
         disposableQqLyric()
         if (mQqLyricsDisposable == null) {
             mQqLyricsDisposable =
-                Observable.interval(0, 2800, TimeUnit.MICROSECONDS).subscribeOn(Schedulers.io())
-                    .observeOn(AndroidSchedulers.mainThread()).subscribe {
-                        if (lyricList.size > 1 && lyricsFlag < lyricList.size) {
-                            //通过集合，播放过的歌词就从集合中删除
-                            val lyrBean = lyricList[lyricsFlag]
-                            val content = lyrBean.content
-                            val progress = audioBinder!!.progress
-                            val startTime = lyrBean.startTime
-                            if (progress > startTime) {
-                                mBinding.smartisanControlBar.setSingerName(content)
-                                lyricsFlag++
-                            }
+                PlaybackClock.getInstance().ticks(PlaybackClock.LYRIC_INTERVAL).subscribe { progress ->
+                    if (lyricList.size > 1 && lyricsFlag < lyricList.size) {
+                        //通过集合，播放过的歌词就从集合中删除
+                        val lyrBean = lyricList[lyricsFlag]
+                        val content = lyrBean.content
+                        val startTime = lyrBean.startTime
+                        if (progress > startTime) {
+                            mBinding.smartisanControlBar.setSingerName(content)
+                            lyricsFlag++
                         }
                     }
+                }
         }
     }
 
@@ -17,6 +17,7 @@ import com.yibao.music.model.AlbumInfo;
 import com.yibao.music.util.Constant;
 import com.yibao.music.util.ImageUitl;
 import com.yibao.music.util.LogUtil;
+import com.yibao.music.util.SectionIndex;
 import com.yibao.music.util.StringUtil;
 
 import java.util.List;
@@ -146,6 +147,18 @@ public class AlbumAdapter
     }
 
 
+    /**
+     * 汇总表按 SORT_KEY 排好序，直接按 SORT_KEY 分组
+     */
+    @Override
+    protected SectionIndex buildSectionIndex() {
+        SectionIndex sectionIndex = new SectionIndex();
+        for (AlbumInfo info : getDataList()) {
+            sectionIndex.add(info.getSortKey());
+        }
+        return sectionIndex;
+    }
+
     @Override
     protected String getFirstChar(int i) {
         return getDataList().get(i).getFirstChar();
@@ -1,5 +1,6 @@
 package com.yibao.music.adapter;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,7 +11,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.yibao.music.base.bindings.BaseBindingAdapter;
 import com.yibao.music.databinding.ArtistItemBinding;
 import com.yibao.music.model.ArtistInfo;
-import com.yibao.music.util.HanziToPinyins;
+import com.yibao.music.util.SectionIndex;
 
 import java.util.List;
 
@@ -47,13 +48,13 @@ public class ArtistAdapter extends BaseBindingAdapter<ArtistInfo> {
             artisHolder.mBinding.artistItemName.setText(artistInfo.getArtist());
             artisHolder.mBinding.artistItemAlbumCount.setText(albumCount);
             artisHolder.mBinding.artistItemSongCount.setText(songCount);
-            String firstChar = HanziToPinyins.stringToPinyinSpecial(artistInfo.getArtist()) + "";
+            // 首字母在汇总表生成时已经算好，绑定时不再转换拼音
+            String firstChar = artistInfo.getFirstChar();
 
             artisHolder.mBinding.artistItemStickyView.setText(firstChar);
             if (position == 0) {
                 artisHolder.mBinding.artistItemStickyView.setVisibility(View.VISIBLE);
-            } else if (firstChar.equals(HanziToPinyins
-                    .stringToPinyinSpecial(getDataList().get(position - 1).getArtist()) + "")) {
+            } else if (TextUtils.equals(firstChar, getDataList().get(position - 1).getFirstChar())) {
                 artisHolder.mBinding.artistItemStickyView.setVisibility(View.GONE);
 
             } else {
@@ -69,6 +70,18 @@ public class ArtistAdapter extends BaseBindingAdapter<ArtistInfo> {
     }
 
 
+    /**
+     * 汇总表按 SORT_KEY 排好序，直接按 SORT_KEY 分组
+     */
+    @Override
+    protected SectionIndex buildSectionIndex() {
+        SectionIndex sectionIndex = new SectionIndex();
+        for (ArtistInfo info : getDataList()) {
+            sectionIndex.add(info.getSortKey());
+        }
+        return sectionIndex;
+    }
+
     @Override
     protected String getFirstChar(int i) {
         return getDataList().get(i).getFirstChar();
@@ -12,6 +12,7 @@ import com.yibao.music.databinding.BottomSheetMusicItemBinding;
 import com.yibao.music.model.AddAndDeleteListBean;
 import com.yibao.music.model.MusicBean;
 import com.yibao.music.util.Constant;
+import com.yibao.music.util.MusicDbWriter;
 import com.yibao.music.util.RxBus;
 import com.yibao.music.util.StringUtil;
 
@@ -50,7 +51,7 @@ public class BottomSheetAdapter
             // 侧滑删除收藏歌曲
             musicHolder.mBinding.deleteItem.setOnClickListener(v -> {
                 musicItem.setFavorite(false);
-                MusicApplication.getInstance().getMusicDao().update(musicItem);
+                MusicDbWriter.getInstance().update(MusicApplication.getInstance().getMusicDao(), musicItem);
                 RxBus.getInstance().post(new AddAndDeleteListBean(Constant.NUMBER_FIVE, position, musicItem.getTitle()));
             });
             // MusicBottomSheetDialog页面接收,用于播放收藏列表中点击Position的音乐
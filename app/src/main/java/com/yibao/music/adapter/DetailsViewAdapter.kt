@@ -13,6 +13,7 @@ import com.yibao.music.model.SearchHistoryBean
 import com.yibao.music.model.greendao.SearchHistoryBeanDao
 import com.yibao.music.util.Constant
 import com.yibao.music.util.LogUtil
+import com.yibao.music.util.MusicDbWriter
 import com.yibao.music.util.SpUtils.ContentValue
 import com.yibao.music.util.StringUtil
 
@@ -87,21 +88,24 @@ class DetailsViewAdapter(
     private fun insertSearchBean(queryConditions: String) {
         LogUtil.d(mTAG, queryConditions)
         val searchDao = MusicApplication.getInstance().searchDao
-        val historyList = searchDao.queryBuilder()
-            .where(SearchHistoryBeanDao.Properties.SearchContent.eq(queryConditions)).build().list()
-        // 没有保存过，直接插入一条数据。
-        if (historyList.size < 1) {
-            searchDao.insert(
-                SearchHistoryBean(
-                    queryConditions,
-                    System.currentTimeMillis().toString()
+        // 查询和写入都在写入线程执行，连续点击不会重复插入
+        MusicDbWriter.getInstance().submit {
+            val historyList = searchDao.queryBuilder()
+                .where(SearchHistoryBeanDao.Properties.SearchContent.eq(queryConditions)).build().list()
+            // 没有保存过，直接插入一条数据。
+            if (historyList.size < 1) {
+                searchDao.insert(
+                    SearchHistoryBean(
+                        queryConditions,
+                        System.currentTimeMillis().toString()
+                    )
                 )
-            )
-        } else {
-            // 保存过，更新保存时间。
-            val searchHistoryBean = historyList[0]
-            searchHistoryBean.searchTime = System.currentTimeMillis().toString()
-            searchDao.update(searchHistoryBean)
+            } else {
+                // 保存过，更新保存时间。
+                val searchHistoryBean = historyList[0]
+                searchHistoryBean.searchTime = System.currentTimeMillis().toString()
+                searchDao.update(searchHistoryBean)
+            }
         }
     }
 
@@ -18,6 +18,7 @@ import com.yibao.music.model.MusicBean;
 import com.yibao.music.util.Constant;
 import com.yibao.music.util.FileUtil;
 import com.yibao.music.util.ImageUitl;
+import com.yibao.music.util.SectionIndex;
 import com.yibao.music.util.StringUtil;
 
 import java.util.List;
@@ -113,6 +114,21 @@ public class SongAdapter extends BaseBindingAdapter<MusicBean> {
     }
 
 
+    /**
+     * 显示StickyView的是按歌名排序的列表，按 SORT_KEY 分组。分页列表的分组由基类直接从列表取得。
+     */
+    @Override
+    protected SectionIndex buildSectionIndex() {
+        if (!mIsShowStickyView) {
+            return null;
+        }
+        SectionIndex sectionIndex = new SectionIndex();
+        for (MusicBean bean : getDataList()) {
+            sectionIndex.add(bean.getSortKey());
+        }
+        return sectionIndex;
+    }
+
     @Override
     protected String getFirstChar(int i) {
         return getDataList().get(i).getFirstChar();
@@ -20,6 +20,7 @@ import com.yibao.music.model.MusicBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.model.greendao.PlayListBeanDao;
 import com.yibao.music.model.greendao.SearchHistoryBeanDao;
+import com.yibao.music.service.PlaybackClock;
 import com.yibao.music.util.Constant;
 import com.yibao.music.util.QueryMusicFlagListUtil;
 import com.yibao.music.util.RxBus;
@@ -30,9 +31,7 @@ import com.yibao.music.view.music.SmartisanControlBar;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
@@ -85,12 +84,12 @@ public abstract class BaseActivity extends AppCompatActivity {
         if (mCompositeDisposable == null) {
             mCompositeDisposable = new CompositeDisposable();
         }
-        mCompositeDisposable.add(mBus.toObservableType(Constant.SERVICE_MUSIC, MusicBean.class)
+        mCompositeDisposable.add(mBus.topic(Constant.SERVICE_MUSIC, MusicBean.class).toObservable()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::updateCurrentPlayInfo));
         // 接收歌词下载状态
-        mCompositeDisposable.add(mBus.toObservableType(Constant.MUSIC_LYRIC_OK, LyricDownBean.class)
+        mCompositeDisposable.add(mBus.topic(Constant.MUSIC_LYRIC_OK, LyricDownBean.class).toObservable()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(bean -> {
@@ -99,10 +98,10 @@ public abstract class BaseActivity extends AppCompatActivity {
                         ToastUtil.show(this, "暂无歌词");
                     }
                 }));
-        mCompositeDisposable.add(mBus.toObservableType(Constant.PLAY_STATUS, Object.class)
+        mCompositeDisposable.add(mBus.topic(Constant.PLAY_STATUS, Integer.class).toObservable()
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(o -> refreshBtnAndNotify((Integer) o)));
+                .subscribe(this::refreshBtnAndNotify));
         mCompositeDisposable.add(mBus.toObserverable(MoreMenuStatus.class)
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
@@ -126,18 +125,22 @@ public abstract class BaseActivity extends AppCompatActivity {
     protected void refreshBtnAndNotify(int playStatus) {
     }
 
+    /**
+     * 订阅播放时钟推送的进度，界面暂停时在 onPause 中取消订阅
+     */
     protected void upDataPlayProgress() {
         if (mDisposableProgress == null) {
-            mDisposableProgress = Observable.interval(0, 2800, TimeUnit.MICROSECONDS)
-                    .subscribeOn(Schedulers.io())
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(aLong -> BaseActivity.this.updateCurrentPlayProgress());
+            mDisposableProgress = PlaybackClock.getInstance().ticks(PlaybackClock.PROGRESS_INTERVAL)
+                    .subscribe(this::updateCurrentPlayProgress);
             mCompositeDisposable.add(mDisposableProgress);
         }
 
     }
 
-    protected void updateCurrentPlayProgress() {
+    /**
+     * @param progress 当前播放位置 ms
+     */
+    protected void updateCurrentPlayProgress(int progress) {
     }
 
     /**
@@ -18,16 +18,12 @@ import com.yibao.music.activity.MusicActivity;
 import com.yibao.music.base.listener.OnCheckFavoriteListener;
 import com.yibao.music.base.listener.SeekBarChangeListtener;
 import com.yibao.music.service.MusicPlayService;
+import com.yibao.music.service.PlaybackClock;
 import com.yibao.music.util.LogUtil;
 import com.yibao.music.util.ToastUtil;
 import com.yibao.music.view.music.LyricsView;
 
-import java.util.concurrent.TimeUnit;
-
-import io.reactivex.Observable;
-import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 
 
 /**
@@ -78,10 +74,9 @@ public abstract class BasePlayActivity extends BaseTransitionActivity implements
      */
     protected void startRollPlayLyrics(LyricsView lyricsView) {
         if (mDisposableLyrics == null) {
-            mDisposableLyrics = Observable.interval(30, TimeUnit.MILLISECONDS)
-                    .subscribeOn(Schedulers.io())
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(aLong -> lyricsView.rollText(audioBinder.getProgress(), audioBinder.getDuration()));
+            PlaybackClock clock = PlaybackClock.getInstance();
+            mDisposableLyrics = clock.ticks(PlaybackClock.ROLL_LYRIC_INTERVAL)
+                    .subscribe(progress -> lyricsView.rollText(progress, clock.getDuration()));
             mCompositeDisposable.add(mDisposableLyrics);
         }
 
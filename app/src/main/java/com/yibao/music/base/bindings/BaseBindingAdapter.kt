@@ -9,6 +9,8 @@ import com.yibao.music.R
 import com.yibao.music.model.MusicBean
 import com.yibao.music.model.PlayListBean
 import com.yibao.music.util.Constant
+import com.yibao.music.util.MusicPageList
+import com.yibao.music.util.SectionIndex
 import com.yibao.music.util.SpUtils
 import java.util.*
 
@@ -30,6 +32,7 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
     protected var isSelectStatus = false
     protected var dataList: List<T> = mList
     protected val mSp = SpUtils(MusicApplication.getInstance(), Constant.MUSIC_CONFIG)
+    private var mSectionIndex: SectionIndex? = null
 
     override fun getItemCount() = if (mList.isNotEmpty()) mList.size else 0
 
@@ -66,6 +69,7 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
 
     open fun clear() {
         mList.clear()
+        mSectionIndex = null
         notifyDataSetChanged()
     }
 
@@ -76,11 +80,13 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
 
     open fun setData(list: List<T>) {
         mList.addAll(list)
+        mSectionIndex = null
         notifyDataSetChanged()
     }
 
     open fun deleteSong(position: Int) {
         mList.removeAt(position)
+        mSectionIndex?.remove(position)
         notifyDataSetChanged()
     }
 
@@ -91,6 +97,7 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
                     mList.add(t)
                 }
             }
+            mSectionIndex = null
             notifyDataSetChanged()
         }
     }
@@ -100,11 +107,13 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
             mList.clear()
         }
         mList.addAll(data)
+        mSectionIndex = null
         notifyDataSetChanged()
     }
 
     open fun addData(position: Int, data: List<T>) {
         this.mList.addAll(position, data)
+        mSectionIndex = null
         notifyItemRangeInserted(position, data.size)
     }
 
@@ -113,7 +122,33 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
         return arrayOfNulls(0)
     }
 
+    /**
+     * 字母分组，第一次使用时建立，列表变化后重新建立。不支持字母导航的列表返回null。
+     */
+    open fun getSectionIndex(): SectionIndex? {
+        val list = mList
+        if (list is MusicPageList) {
+            // 分页列表加载id时一起得到分组，删除时自己更新
+            return list.sectionIndex
+        }
+        if (mSectionIndex == null) {
+            mSectionIndex = buildSectionIndex()
+        }
+        return mSectionIndex
+    }
+
+    /**
+     * 按数据库排序用的 SORT_KEY 建立字母分组，列表必须已经按 SORT_KEY 排好序
+     */
+    protected open fun buildSectionIndex(): SectionIndex? {
+        return null
+    }
+
     open fun getPositionForSection(section: Int): Int {
+        val sectionIndex = getSectionIndex()
+        if (sectionIndex != null) {
+            return sectionIndex.getPositionForSection(section.toChar())
+        }
         for (i in 0 until itemCount) {
             if (i < mList.size) {
                 val firstChar = getFirstChar(i)!!.uppercase(Locale.getDefault())[0]
@@ -156,6 +191,16 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
 
     override fun onAttachedToRecyclerView(recyclerView: RecyclerView) {
         super.onAttachedToRecyclerView(recyclerView)
+        val list = mList
+        if (list is MusicPageList) {
+            // 分页列表发现歌曲已经被删除时，重新读取后立即刷新，列表大小和 itemCount 保持一致
+            list.setOnChangedListener { pageList ->
+                if (pageList === mList) {
+                    pageList.reload()
+                    notifyDataSetChanged()
+                }
+            }
+        }
         val manager = recyclerView.layoutManager
         if (manager is GridLayoutManager) {
             val gridManager = manager
@@ -167,6 +212,11 @@ abstract class BaseBindingAdapter<T>(private var mList: MutableList<T>) :
         }
     }
 
+    override fun onDetachedFromRecyclerView(recyclerView: RecyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView)
+        (mList as? MusicPageList)?.setOnChangedListener(null)
+    }
+
     protected open fun openDetails(t: T, adapterPosition: Int) {
         mListener.showDetailsView(t, adapterPosition)
     }
@@ -34,7 +34,7 @@ abstract class BaseMusicFragmentDev<T : ViewBinding> : BaseBindingFragment<T>()
 
 
     protected fun randomPlayMusic(pageType:Int) {
-        val randomSize = mMusicBeanDao.queryBuilder().list().size
+        val randomSize = mMusicBeanDao.count().toInt()
         LogUtil.d(mTag, "随机播放   $pageType")
         val position = RandomUtil.getRandomPosition(randomSize)
         if (activity is OnMusicItemClickListener) {
@@ -15,11 +15,10 @@ import com.yibao.music.base.listener.OnScanConfigListener
 import com.yibao.music.base.listener.OnUpdateTitleListener
 import com.yibao.music.databinding.AboutFragmentBinding
 import com.yibao.music.fragment.dialogfrag.*
-import com.yibao.music.model.MusicBean
-import com.yibao.music.model.greendao.MusicBeanDao
 import com.yibao.music.util.*
 import com.yibao.music.view.music.MusicToolBar
 import io.reactivex.Observable
+import io.reactivex.ObservableEmitter
 import io.reactivex.android.schedulers.AndroidSchedulers
 import io.reactivex.schedulers.Schedulers
 import java.io.File
@@ -128,30 +127,24 @@ class AboutFragment : BaseMusicFragmentDev<AboutFragmentBinding>(), OnScanConfig
         startActivity(shareIntent)
     }
 
-    private var mCurrentPosition = 0
     private fun recoverFavoriteList() {
-        val musicList = mMusicBeanDao.queryBuilder().list()
-        if (FileUtil.getFavoriteFile()) {
-            val songInfoMap = HashMap<String, String>(16)
-            val stringSet = ReadFavoriteFileUtil.stringToSet()
-            for (s in stringSet) {
-                val songName = s.substring(0, s.lastIndexOf("T"))
-                val favoriteTime = s.substring(s.lastIndexOf("T") + 1)
-                songInfoMap[songName] = favoriteTime
-            }
-            mCompositeDisposable.add(Observable.fromIterable(musicList)
-                .map { musicBean: MusicBean ->
-                    //将歌名截取出来进行比较
-                    val favoriteTime = songInfoMap[musicBean.title]
-                    if (favoriteTime != null) {
-                        musicBean.time = favoriteTime
-                        musicBean.setIsFavorite(true)
-                        mMusicBeanDao.update(musicBean)
+        if (ReadFavoriteFileUtil.hasFavoriteFile()) {
+            // 匹配和更新都在后台一次完成，进度按固定频率发出，最后发出恢复的数量
+            mCompositeDisposable.add(Observable.create { emitter: ObservableEmitter<IntArray> ->
+                // 在写入线程执行，和其它写操作串行
+                val count = MusicDbWriter.getInstance().call {
+                    FavoriteBackupUtil.restore(mMusicBeanDao) { current, total ->
+                        emitter.onNext(intArrayOf(current, total))
                     }
-                    mCurrentPosition++
-                }.subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread())
-                .subscribe { currentPosition: Int ->
-                    if (currentPosition == musicList.size - 1) {
+                }.join()
+                emitter.onNext(intArrayOf(count))
+                emitter.onComplete()
+            }.subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread())
+                .subscribe { progress: IntArray ->
+                    if (progress.size > 1) {
+                        LogUtil.d(mTag, "恢复收藏进度  ${progress[0]} / ${progress[1]}")
+                    } else {
+                        ToastUtil.show(mActivity, "已恢复 ${progress[0]} 首收藏歌曲")
                         if (mActivity is OnUpdateTitleListener) {
                             (mActivity as OnUpdateTitleListener).checkCurrentFavorite()
                         }
@@ -163,17 +156,12 @@ class AboutFragment : BaseMusicFragmentDev<AboutFragmentBinding>(), OnScanConfig
     }
 
     private fun backupsFavoriteList() {
-        val list =
-            mMusicBeanDao.queryBuilder().where(MusicBeanDao.Properties.IsFavorite.eq(true)).build()
-                .list()
-        mCompositeDisposable.add(Observable.fromIterable(list).map { musicBean: MusicBean ->
-            val songInfo = musicBean.title + "T" + musicBean.addTime
-            ReadFavoriteFileUtil.writeFile(songInfo)
-            songInfo
-        }.subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread())
-            .subscribe { favoriteName: String ->
+        // 逐条读取收藏，一次追加到收藏日志
+        mCompositeDisposable.add(Observable.fromCallable { FavoriteBackupUtil.backup(mMusicBeanDao) }
+            .subscribeOn(Schedulers.io()).observeOn(AndroidSchedulers.mainThread())
+            .subscribe { success: Boolean ->
                 LogUtil.d(
-                    mTag, " 更新本地收藏文件==========   $favoriteName"
+                    mTag, " 更新本地收藏文件==========   $success"
                 )
             })
         ToastUtil.showFavoriteListBackupsDown(mActivity)
@@ -191,7 +179,7 @@ class AboutFragment : BaseMusicFragmentDev<AboutFragmentBinding>(), OnScanConfig
 
     private fun clearErrorLyric() {
         val handler = Handler(Looper.getMainLooper())
-        ThreadPoolProxyFactory.newInstance().execute {
+        ThreadPoolProxyFactory.getIo().execute {
             LyricsUtil.clearLyricList()
             handler.post { ToastUtil.show(mActivity, "错误歌词已删除") }
         }
@@ -7,7 +7,7 @@ import com.yibao.music.base.bindings.BaseMusicFragmentDev
 import com.yibao.music.databinding.CategoryFragmentBinding
 import com.yibao.music.model.AlbumInfo
 import com.yibao.music.util.Constant
-import com.yibao.music.util.MusicListUtil
+import com.yibao.music.util.MusicSummaryUtil
 import com.yibao.music.viewmodel.AlbumViewModel
 
 /**
@@ -30,8 +30,8 @@ class AlbumCategoryFragment : BaseMusicFragmentDev<CategoryFragmentBinding>() {
         if (arguments != null) {
             mPosition = arguments.getInt(Constant.POSITION)
         }
-        val musicBeanList = mMusicBeanDao.queryBuilder().list()
-        mAlbumList = MusicListUtil.getAlbumList(musicBeanList)
+        // 读汇总表，不再加载全部歌曲分组
+        mAlbumList = MusicSummaryUtil.getAlbumList()
 
     }
 
@@ -106,10 +106,9 @@ class AlbumFragment : BaseMusicFragmentDev<AlbumFragmentBinding>(), View.OnClick
                 mBinding.musicBar.setToolbarTitle(albumInfo.albumName)
                 mBinding.musicBar.setTvEditText(R.string.music_album)
 
-                mDetailList = MusicListUtil.sortByAbc(
+                mDetailList = MusicListUtil.orderByAbc(
                     mMusicBeanDao.queryBuilder()
-                        .where(MusicBeanDao.Properties.Album.eq(albumInfo.albumName)).build()
-                        .list()
+                        .where(MusicBeanDao.Properties.Album.eq(albumInfo.albumName))
                 ) as ArrayList<MusicBean>
                 // DetailsView播放音乐需要的参数
                 mBinding.detailsView.setDataFlag(
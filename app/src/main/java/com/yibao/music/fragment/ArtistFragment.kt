@@ -13,6 +13,7 @@ import com.yibao.music.model.MusicBean
 import com.yibao.music.model.greendao.MusicBeanDao
 import com.yibao.music.util.Constant
 import com.yibao.music.util.MusicListUtil
+import com.yibao.music.util.MusicSummaryUtil
 import com.yibao.music.view.music.MusicToolBar.OnToolbarClickListener
 
 /**
@@ -55,8 +56,8 @@ class ArtistFragment : BaseMusicFragmentDev<ArtisanListFragmentBinding>() {
     }
 
     override fun initData() {
-        val musicBeans = mMusicBeanDao.queryBuilder().list()
-        val artistList = MusicListUtil.getArtistList(musicBeans)
+        // 读汇总表，不再加载全部歌曲分组
+        val artistList = MusicSummaryUtil.getArtistList()
         mAdapter = ArtistAdapter(artistList)
         mBinding.artistMusicView.setAdapter(activity, Constant.NUMBER_TWO, true, mAdapter)
         mAdapter.setItemListener(object : BaseBindingAdapter.OnItemListener<ArtistInfo> {
@@ -74,9 +75,9 @@ class ArtistFragment : BaseMusicFragmentDev<ArtisanListFragmentBinding>() {
             mDetailList.clear()
         } else {
             if (artistInfo != null) {
-                mDetailList = MusicListUtil.sortByAbc(
+                mDetailList = MusicListUtil.orderByAbc(
                     mMusicBeanDao.queryBuilder()
-                        .where(MusicBeanDao.Properties.Artist.eq(artistInfo.artist)).build().list()
+                        .where(MusicBeanDao.Properties.Artist.eq(artistInfo.artist))
                 ) as ArrayList<MusicBean>
                 // DetailsView播放音乐需要的参数
                 mBinding.detailsView.setDataFlag(
@@ -22,7 +22,7 @@ import com.yibao.music.model.PlayListBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.model.greendao.PlayListBeanDao;
 import com.yibao.music.util.Constant;
-import com.yibao.music.util.ThreadPoolProxyFactory;
+import com.yibao.music.util.MusicDbWriter;
 import com.yibao.music.util.ToastUtil;
 import com.yibao.music.view.music.MusicToolBar;
 import com.yibao.music.viewmodel.PlayListViewModel;
@@ -178,7 +178,8 @@ public class PlayListFragment extends BaseMusicFragmentDev<PlayListFragmentBindi
         if (mContext instanceof PlayListActivity) {
             // 批量添加
             if (mArrayLisOpenDetail != null && mArrayLisOpenDetail.size() > 0) {
-                ThreadPoolProxyFactory.newInstance().execute(() -> {
+                // 整批在写入线程的一个事务里完成
+                MusicDbWriter.getInstance().submit(() -> {
                     for (String songTitle : mArrayLisOpenDetail) {
                         List<MusicBean> musicBeanList = mMusicBeanDao.queryBuilder().where(MusicBeanDao.Properties.PlayListFlag.eq(playListBean.getTitle()), MusicBeanDao.Properties.Title.eq(songTitle)).build().list();
                         if (musicBeanList.size() == 0) {
@@ -205,10 +206,10 @@ public class PlayListFragment extends BaseMusicFragmentDev<PlayListFragmentBindi
             MusicBean musicBean = musicBeans.get(0);
             musicBean.setPlayListFlag(playListBean.getTitle());
             musicBean.setAddListTime(System.currentTimeMillis());
-            mMusicBeanDao.update(musicBean);
+            MusicDbWriter.getInstance().update(mMusicBeanDao, musicBean);
             // 更新列表的歌曲数量
             playListBean.setSongCount(playListBean.getSongCount() + 1);
-            mPlayListDao.update(playListBean);
+            MusicDbWriter.getInstance().update(mPlayListDao, playListBean);
         }
     }
 
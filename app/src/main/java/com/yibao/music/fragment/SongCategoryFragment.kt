@@ -57,7 +57,7 @@ class SongCategoryFragment : BaseMusicFragmentDev<CategoryFragmentBinding>() {
                 val adapter = SongAdapter(
                     mActivity, musicList, mStateArray, true, 0,1
                 )
-                setData(adapter)
+                setData(adapter, position)
             }
             1 -> {
 
@@ -66,21 +66,21 @@ class SongCategoryFragment : BaseMusicFragmentDev<CategoryFragmentBinding>() {
                 )
 
 
-                setData(adapter)
+                setData(adapter, position)
             }
             2 -> {
                 val adapter = SongAdapter(
                     mActivity, musicList, mStateArray, false, 2,3
                 )
 
-                setData(adapter)
+                setData(adapter, position)
             }
             3 -> {
                 val adapter = SongAdapter(
                     mActivity, musicList, mStateArray, false, 0,4
                 )
 
-                setData(adapter)
+                setData(adapter, position)
             }
         }
 
@@ -88,8 +88,9 @@ class SongCategoryFragment : BaseMusicFragmentDev<CategoryFragmentBinding>() {
     }
 
 
-    private fun setData(adapter: SongAdapter) {
-        mBinding.musicView.setAdapter(requireActivity(), Constant.NUMBER_ONE, true, adapter)
+    private fun setData(adapter: SongAdapter, position: Int) {
+        // 字母导航只在按歌名排序的列表显示
+        mBinding.musicView.setAdapter(requireActivity(), Constant.NUMBER_ONE, position == 0, adapter)
         adapter.setOnItemMenuListener(object : BaseBindingAdapter.OnOpenItemMoreMenuListener {
             override fun openClickMoreMenu(position: Int, musicBean: MusicBean) {
                 MoreMenuBottomDialog.newInstance(
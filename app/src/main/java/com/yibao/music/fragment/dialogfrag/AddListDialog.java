@@ -23,6 +23,7 @@ import com.yibao.music.base.listener.TextChangedListener;
 import com.yibao.music.model.PlayListBean;
 import com.yibao.music.model.greendao.PlayListBeanDao;
 import com.yibao.music.util.Constant;
+import com.yibao.music.util.MusicDbWriter;
 import com.yibao.music.util.SnakbarUtil;
 import com.yibao.music.util.SoftKeybordUtil;
 import com.yibao.music.util.ToastUtil;
@@ -31,6 +32,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 
 /**
@@ -149,13 +151,19 @@ public class AddListDialog
                 SnakbarUtil.favoriteSuccessView(mEditAddList, "播放列表已存在");
             } else {
                 if (mOperationType == Constant.NUMBER_ONE) {
-                    long insertOrReplaceId = playListDao.insertOrReplace(new PlayListBean(listTitle, System.currentTimeMillis()));
-                    if (insertOrReplaceId != 0) {
-                        mListener.onRefresh();
-                        dismiss();
-                    } else {
-                        ToastUtil.show(getActivity(), "添加失败");
-                    }
+                    // 在写入线程插入，完成后回到主线程刷新
+                    MusicDbWriter.getInstance().call(() -> playListDao.insertOrReplace(new PlayListBean(listTitle, System.currentTimeMillis())))
+                            .whenComplete((insertOrReplaceId, throwable) -> AndroidSchedulers.mainThread().scheduleDirect(() -> {
+                                if (!isAdded()) {
+                                    return;
+                                }
+                                if (insertOrReplaceId != null && insertOrReplaceId != 0) {
+                                    mListener.onRefresh();
+                                    dismiss();
+                                } else {
+                                    ToastUtil.show(getActivity(), "添加失败");
+                                }
+                            }));
 
                 } else {
                     // 重命名
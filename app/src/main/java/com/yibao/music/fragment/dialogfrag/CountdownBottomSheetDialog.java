@@ -71,11 +71,10 @@ public class CountdownBottomSheetDialog {
 
     private void initRxData(BottomSheetDialog dialog) {
         if (mDisposable == null) {
-            mDisposable = RxBus.getInstance().toObservableType(Constant.COUNTDOWN_TIME, Object.class)
+            mDisposable = RxBus.getInstance().topic(Constant.COUNTDOWN_TIME, String.class).toObservable()
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(o -> {
-                        String countdownTime = (String) o;
+                    .subscribe(countdownTime -> {
                         String stopTime = mContext.getString(R.string.time_remaining) + "  " + countdownTime;
                         mTvCountdown.setText(stopTime);
                         if (countdownTime.equals(Constant.FINISH_TIME)) {
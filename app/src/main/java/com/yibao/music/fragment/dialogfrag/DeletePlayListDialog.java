@@ -21,6 +21,8 @@ import com.yibao.music.util.Constant;
 import com.yibao.music.util.MusicDaoUtil;
 import com.yibao.music.util.RxBus;
 
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
 /**
  * Author：Sid
  * Des：${删除列表}
@@ -105,9 +107,15 @@ public class DeletePlayListDialog
 
     private void deletePlayList() {
         if (mPageType == Constant.NUMBER_TWO) {
-            // 同步更新列表中，的歌曲的列表标识 (更新为“LSP_98”)
-            MusicDaoUtil.setMusicListFlag(mPlayListBean);
+            // 同步更新列表中，的歌曲的列表标识 (更新为“LSP_98”)，写入完成后再刷新列表
+            MusicDaoUtil.setMusicListFlag(mPlayListBean)
+                    .thenRun(() -> AndroidSchedulers.mainThread().scheduleDirect(this::notifyDeleted));
+        } else {
+            notifyDeleted();
         }
+    }
+
+    private void notifyDeleted() {
         mBus.post(new AddAndDeleteListBean(mPageType));
         mListener.onRefresh();
     }
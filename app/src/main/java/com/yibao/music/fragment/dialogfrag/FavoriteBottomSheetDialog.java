@@ -27,6 +27,7 @@ import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.service.MusicPlayService;
 import com.yibao.music.util.Constant;
 import com.yibao.music.util.LogUtil;
+import com.yibao.music.util.MusicDbWriter;
 import com.yibao.music.util.MusicListUtil;
 import com.yibao.music.util.RxBus;
 import com.yibao.music.util.SnakbarUtil;
@@ -187,7 +188,8 @@ public class FavoriteBottomSheetDialog
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(musicBean -> {
                     musicBean.setIsFavorite(false);
-                    mMusicDao.update(musicBean);
+                    // 逐条提交，写入线程合并到一个事务里
+                    MusicDbWriter.getInstance().update(mMusicDao, musicBean);
                     checkCurrentFavorite(musicBean.getTitle());
                 }));
     }
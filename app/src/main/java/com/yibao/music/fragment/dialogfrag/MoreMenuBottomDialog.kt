@@ -17,6 +17,7 @@ import com.yibao.music.model.MusicBean
 import com.yibao.music.model.greendao.MusicBeanDao
 import com.yibao.music.util.Constant
 import com.yibao.music.util.MenuListUtil
+import com.yibao.music.util.MusicDbWriter
 import com.yibao.music.util.RxBus
 import com.yibao.music.util.SpUtils
 import com.yibao.music.util.SpUtils.ContentValue
@@ -69,7 +70,8 @@ class MoreMenuBottomDialog {
         mBinding.ratingBar.onRatingBarChangeListener =
             OnRatingBarChangeListener { _: RatingBar?, rating: Float, _: Boolean ->
                 mMusicBean!!.songScore = rating.toInt()
-                musicDao!!.update(mMusicBean)
+                // 拖动评分时连续的更新在写入线程合并成一次
+                MusicDbWriter.getInstance().update(musicDao!!, mMusicBean!!)
             }
 
     }
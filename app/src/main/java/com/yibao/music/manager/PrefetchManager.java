@@ -0,0 +1,116 @@
+package com.yibao.music.manager;
+
+import android.content.Context;
+
+import com.bumptech.glide.Glide;
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.network.QqMusicRemote;
+import com.yibao.music.util.FileUtil;
+import com.yibao.music.util.ImageUitl;
+import com.yibao.music.util.LogUtil;
+import com.yibao.music.util.LyricsCache;
+import com.yibao.music.util.NetworkUtil;
+import com.yibao.music.util.StringUtil;
+import com.yibao.music.util.ThreadPoolProxy;
+import com.yibao.music.util.ThreadPoolProxyFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   PrefetchManager
+ * @ Des:    预加载播放队列中接下来几首歌曲的歌词和封面：本地歌词提前解析进LyricsCache，没有的歌词和封面提前下载，
+ * 封面再预热到Glide的内存缓存，切歌时播放界面不再出现“没有歌词”和占位图的闪烁。队列变化时取消未完成的任务。
+ */
+public class PrefetchManager {
+    private static final String TAG = " ==== " + PrefetchManager.class.getSimpleName() + "  ";
+    /**
+     * 预加载接下来几首歌曲
+     */
+    public static final int PREFETCH_COUNT = 3;
+
+    private final Context mContext;
+    private final ThreadPoolProxy mExecutor;
+    private volatile int mGeneration;
+
+    public PrefetchManager(Context context) {
+        mContext = context.getApplicationContext();
+        mExecutor = ThreadPoolProxyFactory.getPrefetch();
+    }
+
+    /**
+     * 取消之前的预加载，按顺序预加载给定位置的歌曲。
+     *
+     * @param musicList 播放队列
+     * @param positions 接下来将要播放的位置
+     */
+    public void prefetch(List<MusicBean> musicList, int[] positions) {
+        cancel();
+        if (musicList == null) {
+            return;
+        }
+        int generation = mGeneration;
+        for (int position : positions) {
+            if (position < 0 || position >= musicList.size()) {
+                continue;
+            }
+            MusicBean bean = musicList.get(position);
+            mExecutor.execute(() -> {
+                if (generation == mGeneration) {
+                    prefetchLyrics(bean, generation);
+                }
+                if (generation == mGeneration) {
+                    prefetchCover(bean);
+                }
+            });
+        }
+    }
+
+    /**
+     * 播放队列变化时取消还没有开始的预加载
+     */
+    public void cancel() {
+        mGeneration++;
+        mExecutor.clearQueue();
+    }
+
+    /**
+     * 线程池是共享的，这里只取消未完成的预加载
+     */
+    public void release() {
+        cancel();
+    }
+
+    private void prefetchLyrics(MusicBean bean, int generation) {
+        File file = FileUtil.getLyricsFile(bean.getTitle(), bean.getArtist());
+        if (!file.exists()) {
+            if (!NetworkUtil.isNetworkConnected()
+                    || !QqMusicRemote.downloadSongLyrics(bean.getTitle(), bean.getArtist())
+                    || generation != mGeneration) {
+                return;
+            }
+        }
+        try {
+            LyricsCache.getInstance().get(file);
+        } catch (IOException e) {
+            LogUtil.d(TAG, "预加载歌词出错 " + e.getMessage());
+        }
+    }
+
+    private void prefetchCover(MusicBean bean) {
+        String title = bean.getTitle();
+        boolean downloaded = new File(StringUtil.getDownAlbum(title, bean.getArtist())).exists();
+        if (!downloaded && StringUtil.getAlbumArtPath(mContext, String.valueOf(bean.getAlbumId())) == null
+                && NetworkUtil.isNetworkConnected()) {
+            // 和播放界面一样，没有专辑图片时从QQ音乐下载保存到本地
+            String imgUrl = QqMusicRemote.getSongImgUrl(title);
+            if (imgUrl != null) {
+                ImageUitl.glideSaveImg(mContext, imgUrl, 1, title, title);
+            }
+            return;
+        }
+        Glide.with(mContext).load(FileUtil.getAlbumUrl(bean, 1)).preload();
+    }
+}
@@ -6,8 +6,9 @@ import androidx.annotation.NonNull;
 
 import org.greenrobot.greendao.annotation.Entity;
 import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.Keep;
 import org.greenrobot.greendao.annotation.Unique;
-import org.greenrobot.greendao.annotation.Generated;
 
 /**
  * @项目名： ArtisanMusic
@@ -23,6 +24,7 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
     @Id(autoincrement = true)
     @Unique
     private Long id;
+    @Index(unique = true)
     private String albumName;
     private String artist;
     private Long albumId;
@@ -31,6 +33,11 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
     private String songName;
     private int year;
     private boolean mSelected;
+    /**
+     * 排序用的全拼
+     */
+    @Index
+    private String sortKey;
 
 
     protected AlbumInfo(Parcel in) {
@@ -51,6 +58,7 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
         songName = in.readString();
         year = in.readInt();
         mSelected = in.readByte() != 0;
+        sortKey = in.readString();
     }
 
     public static final Creator<AlbumInfo> CREATOR = new Creator<AlbumInfo>() {
@@ -84,10 +92,10 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
     public AlbumInfo() {
     }
 
-    @Generated(hash = 643847150)
+    @Keep
     public AlbumInfo(Long id, String albumName, String artist, Long albumId,
             int songCount, String firstChar, String songName, int year,
-            boolean mSelected) {
+            boolean mSelected, String sortKey) {
         this.id = id;
         this.albumName = albumName;
         this.artist = artist;
@@ -97,6 +105,7 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
         this.songName = songName;
         this.year = year;
         this.mSelected = mSelected;
+        this.sortKey = sortKey;
     }
 
     public String getAlbumName() {
@@ -139,20 +148,17 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
         this.firstChar = firstChar;
     }
 
-    @Override
-    public int compareTo(@NonNull AlbumInfo albumInfo) {
-        String str = "#";
-        if (str.equals(albumInfo.getFirstChar())) {
-
-            return -1;
-        }
-        if (str.equals(firstChar)) {
-
-            return 1;
-        }
-        return firstChar.compareTo(albumInfo.getFirstChar());
+    public String getSortKey() {
+        return sortKey;
+    }
 
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
 
+    @Override
+    public int compareTo(@NonNull AlbumInfo albumInfo) {
+        return sortKey.compareTo(albumInfo.getSortKey());
     }
 
     public boolean isSelected() {
@@ -189,6 +195,7 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
         dest.writeString(songName);
         dest.writeInt(year);
         dest.writeByte((byte) (mSelected ? 1 : 0));
+        dest.writeString(sortKey);
     }
 
     public Long getId() {
@@ -219,6 +226,7 @@ public class AlbumInfo implements Parcelable, Comparable<AlbumInfo> {
                 ", songName='" + songName + '\'' +
                 ", year=" + year +
                 ", mSelected=" + mSelected +
+                ", sortKey='" + sortKey + '\'' +
                 '}';
     }
 }
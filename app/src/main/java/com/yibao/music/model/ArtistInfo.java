@@ -4,6 +4,11 @@ import android.os.Parcel;
 import android.os.Parcelable;
 import androidx.annotation.NonNull;
 
+import org.greenrobot.greendao.annotation.Entity;
+import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.Keep;
+
 /**
  * @项目名： ArtisanMusic
  * @包名： com.yibao.music.model
@@ -14,8 +19,11 @@ import androidx.annotation.NonNull;
  * @描述： {TODO}
  */
 
+@Entity
 public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
-
+    @Id(autoincrement = true)
+    private Long id;
+    @Index(unique = true)
     private String artist;
     private String albumName;
     private int albumCount;
@@ -23,8 +31,18 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
     private String firstChar;
     private int year;
     private long albumId;
+    /**
+     * 排序用的全拼
+     */
+    @Index
+    private String sortKey;
 
     protected ArtistInfo(Parcel in) {
+        if (in.readByte() == 0) {
+            id = null;
+        } else {
+            id = in.readLong();
+        }
         artist = in.readString();
         albumName = in.readString();
         albumCount = in.readInt();
@@ -32,6 +50,7 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
         firstChar = in.readString();
         year = in.readInt();
         albumId = in.readLong();
+        sortKey = in.readString();
     }
 
     public static final Creator<ArtistInfo> CREATOR = new Creator<ArtistInfo>() {
@@ -65,6 +84,28 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
     public ArtistInfo() {
     }
 
+    @Keep
+    public ArtistInfo(Long id, String artist, String albumName, int albumCount,
+            int songCount, String firstChar, int year, long albumId, String sortKey) {
+        this.id = id;
+        this.artist = artist;
+        this.albumName = albumName;
+        this.albumCount = albumCount;
+        this.songCount = songCount;
+        this.firstChar = firstChar;
+        this.year = year;
+        this.albumId = albumId;
+        this.sortKey = sortKey;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getAlbumName() {
         return albumName;
     }
@@ -106,18 +147,17 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
     }
 
 
-    @Override
-    public int compareTo(@NonNull ArtistInfo artistInfo) {
-        String str = "#";
-        if (str.equals(artistInfo.getFirstChar())) {
+    public String getSortKey() {
+        return sortKey;
+    }
 
-            return -1;
-        }
-        if (str.equals(firstChar)) {
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
 
-            return 1;
-        }
-        return firstChar.compareTo(artistInfo.getFirstChar());
+    @Override
+    public int compareTo(@NonNull ArtistInfo artistInfo) {
+        return sortKey.compareTo(artistInfo.getSortKey());
     }
 
     @Override
@@ -127,6 +167,12 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
 
     @Override
     public void writeToParcel(Parcel parcel, int i) {
+        if (id == null) {
+            parcel.writeByte((byte) 0);
+        } else {
+            parcel.writeByte((byte) 1);
+            parcel.writeLong(id);
+        }
         parcel.writeString(artist);
         parcel.writeString(albumName);
         parcel.writeInt(albumCount);
@@ -134,6 +180,7 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
         parcel.writeString(firstChar);
         parcel.writeInt(year);
         parcel.writeLong(albumId);
+        parcel.writeString(sortKey);
     }
 
     @Override
@@ -173,7 +220,11 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
 
             return false;
         }
-        return firstChar != null ? firstChar.equals(that.firstChar) : that.firstChar == null;
+        if (firstChar != null ? !firstChar.equals(that.firstChar) : that.firstChar != null) {
+
+            return false;
+        }
+        return sortKey != null ? sortKey.equals(that.sortKey) : that.sortKey == null;
     }
 
     @Override
@@ -185,6 +236,7 @@ public class ArtistInfo implements Parcelable, Comparable<ArtistInfo> {
         result = 31 * result + (firstChar != null ? firstChar.hashCode() : 0);
         result = 31 * result + year;
         result = 31 * result + (int) (albumId ^ (albumId >>> 32));
+        result = 31 * result + (sortKey != null ? sortKey.hashCode() : 0);
         return result;
     }
 }
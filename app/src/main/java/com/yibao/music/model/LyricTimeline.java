@@ -0,0 +1,97 @@
+package com.yibao.music.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   LyricTimeline
+ * @ Des:    解析后的歌词时间轴，按列存储：原始文本只保存一份，每行歌词只记录开始时间和内容在文本中的起止位置。
+ * 行已经按开始时间排好序（时间相同的保持文件中的先后顺序）。
+ */
+public class LyricTimeline {
+    private final char[] text;
+    private final int[] startTimes;
+    private final int[] contentStart;
+    private final int[] contentEnd;
+    private final int size;
+    private final int offset;
+    private final String title;
+    private final String artist;
+
+    public LyricTimeline(char[] text, int[] startTimes, int[] contentStart, int[] contentEnd, int size,
+                         int offset, String title, String artist) {
+        this.text = text;
+        this.startTimes = startTimes;
+        this.contentStart = contentStart;
+        this.contentEnd = contentEnd;
+        this.size = size;
+        this.offset = offset;
+        this.title = title;
+        this.artist = artist;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getStartTime(int index) {
+        return startTimes[index];
+    }
+
+    public String getContent(int index) {
+        return new String(text, contentStart[index], contentEnd[index] - contentStart[index]);
+    }
+
+    /**
+     * 歌词文本的字符数，用于估算占用的内存。
+     */
+    public int getTextLength() {
+        return text.length;
+    }
+
+    /**
+     * [offset:] 标签的毫秒数，已经计入每行的开始时间。
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * [ti:] 标签，没有时为null。
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * [ar:] 标签，没有时为null。
+     */
+    public String getArtist() {
+        return artist;
+    }
+
+    /**
+     * 转换成界面使用的歌词List。
+     */
+    public List<MusicLyricBean> toLyricList() {
+        List<MusicLyricBean> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new MusicLyricBean(startTimes[i], getContent(i)));
+        }
+        return list;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LyricTimeline{" +
+                "size=" + size +
+                ", offset=" + offset +
+                ", title='" + title + '\'' +
+                ", artist='" + artist + '\'' +
+                '}';
+    }
+}
@@ -7,9 +7,10 @@ import androidx.annotation.NonNull;
 
 import org.greenrobot.greendao.annotation.Entity;
 import org.greenrobot.greendao.annotation.Id;
+import org.greenrobot.greendao.annotation.Index;
+import org.greenrobot.greendao.annotation.Keep;
 import org.greenrobot.greendao.annotation.Transient;
 import org.greenrobot.greendao.annotation.Unique;
-import org.greenrobot.greendao.annotation.Generated;
 
 import java.util.Objects;
 
@@ -19,26 +20,43 @@ import java.util.Objects;
  *
  * @author Stran
  */
-@Entity
+@Entity(indexes = {
+        // 艺术家、专辑详情：等值过滤后按全拼排序
+        @Index(value = "artist, sortKey"),
+        @Index(value = "album, sortKey"),
+        // 播放列表详情，以及添加到列表时按歌名查重
+        @Index(value = "playListFlag, title"),
+        // 收藏列表按收藏时间倒序。TIME 是 TEXT 列，按字符串比较，依赖收藏时间都是 13 位毫秒时间戳（见 StringUtil.getTime），
+        // 位数相同时字符串顺序和数值顺序一致，到 2286 年才会变成 14 位
+        @Index(value = "isFavorite, time DESC"),
+        // 按评分排序，评分相同时收听时间长的在前
+        @Index(value = "songScore, listenTime")
+})
 public class MusicBean
         implements Parcelable, Comparable<MusicBean> {
     @Id(autoincrement = true)
     @Unique
     private Long id;
+    @Index
     private String title;
     private String artist;
     private String album;
     private long albumId;
+    @Index
     private long addTime;
     private long addListTime;
     private long duration;
     /**
-     * 收藏时间
+     * 收藏时间，StringUtil.getTime() 生成的毫秒时间戳字符串，收藏列表按它的字符串顺序排序，不能写入其它格式
      */
     private String time;
     private String songUrl;
     private String firstChar;
     private boolean isFavorite;
+    /**
+     * 播放次数，由 PlayStatsRecorder 定期累加，不随整行更新回退
+     */
+    @Index
     private int playFrequency;
     private int songScore;
     private int playStatus;
@@ -54,6 +72,17 @@ public class MusicBean
      * QQ bar上需要时时更新的歌词
      */
     private String currentLyrics;
+    /**
+     * 排序用的全拼，扫描时计算一次，列表直接在数据库里按它排序
+     */
+    @Index
+    private String sortKey;
+    /**
+     * 累计收听时长 ms、切歌次数（没有听完就切走）、完整播放次数，和 playFrequency 一样由 PlayStatsRecorder 累加
+     */
+    private long listenTime;
+    private int skipCount;
+    private int completeCount;
     /**
      * 这个cureetPosition是给QqPagerAdapter用的，用于切换到指定的位置
      */
@@ -91,16 +120,21 @@ public class MusicBean
         isPlayFlag = in.readByte() != 0;
         playListFlag = in.readString();
         currentLyrics = in.readString();
+        sortKey = in.readString();
+        listenTime = in.readLong();
+        skipCount = in.readInt();
+        completeCount = in.readInt();
         cureetPosition = in.readInt();
     }
 
 
-    @Generated(hash = 886988323)
+    @Keep
     public MusicBean(Long id, String title, String artist, String album, long albumId,
                      long addTime, long addListTime, long duration, String time, String songUrl,
                      String firstChar, boolean isFavorite, int playFrequency, int songScore,
                      int playStatus, int issueYear, int musicQualityType, boolean isSelected,
-                     boolean isPlayFlag, String playListFlag, String currentLyrics) {
+                     boolean isPlayFlag, String playListFlag, String currentLyrics, String sortKey,
+                     long listenTime, int skipCount, int completeCount) {
         this.id = id;
         this.title = title;
         this.artist = artist;
@@ -122,6 +156,10 @@ public class MusicBean
         this.isPlayFlag = isPlayFlag;
         this.playListFlag = playListFlag;
         this.currentLyrics = currentLyrics;
+        this.sortKey = sortKey;
+        this.listenTime = listenTime;
+        this.skipCount = skipCount;
+        this.completeCount = completeCount;
     }
 
     public static final Creator<MusicBean> CREATOR = new Creator<MusicBean>() {
@@ -320,6 +358,38 @@ public class MusicBean
         return Long.compare(Long.parseLong(o.getTime()), Long.parseLong(this.getTime()));
     }
 
+    public String getSortKey() {
+        return this.sortKey;
+    }
+
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public long getListenTime() {
+        return this.listenTime;
+    }
+
+    public void setListenTime(long listenTime) {
+        this.listenTime = listenTime;
+    }
+
+    public int getSkipCount() {
+        return this.skipCount;
+    }
+
+    public void setSkipCount(int skipCount) {
+        this.skipCount = skipCount;
+    }
+
+    public int getCompleteCount() {
+        return this.completeCount;
+    }
+
+    public void setCompleteCount(int completeCount) {
+        this.completeCount = completeCount;
+    }
+
     public long getAddListTime() {
         return this.addListTime;
     }
@@ -370,6 +440,10 @@ public class MusicBean
         dest.writeByte((byte) (isPlayFlag ? 1 : 0));
         dest.writeString(playListFlag);
         dest.writeString(currentLyrics);
+        dest.writeString(sortKey);
+        dest.writeLong(listenTime);
+        dest.writeInt(skipCount);
+        dest.writeInt(completeCount);
         dest.writeInt(cureetPosition);
     }
 
@@ -408,6 +482,10 @@ public class MusicBean
                 ", isPlayFlag=" + isPlayFlag +
                 ", playListFlag='" + playListFlag + '\'' +
                 ", currentLyrics='" + currentLyrics + '\'' +
+                ", sortKey='" + sortKey + '\'' +
+                ", listenTime=" + listenTime +
+                ", skipCount=" + skipCount +
+                ", completeCount=" + completeCount +
                 ", cureetPosition=" + cureetPosition +
                 '}';
     }
@@ -435,6 +513,9 @@ public class MusicBean
                 musicQualityType == musicBean.musicQualityType &&
                 isSelected == musicBean.isSelected &&
                 isPlayFlag == musicBean.isPlayFlag &&
+                listenTime == musicBean.listenTime &&
+                skipCount == musicBean.skipCount &&
+                completeCount == musicBean.completeCount &&
                 cureetPosition == musicBean.cureetPosition &&
                 Objects.equals(id, musicBean.id) &&
                 Objects.equals(title, musicBean.title) &&
@@ -444,11 +525,12 @@ public class MusicBean
                 Objects.equals(songUrl, musicBean.songUrl) &&
                 Objects.equals(firstChar, musicBean.firstChar) &&
                 Objects.equals(playListFlag, musicBean.playListFlag) &&
-                Objects.equals(currentLyrics, musicBean.currentLyrics);
+                Objects.equals(currentLyrics, musicBean.currentLyrics) &&
+                Objects.equals(sortKey, musicBean.sortKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, artist, album, albumId, addTime, addListTime, duration, time, songUrl, firstChar, isFavorite, playFrequency, songScore, playStatus, issueYear, musicQualityType, isSelected, isPlayFlag, playListFlag, currentLyrics, cureetPosition);
+        return Objects.hash(id, title, artist, album, albumId, addTime, addListTime, duration, time, songUrl, firstChar, isFavorite, playFrequency, songScore, playStatus, issueYear, musicQualityType, isSelected, isPlayFlag, playListFlag, currentLyrics, sortKey, listenTime, skipCount, completeCount, cureetPosition);
     }
 }
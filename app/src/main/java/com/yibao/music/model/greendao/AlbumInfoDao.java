@@ -33,6 +33,7 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
         public final static Property SongName = new Property(6, String.class, "songName", false, "SONG_NAME");
         public final static Property Year = new Property(7, int.class, "year", false, "YEAR");
         public final static Property MSelected = new Property(8, boolean.class, "mSelected", false, "M_SELECTED");
+        public final static Property SortKey = new Property(9, String.class, "sortKey", false, "SORT_KEY");
     }
 
 
@@ -56,7 +57,13 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
                 "\"FIRST_CHAR\" TEXT," + // 5: firstChar
                 "\"SONG_NAME\" TEXT," + // 6: songName
                 "\"YEAR\" INTEGER NOT NULL ," + // 7: year
-                "\"M_SELECTED\" INTEGER NOT NULL );"); // 8: mSelected
+                "\"M_SELECTED\" INTEGER NOT NULL ," + // 8: mSelected
+                "\"SORT_KEY\" TEXT);"); // 9: sortKey
+        // Add Indexes
+        db.execSQL("CREATE UNIQUE INDEX " + constraint + "IDX_ALBUM_INFO_ALBUM_NAME ON \"ALBUM_INFO\"" +
+                " (\"ALBUM_NAME\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_ALBUM_INFO_SORT_KEY ON \"ALBUM_INFO\"" +
+                " (\"SORT_KEY\" ASC);");
     }
 
     /** Drops the underlying database table. */
@@ -101,6 +108,11 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
         }
         stmt.bindLong(8, entity.getYear());
         stmt.bindLong(9, entity.getMSelected() ? 1L: 0L);
+ 
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(10, sortKey);
+        }
     }
 
     @Override
@@ -139,6 +151,11 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
         }
         stmt.bindLong(8, entity.getYear());
         stmt.bindLong(9, entity.getMSelected() ? 1L: 0L);
+ 
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(10, sortKey);
+        }
     }
 
     @Override
@@ -157,7 +174,8 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
             cursor.isNull(offset + 5) ? null : cursor.getString(offset + 5), // firstChar
             cursor.isNull(offset + 6) ? null : cursor.getString(offset + 6), // songName
             cursor.getInt(offset + 7), // year
-            cursor.getShort(offset + 8) != 0 // mSelected
+            cursor.getShort(offset + 8) != 0, // mSelected
+            cursor.isNull(offset + 9) ? null : cursor.getString(offset + 9) // sortKey
         );
         return entity;
     }
@@ -173,6 +191,7 @@ public class AlbumInfoDao extends AbstractDao<AlbumInfo, Long> {
         entity.setSongName(cursor.isNull(offset + 6) ? null : cursor.getString(offset + 6));
         entity.setYear(cursor.getInt(offset + 7));
         entity.setMSelected(cursor.getShort(offset + 8) != 0);
+        entity.setSortKey(cursor.isNull(offset + 9) ? null : cursor.getString(offset + 9));
      }
     
     @Override
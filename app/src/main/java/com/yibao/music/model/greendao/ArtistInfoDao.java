@@ -0,0 +1,200 @@
+package com.yibao.music.model.greendao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+
+import org.greenrobot.greendao.AbstractDao;
+import org.greenrobot.greendao.Property;
+import org.greenrobot.greendao.internal.DaoConfig;
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import com.yibao.music.model.ArtistInfo;
+
+// THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
+/**
+ * DAO for table "ARTIST_INFO".
+*/
+public class ArtistInfoDao extends AbstractDao<ArtistInfo, Long> {
+
+    public static final String TABLENAME = "ARTIST_INFO";
+
+    /**
+     * Properties of entity ArtistInfo.<br/>
+     * Can be used for QueryBuilder and for referencing column names.
+     */
+    public static class Properties {
+        public final static Property Id = new Property(0, Long.class, "id", true, "_id");
+        public final static Property Artist = new Property(1, String.class, "artist", false, "ARTIST");
+        public final static Property AlbumName = new Property(2, String.class, "albumName", false, "ALBUM_NAME");
+        public final static Property AlbumCount = new Property(3, int.class, "albumCount", false, "ALBUM_COUNT");
+        public final static Property SongCount = new Property(4, int.class, "songCount", false, "SONG_COUNT");
+        public final static Property FirstChar = new Property(5, String.class, "firstChar", false, "FIRST_CHAR");
+        public final static Property Year = new Property(6, int.class, "year", false, "YEAR");
+        public final static Property AlbumId = new Property(7, long.class, "albumId", false, "ALBUM_ID");
+        public final static Property SortKey = new Property(8, String.class, "sortKey", false, "SORT_KEY");
+    }
+
+
+    public ArtistInfoDao(DaoConfig config) {
+        super(config);
+    }
+
+    public ArtistInfoDao(DaoConfig config, DaoSession daoSession) {
+        super(config, daoSession);
+    }
+
+    /** Creates the underlying database table. */
+    public static void createTable(Database db, boolean ifNotExists) {
+        String constraint = ifNotExists? "IF NOT EXISTS ": "";
+        db.execSQL("CREATE TABLE " + constraint + "\"ARTIST_INFO\" (" + //
+                "\"_id\" INTEGER PRIMARY KEY AUTOINCREMENT ," + // 0: id
+                "\"ARTIST\" TEXT," + // 1: artist
+                "\"ALBUM_NAME\" TEXT," + // 2: albumName
+                "\"ALBUM_COUNT\" INTEGER NOT NULL ," + // 3: albumCount
+                "\"SONG_COUNT\" INTEGER NOT NULL ," + // 4: songCount
+                "\"FIRST_CHAR\" TEXT," + // 5: firstChar
+                "\"YEAR\" INTEGER NOT NULL ," + // 6: year
+                "\"ALBUM_ID\" INTEGER NOT NULL ," + // 7: albumId
+                "\"SORT_KEY\" TEXT);"); // 8: sortKey
+        // Add Indexes
+        db.execSQL("CREATE UNIQUE INDEX " + constraint + "IDX_ARTIST_INFO_ARTIST ON \"ARTIST_INFO\"" +
+                " (\"ARTIST\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_ARTIST_INFO_SORT_KEY ON \"ARTIST_INFO\"" +
+                " (\"SORT_KEY\" ASC);");
+    }
+
+    /** Drops the underlying database table. */
+    public static void dropTable(Database db, boolean ifExists) {
+        String sql = "DROP TABLE " + (ifExists ? "IF EXISTS " : "") + "\"ARTIST_INFO\"";
+        db.execSQL(sql);
+    }
+
+    @Override
+    protected final void bindValues(DatabaseStatement stmt, ArtistInfo entity) {
+        stmt.clearBindings();
+
+        Long id = entity.getId();
+        if (id != null) {
+            stmt.bindLong(1, id);
+        }
+
+        String artist = entity.getArtist();
+        if (artist != null) {
+            stmt.bindString(2, artist);
+        }
+
+        String albumName = entity.getAlbumName();
+        if (albumName != null) {
+            stmt.bindString(3, albumName);
+        }
+        stmt.bindLong(4, entity.getAlbumCount());
+        stmt.bindLong(5, entity.getSongCount());
+
+        String firstChar = entity.getFirstChar();
+        if (firstChar != null) {
+            stmt.bindString(6, firstChar);
+        }
+        stmt.bindLong(7, entity.getYear());
+        stmt.bindLong(8, entity.getAlbumId());
+
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(9, sortKey);
+        }
+    }
+
+    @Override
+    protected final void bindValues(SQLiteStatement stmt, ArtistInfo entity) {
+        stmt.clearBindings();
+
+        Long id = entity.getId();
+        if (id != null) {
+            stmt.bindLong(1, id);
+        }
+
+        String artist = entity.getArtist();
+        if (artist != null) {
+            stmt.bindString(2, artist);
+        }
+
+        String albumName = entity.getAlbumName();
+        if (albumName != null) {
+            stmt.bindString(3, albumName);
+        }
+        stmt.bindLong(4, entity.getAlbumCount());
+        stmt.bindLong(5, entity.getSongCount());
+
+        String firstChar = entity.getFirstChar();
+        if (firstChar != null) {
+            stmt.bindString(6, firstChar);
+        }
+        stmt.bindLong(7, entity.getYear());
+        stmt.bindLong(8, entity.getAlbumId());
+
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(9, sortKey);
+        }
+    }
+
+    @Override
+    public Long readKey(Cursor cursor, int offset) {
+        return cursor.isNull(offset + 0) ? null : cursor.getLong(offset + 0);
+    }
+
+    @Override
+    public ArtistInfo readEntity(Cursor cursor, int offset) {
+        ArtistInfo entity = new ArtistInfo( //
+            cursor.isNull(offset + 0) ? null : cursor.getLong(offset + 0), // id
+            cursor.isNull(offset + 1) ? null : cursor.getString(offset + 1), // artist
+            cursor.isNull(offset + 2) ? null : cursor.getString(offset + 2), // albumName
+            cursor.getInt(offset + 3), // albumCount
+            cursor.getInt(offset + 4), // songCount
+            cursor.isNull(offset + 5) ? null : cursor.getString(offset + 5), // firstChar
+            cursor.getInt(offset + 6), // year
+            cursor.getLong(offset + 7), // albumId
+            cursor.isNull(offset + 8) ? null : cursor.getString(offset + 8) // sortKey
+        );
+        return entity;
+    }
+
+    @Override
+    public void readEntity(Cursor cursor, ArtistInfo entity, int offset) {
+        entity.setId(cursor.isNull(offset + 0) ? null : cursor.getLong(offset + 0));
+        entity.setArtist(cursor.isNull(offset + 1) ? null : cursor.getString(offset + 1));
+        entity.setAlbumName(cursor.isNull(offset + 2) ? null : cursor.getString(offset + 2));
+        entity.setAlbumCount(cursor.getInt(offset + 3));
+        entity.setSongCount(cursor.getInt(offset + 4));
+        entity.setFirstChar(cursor.isNull(offset + 5) ? null : cursor.getString(offset + 5));
+        entity.setYear(cursor.getInt(offset + 6));
+        entity.setAlbumId(cursor.getLong(offset + 7));
+        entity.setSortKey(cursor.isNull(offset + 8) ? null : cursor.getString(offset + 8));
+     }
+
+    @Override
+    protected final Long updateKeyAfterInsert(ArtistInfo entity, long rowId) {
+        entity.setId(rowId);
+        return rowId;
+    }
+
+    @Override
+    public Long getKey(ArtistInfo entity) {
+        if(entity != null) {
+            return entity.getId();
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean hasKey(ArtistInfo entity) {
+        return entity.getId() != null;
+    }
+
+    @Override
+    protected final boolean isEntityUpdateable() {
+        return true;
+    }
+
+}
@@ -14,14 +14,15 @@ import org.greenrobot.greendao.identityscope.IdentityScopeType;
 
 // THIS CODE IS GENERATED BY greenDAO, DO NOT EDIT.
 /**
- * Master of DAO (schema version 10): knows all DAOs.
+ * Master of DAO (schema version 15): knows all DAOs.
  */
 public class DaoMaster extends AbstractDaoMaster {
-    public static final int SCHEMA_VERSION = 10;
+    public static final int SCHEMA_VERSION = 15;
 
     /** Creates underlying database table using DAOs. */
     public static void createAllTables(Database db, boolean ifNotExists) {
         AlbumInfoDao.createTable(db, ifNotExists);
+        ArtistInfoDao.createTable(db, ifNotExists);
         MusicBeanDao.createTable(db, ifNotExists);
         MusicInfoDao.createTable(db, ifNotExists);
         PlayListBeanDao.createTable(db, ifNotExists);
@@ -31,6 +32,7 @@ public class DaoMaster extends AbstractDaoMaster {
     /** Drops underlying database table using DAOs. */
     public static void dropAllTables(Database db, boolean ifExists) {
         AlbumInfoDao.dropTable(db, ifExists);
+        ArtistInfoDao.dropTable(db, ifExists);
         MusicBeanDao.dropTable(db, ifExists);
         MusicInfoDao.dropTable(db, ifExists);
         PlayListBeanDao.dropTable(db, ifExists);
@@ -54,6 +56,7 @@ public class DaoMaster extends AbstractDaoMaster {
     public DaoMaster(Database db) {
         super(db, SCHEMA_VERSION);
         registerDaoClass(AlbumInfoDao.class);
+        registerDaoClass(ArtistInfoDao.class);
         registerDaoClass(MusicBeanDao.class);
         registerDaoClass(MusicInfoDao.class);
         registerDaoClass(PlayListBeanDao.class);
@@ -9,12 +9,14 @@ import org.greenrobot.greendao.identityscope.IdentityScopeType;
 import org.greenrobot.greendao.internal.DaoConfig;
 
 import com.yibao.music.model.AlbumInfo;
+import com.yibao.music.model.ArtistInfo;
 import com.yibao.music.model.MusicBean;
 import com.yibao.music.model.MusicInfo;
 import com.yibao.music.model.PlayListBean;
 import com.yibao.music.model.SearchHistoryBean;
 
 import com.yibao.music.model.greendao.AlbumInfoDao;
+import com.yibao.music.model.greendao.ArtistInfoDao;
 import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.model.greendao.MusicInfoDao;
 import com.yibao.music.model.greendao.PlayListBeanDao;
@@ -30,12 +32,14 @@ import com.yibao.music.model.greendao.SearchHistoryBeanDao;
 public class DaoSession extends AbstractDaoSession {
 
     private final DaoConfig albumInfoDaoConfig;
+    private final DaoConfig artistInfoDaoConfig;
     private final DaoConfig musicBeanDaoConfig;
     private final DaoConfig musicInfoDaoConfig;
     private final DaoConfig playListBeanDaoConfig;
     private final DaoConfig searchHistoryBeanDaoConfig;
 
     private final AlbumInfoDao albumInfoDao;
+    private final ArtistInfoDao artistInfoDao;
     private final MusicBeanDao musicBeanDao;
     private final MusicInfoDao musicInfoDao;
     private final PlayListBeanDao playListBeanDao;
@@ -48,6 +52,9 @@ public class DaoSession extends AbstractDaoSession {
         albumInfoDaoConfig = daoConfigMap.get(AlbumInfoDao.class).clone();
         albumInfoDaoConfig.initIdentityScope(type);
 
+        artistInfoDaoConfig = daoConfigMap.get(ArtistInfoDao.class).clone();
+        artistInfoDaoConfig.initIdentityScope(type);
+
         musicBeanDaoConfig = daoConfigMap.get(MusicBeanDao.class).clone();
         musicBeanDaoConfig.initIdentityScope(type);
 
@@ -61,12 +68,14 @@ public class DaoSession extends AbstractDaoSession {
         searchHistoryBeanDaoConfig.initIdentityScope(type);
 
         albumInfoDao = new AlbumInfoDao(albumInfoDaoConfig, this);
+        artistInfoDao = new ArtistInfoDao(artistInfoDaoConfig, this);
         musicBeanDao = new MusicBeanDao(musicBeanDaoConfig, this);
         musicInfoDao = new MusicInfoDao(musicInfoDaoConfig, this);
         playListBeanDao = new PlayListBeanDao(playListBeanDaoConfig, this);
         searchHistoryBeanDao = new SearchHistoryBeanDao(searchHistoryBeanDaoConfig, this);
 
         registerDao(AlbumInfo.class, albumInfoDao);
+        registerDao(ArtistInfo.class, artistInfoDao);
         registerDao(MusicBean.class, musicBeanDao);
         registerDao(MusicInfo.class, musicInfoDao);
         registerDao(PlayListBean.class, playListBeanDao);
@@ -75,6 +84,7 @@ public class DaoSession extends AbstractDaoSession {
     
     public void clear() {
         albumInfoDaoConfig.clearIdentityScope();
+        artistInfoDaoConfig.clearIdentityScope();
         musicBeanDaoConfig.clearIdentityScope();
         musicInfoDaoConfig.clearIdentityScope();
         playListBeanDaoConfig.clearIdentityScope();
@@ -85,6 +95,10 @@ public class DaoSession extends AbstractDaoSession {
         return albumInfoDao;
     }
 
+    public ArtistInfoDao getArtistInfoDao() {
+        return artistInfoDao;
+    }
+
     public MusicBeanDao getMusicBeanDao() {
         return musicBeanDao;
     }
@@ -1,11 +1,17 @@
 package com.yibao.music.model.greendao;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
 import com.github.yuweiguocn.library.greendao.MigrationHelper;
+import com.yibao.music.util.HanziToPinyins;
+import com.yibao.music.util.MusicSearchUtil;
+import com.yibao.music.util.MusicSummaryUtil;
+import com.yibao.music.util.PlayStatsRecorder;
 
 import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
 
 /**
  * @ Author: Luoshipeng
@@ -15,24 +21,104 @@ import org.greenrobot.greendao.database.Database;
  * @ Des:    GreenDao数据库升级辅助类
  */
 public class DaoUpgradeHelper extends DaoMaster.OpenHelper {
+    private static final int SORT_KEY_VERSION = 11;
+    /**
+     * 13 版本新增全文搜索表 MUSIC_SEARCH
+     */
+    private static final int SEARCH_VERSION = 13;
+    /**
+     * 14 版本开始使用艺术家、专辑汇总表 ARTIST_INFO、ALBUM_INFO
+     */
+    private static final int SUMMARY_VERSION = 14;
+    /**
+     * 15 版本 MUSIC_BEAN 新增播放统计列 LISTEN_TIME、SKIP_COUNT、COMPLETE_COUNT，评分排序的索引加上 LISTEN_TIME
+     */
+    private static final int PLAY_STATS_VERSION = 15;
+
     public DaoUpgradeHelper(Context context, String name, SQLiteDatabase.CursorFactory factory) {
         super(context, name, factory);
     }
 
+    @Override
+    public void onCreate(Database db) {
+        super.onCreate(db);
+        MusicSearchUtil.createTable(db);
+        PlayStatsRecorder.createTrigger(db);
+    }
+
     @Override
     public void onUpgrade(Database db, int oldVersion, int newVersion) {
         super.onUpgrade(db, oldVersion, newVersion);
-        MigrationHelper.migrate(db, new MigrationHelper.ReCreateAllTableListener() {
+        if (oldVersion < SUMMARY_VERSION) {
+            // ALBUM_INFO 以前没有使用过，老版本的表可能缺少列，里面也没有数据，直接删除后重建
+            AlbumInfoDao.dropTable(db, true);
+        }
+        if (oldVersion < SORT_KEY_VERSION) {
+            MigrationHelper.migrate(db, new MigrationHelper.ReCreateAllTableListener() {
 
-            @Override
-            public void onCreateAllTables(Database db, boolean ifNotExists) {
-                DaoMaster.createAllTables(db, ifNotExists);
+                @Override
+                public void onCreateAllTables(Database db, boolean ifNotExists) {
+                    DaoMaster.createAllTables(db, ifNotExists);
+                }
+
+                @Override
+                public void onDropAllTables(Database db, boolean ifExists) {
+                    DaoMaster.dropAllTables(db, ifExists);
+                }
+            }, MusicBeanDao.class, MusicInfoDao.class, SearchHistoryBeanDao.class);
+            fillSortKey(db);
+        } else {
+            if (oldVersion < PLAY_STATS_VERSION) {
+                // 新的索引用到新增的列，先加列再补建索引
+                addPlayStatsColumns(db);
             }
+            // 11 版本之后已有的表结构没有变化（12 版本只新增了索引，14 版本新增了 ARTIST_INFO，15 版本新增的列在上面补上），
+            // IF NOT EXISTS 只会补建缺少的表和索引，不需要整表迁移数据
+            DaoMaster.createAllTables(db, true);
+        }
+        if (oldVersion < SEARCH_VERSION) {
+            MusicSearchUtil.createTable(db);
+            MusicSearchUtil.rebuild(db);
+        }
+        if (oldVersion < SUMMARY_VERSION) {
+            MusicSummaryUtil.rebuild(db);
+        }
+        // 整表迁移时触发器随旧表删除，IF NOT EXISTS 重新创建
+        PlayStatsRecorder.createTrigger(db);
+    }
+
+    /**
+     * 15 版本新增的播放统计列，已有的歌曲从 0 开始统计。原来只按 SONG_SCORE 的索引被 (SONG_SCORE, LISTEN_TIME) 替代。
+     */
+    private static void addPlayStatsColumns(Database db) {
+        String table = "\"" + MusicBeanDao.TABLENAME + "\"";
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN \"" + MusicBeanDao.Properties.ListenTime.columnName + "\" INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN \"" + MusicBeanDao.Properties.SkipCount.columnName + "\" INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN \"" + MusicBeanDao.Properties.CompleteCount.columnName + "\" INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("DROP INDEX IF EXISTS IDX_MUSIC_BEAN_SONG_SCORE");
+    }
 
-            @Override
-            public void onDropAllTables(Database db, boolean ifExists) {
-                DaoMaster.dropAllTables(db, ifExists);
+    /**
+     * 11 版本新增排序列 SORT_KEY，升级后为已有的歌曲计算一次。
+     */
+    private static void fillSortKey(Database db) {
+        String table = "\"" + MusicBeanDao.TABLENAME + "\"";
+        String sortKey = MusicBeanDao.Properties.SortKey.columnName;
+        Cursor cursor = db.rawQuery("SELECT _id, " + MusicBeanDao.Properties.Title.columnName + " FROM " + table
+                + " WHERE " + sortKey + " IS NULL", null);
+        DatabaseStatement statement = db.compileStatement("UPDATE " + table + " SET " + sortKey + " = ? WHERE _id = ?");
+        db.beginTransaction();
+        try {
+            while (cursor.moveToNext()) {
+                statement.bindString(1, HanziToPinyins.toSortKey(cursor.getString(1)));
+                statement.bindLong(2, cursor.getLong(0));
+                statement.execute();
             }
-        }, MusicBeanDao.class, MusicInfoDao.class, SearchHistoryBeanDao.class);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            cursor.close();
+            statement.close();
+        }
     }
 }
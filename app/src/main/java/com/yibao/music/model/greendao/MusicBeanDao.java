@@ -45,6 +45,10 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
         public final static Property IsPlayFlag = new Property(18, boolean.class, "isPlayFlag", false, "IS_PLAY_FLAG");
         public final static Property PlayListFlag = new Property(19, String.class, "playListFlag", false, "PLAY_LIST_FLAG");
         public final static Property CurrentLyrics = new Property(20, String.class, "currentLyrics", false, "CURRENT_LYRICS");
+        public final static Property SortKey = new Property(21, String.class, "sortKey", false, "SORT_KEY");
+        public final static Property ListenTime = new Property(22, long.class, "listenTime", false, "LISTEN_TIME");
+        public final static Property SkipCount = new Property(23, int.class, "skipCount", false, "SKIP_COUNT");
+        public final static Property CompleteCount = new Property(24, int.class, "completeCount", false, "COMPLETE_COUNT");
     }
 
 
@@ -80,7 +84,30 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
                 "\"IS_SELECTED\" INTEGER NOT NULL ," + // 17: isSelected
                 "\"IS_PLAY_FLAG\" INTEGER NOT NULL ," + // 18: isPlayFlag
                 "\"PLAY_LIST_FLAG\" TEXT," + // 19: playListFlag
-                "\"CURRENT_LYRICS\" TEXT);"); // 20: currentLyrics
+                "\"CURRENT_LYRICS\" TEXT," + // 20: currentLyrics
+                "\"SORT_KEY\" TEXT," + // 21: sortKey
+                "\"LISTEN_TIME\" INTEGER NOT NULL ," + // 22: listenTime
+                "\"SKIP_COUNT\" INTEGER NOT NULL ," + // 23: skipCount
+                "\"COMPLETE_COUNT\" INTEGER NOT NULL );"); // 24: completeCount
+        // Add Indexes
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_ARTIST_SORT_KEY ON \"MUSIC_BEAN\"" +
+                " (\"ARTIST\" ASC,\"SORT_KEY\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_ALBUM_SORT_KEY ON \"MUSIC_BEAN\"" +
+                " (\"ALBUM\" ASC,\"SORT_KEY\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_PLAY_LIST_FLAG_TITLE ON \"MUSIC_BEAN\"" +
+                " (\"PLAY_LIST_FLAG\" ASC,\"TITLE\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_IS_FAVORITE_TIME_DESC ON \"MUSIC_BEAN\"" +
+                " (\"IS_FAVORITE\" ASC,\"TIME\" DESC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_SONG_SCORE_LISTEN_TIME ON \"MUSIC_BEAN\"" +
+                " (\"SONG_SCORE\" ASC,\"LISTEN_TIME\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_TITLE ON \"MUSIC_BEAN\"" +
+                " (\"TITLE\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_ADD_TIME ON \"MUSIC_BEAN\"" +
+                " (\"ADD_TIME\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_PLAY_FREQUENCY ON \"MUSIC_BEAN\"" +
+                " (\"PLAY_FREQUENCY\" ASC);");
+        db.execSQL("CREATE INDEX " + constraint + "IDX_MUSIC_BEAN_SORT_KEY ON \"MUSIC_BEAN\"" +
+                " (\"SORT_KEY\" ASC);");
     }
 
     /** Drops the underlying database table. */
@@ -149,6 +176,14 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
         if (currentLyrics != null) {
             stmt.bindString(21, currentLyrics);
         }
+ 
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(22, sortKey);
+        }
+        stmt.bindLong(23, entity.getListenTime());
+        stmt.bindLong(24, entity.getSkipCount());
+        stmt.bindLong(25, entity.getCompleteCount());
     }
 
     @Override
@@ -211,6 +246,14 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
         if (currentLyrics != null) {
             stmt.bindString(21, currentLyrics);
         }
+ 
+        String sortKey = entity.getSortKey();
+        if (sortKey != null) {
+            stmt.bindString(22, sortKey);
+        }
+        stmt.bindLong(23, entity.getListenTime());
+        stmt.bindLong(24, entity.getSkipCount());
+        stmt.bindLong(25, entity.getCompleteCount());
     }
 
     @Override
@@ -241,7 +284,11 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
             cursor.getShort(offset + 17) != 0, // isSelected
             cursor.getShort(offset + 18) != 0, // isPlayFlag
             cursor.isNull(offset + 19) ? null : cursor.getString(offset + 19), // playListFlag
-            cursor.isNull(offset + 20) ? null : cursor.getString(offset + 20) // currentLyrics
+            cursor.isNull(offset + 20) ? null : cursor.getString(offset + 20), // currentLyrics
+            cursor.isNull(offset + 21) ? null : cursor.getString(offset + 21), // sortKey
+            cursor.getLong(offset + 22), // listenTime
+            cursor.getInt(offset + 23), // skipCount
+            cursor.getInt(offset + 24) // completeCount
         );
         return entity;
     }
@@ -269,6 +316,10 @@ public class MusicBeanDao extends AbstractDao<MusicBean, Long> {
         entity.setIsPlayFlag(cursor.getShort(offset + 18) != 0);
         entity.setPlayListFlag(cursor.isNull(offset + 19) ? null : cursor.getString(offset + 19));
         entity.setCurrentLyrics(cursor.isNull(offset + 20) ? null : cursor.getString(offset + 20));
+        entity.setSortKey(cursor.isNull(offset + 21) ? null : cursor.getString(offset + 21));
+        entity.setListenTime(cursor.getLong(offset + 22));
+        entity.setSkipCount(cursor.getInt(offset + 23));
+        entity.setCompleteCount(cursor.getInt(offset + 24));
      }
     
     @Override
@@ -129,6 +129,40 @@ public class QqMusicRemote {
                 });
     }
 
+    /**
+     * 预加载使用，同步搜索并保存歌词，不发送下载结果，需要在子线程调用。
+     *
+     * @return 是否保存成功
+     */
+    public static boolean downloadSongLyrics(String songName, String artist) {
+        try {
+            SearchSong searchSong = RetrofitHelper.getMusicService().search(songName, 1).blockingFirst();
+            String songMid = searchSong.getData().getSong().getList().get(0).getSongmid();
+            String lyric = RetrofitHelper.getMusicService().getOnlineSongLrc(songMid).blockingFirst().getLyric();
+            return lyric != null && DownloadLyricsUtil.saveLyrics(lyric, songName, artist);
+        } catch (Exception e) {
+            LogUtil.d(TAG, "预加载歌词出错 " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 预加载使用，同步搜索歌曲的专辑图片地址，需要在子线程调用。
+     *
+     * @return 图片地址，没有找到返回null
+     */
+    public static String getSongImgUrl(String songName) {
+        String albumUrlHead = "http://y.gtimg.cn/music/photo_new/T002R500x500M000";
+        try {
+            SearchSong searchSong = RetrofitHelper.getMusicService().search(songName, 1).blockingFirst();
+            String albumMid = searchSong.getData().getSong().getList().get(0).getAlbummid();
+            return albumUrlHead + albumMid + ".jpg";
+        } catch (Exception e) {
+            LogUtil.d(TAG, "预加载专辑图片出错 " + e.getMessage());
+            return null;
+        }
+    }
+
     public static void getAlbumDetail(String albumName, OnAlbumDetailListener listener) {
         LogUtil.d(TAG, "专辑详情 name  " + albumName);
         RetrofitHelper.getMusicService().searchAlbum(albumName, 1)
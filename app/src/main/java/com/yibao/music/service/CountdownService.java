@@ -39,7 +39,7 @@ public class CountdownService extends Service {
         @Override
         public void onTick(long millisUntilFinished) {
             String countdownTime = StringUtil.parseDuration((int) millisUntilFinished);
-            RxBus.getInstance().post(Constant.COUNTDOWN_TIME,countdownTime);
+            RxBus.getInstance().topic(Constant.COUNTDOWN_TIME, String.class).post(countdownTime);
         }
 
         @Override
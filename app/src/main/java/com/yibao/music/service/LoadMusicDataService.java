@@ -2,6 +2,7 @@ package com.yibao.music.service;
 
 import android.app.IntentService;
 import android.content.Intent;
+import android.os.SystemClock;
 
 import androidx.annotation.Nullable;
 
@@ -11,16 +12,24 @@ import com.yibao.music.model.MusicCountBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
 import com.yibao.music.util.CollectionUtil;
 import com.yibao.music.util.Constant;
-import com.yibao.music.util.FileUtil;
+import com.yibao.music.util.FavoriteBackupUtil;
+import com.yibao.music.util.FavoriteJournal;
 import com.yibao.music.util.LogUtil;
+import com.yibao.music.util.MusicDbWriter;
 import com.yibao.music.util.MusicListUtil;
+import com.yibao.music.util.MusicSearchUtil;
+import com.yibao.music.util.MusicSummaryUtil;
+import com.yibao.music.util.MusicSyncUtil;
 import com.yibao.music.util.ReadFavoriteFileUtil;
 import com.yibao.music.util.RxBus;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 
 /**
@@ -36,14 +45,13 @@ import java.util.stream.Collectors;
 public class LoadMusicDataService extends IntentService {
     private static final String TAG = " ==== " + LoadMusicDataService.class.getSimpleName() + "  ";
     private MusicBeanDao mMusicDao;
-    private int currentCount = 0;
-    private RxBus mBus;
+    private RxBus.Topic<MusicCountBean> mCountTopic;
 
     @Override
     public void onCreate() {
         super.onCreate();
         mMusicDao = MusicApplication.getInstance().getMusicDao();
-        mBus = RxBus.getInstance();
+        mCountTopic = RxBus.getInstance().topic(MusicCountBean.class);
     }
 
     public LoadMusicDataService() {
@@ -52,37 +60,128 @@ public class LoadMusicDataService extends IntentService {
 
     @Override
     protected void onHandleIntent(@Nullable Intent intent) {
-        // 最新的歌曲数量
-        List<MusicBean> newList = MusicListUtil.getMusicDataList();
-        int songSum = newList.size();
+        long syncTime = MusicSyncUtil.currentSyncTime();
         // 手动扫描本地歌曲
         if (getIsNeedAgainScanner(intent)) {
-            // 数据库的歌曲和最新媒体库中歌曲数量比较
-            List<MusicBean> oldList = mMusicDao.queryBuilder().build().list();
-            List<MusicBean> different = newList.stream().filter(item -> !oldList.contains(item)).collect(Collectors.toList());
-            // 保留两个集合中不同的元素
-            newList.retainAll(different);
-            for (MusicBean musicBean : newList) {
-                sendLoadProgress(newList.size(), musicBean);
-            }
-            oldList.retainAll(different);
-            for (MusicBean musicBean : oldList) {
-                mMusicDao.delete(musicBean);
+            long watermark = MusicSyncUtil.getWatermark();
+            if (watermark < 0) {
+                syncMusic(null, null, null);
+            } else {
+                // 只查询水位之后变化的歌曲，删除的歌曲由id集合求差得到
+                syncMusic(MusicSyncUtil.SELECTION_CHANGED, MusicSyncUtil.getChangedSelectionArgs(watermark), MusicListUtil.getMusicIdSet());
             }
-            mBus.post(new MusicCountBean(Constant.NUMBER_ZERO, Constant.NUMBER_ZERO));
+            MusicSyncUtil.saveWatermark(syncTime);
+            mCountTopic.postNow(new MusicCountBean(Constant.NUMBER_ZERO, Constant.NUMBER_ZERO));
         } else {
-            // 首次安装自动扫描本地歌曲并创建本地数据库
-            if (songSum > 0) {
-                for (MusicBean musicInfo : newList) {
-                    sendLoadProgress(songSum, musicInfo);
-                }
-                LogUtil.d(TAG, "LoadMusicDataServices===== 加载数据完成");
-                recoverFavoriteMusic(newList);
+            // 首次安装自动扫描本地歌曲并创建本地数据库，边扫描边分批写入
+            long startTime = SystemClock.elapsedRealtime();
+            FavoriteBackupUtil.FavoriteMatcher favoriteMatcher = getFavoriteMatcher();
+            int[] songSum = new int[1];
+            MusicListUtil.scanMusic(null, null, MusicListUtil.SCAN_BATCH_SIZE, (musicList, scannedCount, totalCount) -> {
+                recoverFavoriteMusic(musicList, favoriteMatcher);
+                write(() -> {
+                    mMusicDao.insertOrReplaceInTx(musicList);
+                    MusicSearchUtil.index(mMusicDao.getDatabase(), musicList);
+                });
+                songSum[0] = scannedCount;
+                sendLoadProgress(scannedCount, totalCount);
+            });
+            if (songSum[0] > 0) {
+                write(() -> MusicSummaryUtil.rebuild(mMusicDao.getDatabase()));
+                LogUtil.d(TAG, "LoadMusicDataServices===== 加载数据完成 " + songSum[0] + " 首  耗时 " + (SystemClock.elapsedRealtime() - startTime) + " ms");
+                mCountTopic.postNow(new MusicCountBean(songSum[0], songSum[0]));
+                RxBus.getInstance().logPostCounts();
             } else {
                 // 本地没有发现歌曲
-                mBus.post(new MusicCountBean(Constant.NUMBER_ZERO, Constant.NUMBER_ZERO));
+                mCountTopic.postNow(new MusicCountBean(Constant.NUMBER_ZERO, Constant.NUMBER_ZERO));
+            }
+            MusicSyncUtil.saveWatermark(syncTime);
+        }
+    }
+
+    /**
+     * 按id同步数据库：媒体库中已经没有的歌曲删除，变化的歌曲只更新媒体信息，新歌曲插入。
+     *
+     * @param selection     需要同步的歌曲的查询条件，null 表示全部歌曲
+     * @param selectionArgs 条件参数
+     * @param mediaIds      媒体库中现有的全部歌曲id，null 表示由这次扫描得到
+     */
+    private void syncMusic(String selection, String[] selectionArgs, Set<Long> mediaIds) {
+        Set<Long> daoIds = MusicSyncUtil.getDaoIdSet(mMusicDao.getDatabase());
+        Set<Long> scannedIds = mediaIds == null ? new HashSet<>(daoIds.size() * 2) : mediaIds;
+        // 更新和新增的数量
+        int[] counts = new int[2];
+        // 需要重新汇总的艺术家和专辑
+        Set<String> artists = new HashSet<>();
+        Set<String> albums = new HashSet<>();
+        MusicListUtil.scanMusic(selection, selectionArgs, MusicListUtil.SCAN_BATCH_SIZE, (musicList, scannedCount, totalCount) -> {
+            List<MusicBean> addList = new ArrayList<>();
+            Map<Long, MusicBean> changedMap = new HashMap<>();
+            for (MusicBean musicBean : musicList) {
+                if (mediaIds == null) {
+                    scannedIds.add(musicBean.getId());
+                }
+                if (daoIds.contains(musicBean.getId())) {
+                    changedMap.put(musicBean.getId(), musicBean);
+                } else {
+                    artists.add(musicBean.getArtist());
+                    albums.add(musicBean.getAlbum());
+                    addList.add(musicBean);
+                }
+            }
+            // 读取、合并和更新在同一个写操作里，期间提交的收藏、评分不会被扫描前读出的旧数据覆盖
+            write(() -> {
+                // 这一批变化的歌曲按id分块一次读出
+                List<MusicBean> updateList = MusicSyncUtil.loadByIds(mMusicDao, new ArrayList<>(changedMap.keySet()));
+                for (MusicBean oldBean : updateList) {
+                    MusicBean musicBean = changedMap.get(oldBean.getId());
+                    artists.add(oldBean.getArtist());
+                    albums.add(oldBean.getAlbum());
+                    artists.add(musicBean.getArtist());
+                    albums.add(musicBean.getAlbum());
+                    MusicSyncUtil.copyMediaFields(musicBean, oldBean);
+                }
+                if (updateList.size() > 0) {
+                    mMusicDao.updateInTx(updateList);
+                    MusicSearchUtil.index(mMusicDao.getDatabase(), updateList);
+                }
+                if (addList.size() > 0) {
+                    mMusicDao.insertOrReplaceInTx(addList);
+                    MusicSearchUtil.index(mMusicDao.getDatabase(), addList);
+                }
+                counts[0] += updateList.size();
+            });
+            counts[1] += addList.size();
+        });
+        List<Long> removedIds = new ArrayList<>();
+        for (Long id : daoIds) {
+            if (!scannedIds.contains(id)) {
+                removedIds.add(id);
+            }
+        }
+        write(() -> {
+            if (removedIds.size() > 0) {
+                for (MusicBean removedBean : MusicSyncUtil.loadByIds(mMusicDao, removedIds)) {
+                    artists.add(removedBean.getArtist());
+                    albums.add(removedBean.getAlbum());
+                }
+                mMusicDao.deleteByKeyInTx(removedIds);
+                MusicSearchUtil.remove(mMusicDao.getDatabase(), removedIds);
             }
+            MusicSummaryUtil.update(mMusicDao.getDatabase(), artists, albums);
+        });
+        if (counts[1] > 0) {
+            mCountTopic.postNow(new MusicCountBean(counts[1], counts[1]));
         }
+        LogUtil.d(TAG, "同步完成 删除 " + removedIds.size() + "  更新 " + counts[0] + "  新增 " + counts[1]);
+    }
+
+    /**
+     * 写入交给 MusicDbWriter，和播放服务、界面的写操作串行执行，这一批写完再继续扫描。
+     * 需要在现有数据上修改的，读取也放在写操作里，join 之后写操作里修改的变量对扫描线程可见。
+     */
+    private void write(Runnable mutation) {
+        MusicDbWriter.getInstance().submit(mutation).join();
     }
 
     /**
@@ -99,45 +198,51 @@ public class LoadMusicDataService extends IntentService {
     }
 
     /**
-     * 收藏歌曲的时候，会将歌曲的名字和收藏时间以字符串的形式储存在本地的一个文件中（favorite.txt），
+     * 收藏歌曲的时候，会把歌曲的id、歌名、歌手、时长和收藏时间追加到本地的收藏日志中（FavoriteJournal），
      * 这样即使程序卸载重新安装也能恢复之前收藏过的歌曲,只要收藏了歌曲这个文件就会创建。
      *
-     * @param musicBeanList 收藏List
+     * @return 收藏记录的匹配表，没有收藏文件时为空
      */
-    private void recoverFavoriteMusic(List<MusicBean> musicBeanList) {
-        if (FileUtil.getFavoriteFile()) {
-            HashMap<String, String> songInfoMap = new HashMap<>(16);
-            Set<String> stringSet = ReadFavoriteFileUtil.stringToSet();
-            for (String s : stringSet) {
-                String songName = s.substring(0, s.lastIndexOf("T"));
-                String favoriteTime = s.substring(s.lastIndexOf("T") + 1);
-                songInfoMap.put(songName, favoriteTime);
-            }
-            for (MusicBean musicBean : musicBeanList) {
-                String favoriteTime = songInfoMap.get(musicBean.getTitle());
-                if (favoriteTime != null) {
-                    musicBean.setTime(favoriteTime);
-                    musicBean.setIsFavorite(true);
-                    mMusicDao.update(musicBean);
-                }
-            }
+    private FavoriteBackupUtil.FavoriteMatcher getFavoriteMatcher() {
+        if (ReadFavoriteFileUtil.hasFavoriteFile()) {
             LogUtil.d(TAG, "自动恢复收藏列表");
-        } else {
-            LogUtil.d(TAG, "没有发现歌曲收藏文件");
+            return FavoriteBackupUtil.loadMatcher();
         }
+        LogUtil.d(TAG, "没有发现歌曲收藏文件");
+        return new FavoriteBackupUtil.FavoriteMatcher(Collections.emptyList());
     }
 
     /**
-     * 发送本地音乐总数量和当前已加载的音乐数量
+     * 写入数据库之前恢复这一批歌曲的收藏状态，不需要再逐条更新。
      *
-     * @param songSum 总数量
-     * @param bean    当前MusicBean
+     * @param musicBeanList 这一批歌曲
+     * @param matcher       收藏记录的匹配表
      */
-    private void sendLoadProgress(int songSum, MusicBean bean) {
-        currentCount++;
-        // splashActivity 接收
-        mBus.post(new MusicCountBean(currentCount, songSum));
-        mMusicDao.insertOrReplace(bean);
+    private void recoverFavoriteMusic(List<MusicBean> musicBeanList, FavoriteBackupUtil.FavoriteMatcher matcher) {
+        if (matcher.isEmpty()) {
+            return;
+        }
+        for (MusicBean musicBean : musicBeanList) {
+            FavoriteJournal.Record record = matcher.match(musicBean);
+            if (record != null) {
+                musicBean.setTime(record.time);
+                musicBean.setIsFavorite(true);
+            }
+        }
+    }
+
+    /**
+     * 发送已加载的音乐数量，由事件总线按固定频率合并。加载完成的进度由调用方在全部写入后用 postNow 发送，
+     * SplashActivity 收到 currentCount == size 时认为加载完成。
+     *
+     * @param currentCount 已加载数量
+     * @param songSum      总数量
+     */
+    private void sendLoadProgress(int currentCount, int songSum) {
+        if (currentCount < songSum) {
+            // splashActivity 接收
+            mCountTopic.post(new MusicCountBean(currentCount, songSum));
+        }
     }
 
 }
@@ -11,31 +11,37 @@ import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.net.Uri;
 import android.os.Binder;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Process;
 import android.provider.MediaStore;
 
 import com.yibao.music.MusicApplication;
 import com.yibao.music.R;
 import com.yibao.music.manager.MediaSessionManager;
 import com.yibao.music.manager.MusicNotifyManager;
+import com.yibao.music.manager.PrefetchManager;
 import com.yibao.music.model.MusicBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
-import com.yibao.music.util.RandomUtil;
 import com.yibao.music.util.VersionUtil;
 import com.yibao.music.util.Constant;
 import com.yibao.music.util.LogUtil;
+import com.yibao.music.util.MusicDbWriter;
+import com.yibao.music.util.PlayStatsRecorder;
 import com.yibao.music.util.QueryMusicFlagListUtil;
 import com.yibao.music.util.ReadFavoriteFileUtil;
 import com.yibao.music.util.RxBus;
+import com.yibao.music.util.ShuffleOrder;
 import com.yibao.music.util.SpUtils;
 import com.yibao.music.util.StringUtil;
-import com.yibao.music.util.ThreadPoolProxyFactory;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.disposables.Disposable;
 
 
 /**
@@ -45,14 +51,52 @@ import io.reactivex.disposables.Disposable;
  */
 public class MusicPlayService extends Service {
     private static final String TAG = "====" + MusicPlayService.class.getSimpleName() + "    ";
-    private MediaPlayer mediaPlayer;
+    /**
+     * 播放线程：播放列表查询、MediaPlayer的创建和准备、回调以及数据库更新都在这个线程，不阻塞主线程。
+     * 开始、暂停、拖动也交给这个线程执行，只有它访问 MediaPlayer，其它线程不会用到已经释放的播放器。
+     */
+    private HandlerThread mPlaybackThread;
+    private Handler mPlaybackHandler;
+    private volatile MediaPlayer mediaPlayer;
+    /**
+     * 当前MediaPlayer是否已经准备完成
+     */
+    private volatile boolean mPrepared;
+    /**
+     * 期望的播放状态。开始、暂停时先在调用线程记录，界面查询播放状态时返回它；再交给播放线程按顺序执行，
+     * 准备完成时据此决定是否开始播放，准备期间的暂停不会丢失。
+     */
+    private volatile boolean mPlayWhenReady = true;
+    /**
+     * 提前准备好的下一首，准备完成后通过 setNextMediaPlayer 接在当前歌曲后面无缝播放。
+     */
+    private MediaPlayer mNextPlayer;
+    private int mNextPosition = -1;
+    private boolean mNextPrepared;
+    private final PlaybackMetrics mMetrics = new PlaybackMetrics();
+    /**
+     * 播放进度推送给界面，只在播放状态变化时记录位置
+     */
+    private PlaybackClock mClock;
+    /**
+     * 播放时钟在主线程的帧回调中请求校正，交给播放线程读取播放器后再记录，已经提交还没执行时不重复提交
+     */
+    private volatile boolean mSamplePending;
+    private final Runnable mSampleClock = () -> {
+        mSamplePending = false;
+        mAudioBinder.syncClock();
+    };
+    /**
+     * 播放次数、收听时长、切歌和完整播放的统计，切歌和暂停时记录
+     */
+    private PlayStatsRecorder mStats;
     private AudioBinder mAudioBinder;
     private SpUtils mSp;
 
     // 播放位置
-    private int playPosition = -2;
+    private volatile int playPosition = -2;
     // 播放模式
-    private int playMode = 0;
+    private volatile int playMode = 0;
 
     /**
      * 三种播放模式
@@ -60,13 +104,22 @@ public class MusicPlayService extends Service {
     public static final int PLAY_MODE_ALL = 0;
     public static final int PLAY_MODE_SINGLE = 1;
     public static final int PLAY_MODE_RANDOM = 2;
-    private List<MusicBean> mMusicDataList;
+    private volatile List<MusicBean> mMusicDataList;
     private MusicBroadcastReceiver mMusicReceiver;
     private MusicBeanDao mMusicDao;
-    private RxBus mBus;
-    private Disposable mDisposable;
+    /**
+     * 当前播放歌曲和播放状态（0 播放暂停切换，1 收藏变化，2 关闭）的事件
+     */
+    private RxBus.Topic<MusicBean> mCurrentMusicTopic;
+    private RxBus.Topic<Integer> mPlayStatusTopic;
     private AudioManager mAudioManager;
     private MediaSessionManager mSessionManager;
+    private PrefetchManager mPrefetchManager;
+    /**
+     * 随机播放顺序，以及它对应的播放列表（页面标识|关键字）
+     */
+    private ShuffleOrder mShuffleOrder;
+    private String mShuffleQueue;
 
 
     @Override
@@ -93,19 +146,34 @@ public class MusicPlayService extends Service {
     }
 
     private void init() {
+        mPlaybackThread = new HandlerThread("music-playback", Process.THREAD_PRIORITY_AUDIO);
+        mPlaybackThread.start();
+        mPlaybackHandler = new Handler(mPlaybackThread.getLooper());
         mAudioBinder = new AudioBinder();
-        mBus = RxBus.getInstance();
+        RxBus bus = RxBus.getInstance();
+        mCurrentMusicTopic = bus.topic(Constant.SERVICE_MUSIC, MusicBean.class);
+        mPlayStatusTopic = bus.topic(Constant.PLAY_STATUS, Integer.class);
         mSp = new SpUtils(getApplication(), Constant.MUSIC_CONFIG);
         mMusicDao = MusicApplication.getInstance().getMusicDao();
         mAudioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
         //初始化播放模式
         playMode = mSp.getInt(Constant.PLAY_MODE);
         mSessionManager = new MediaSessionManager(this, mAudioBinder);
+        mPrefetchManager = new PrefetchManager(this);
+        mClock = PlaybackClock.getInstance();
+        mClock.setSampler(clock -> {
+            if (!mSamplePending) {
+                mSamplePending = true;
+                mPlaybackHandler.post(mSampleClock);
+            }
+        });
+        mStats = PlayStatsRecorder.getInstance();
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        playPosition = intent.getIntExtra(Constant.POSITION, 0);
+        mMetrics.markPlayRequest();
+        int position = intent.getIntExtra(Constant.POSITION, 0);
         int pageType = intent.getIntExtra(Constant.PAGE_TYPE, 0);
         String condition = intent.getStringExtra(Constant.CONDITION);
         // 保存页面标识
@@ -115,21 +183,30 @@ public class MusicPlayService extends Service {
             mSp.putValues(new SpUtils.ContentValue(Constant.CONDITION, condition));
         }
 
-        LogUtil.d(TAG, " position  ==  " + playPosition + "   pageType  ==   " + pageType + "  condition  ==  " + condition);
-        // 播放列表数据
+        LogUtil.d(TAG, " position  ==  " + position + "   pageType  ==   " + pageType + "  condition  ==  " + condition);
+        // 播放列表数据，队列变化后之前的预加载作废
+        mPrefetchManager.cancel();
+        mPlaybackHandler.post(() -> startQueue(position, pageType, condition));
+        return START_NOT_STICKY;
+    }
+
+    /**
+     * 在播放线程中查询播放列表并开始播放
+     */
+    private void startQueue(int position, int pageType, String condition) {
+        playPosition = position;
+        List<MusicBean> oldList = mMusicDataList;
         mMusicDataList = QueryMusicFlagListUtil.getMusicDataList(mMusicDao.queryBuilder(), pageType, condition);
+        updateShuffleOrder(oldList, pageType + "|" + condition);
         LogUtil.d(TAG, " 播放位置== " + playPosition);
         //执行播放
         mAudioBinder.play();
         //通知播放界面更新
         sendCurrentMusicInfo();
         if (mMusicDataList != null && mMusicDataList.size() > 0) {
-            MusicBean musicBean = mMusicDataList.get(playPosition);
-            LogUtil.d(TAG, " 当前播放信息  ==  " + musicBean.getTitle());
-            musicBean.setPlayFrequency(musicBean.getPlayFrequency() + 1);
-            mMusicDao.update(musicBean);
+            // 播放次数由 mStats 在切歌时记录，定期汇总写入
+            LogUtil.d(TAG, " 当前播放信息  ==  " + mMusicDataList.get(playPosition).getTitle());
         }
-        return START_NOT_STICKY;
     }
 
 
@@ -140,17 +217,142 @@ public class MusicPlayService extends Service {
         if (mMusicDataList != null && playPosition < mMusicDataList.size()) {
             MusicBean musicBean = mMusicDataList.get(playPosition);
             musicBean.setCureetPosition(playPosition);
-            mBus.post(Constant.SERVICE_MUSIC, musicBean);
+            mCurrentMusicTopic.post(musicBean);
+        }
+    }
+
+    /**
+     * 播放列表变化时更新随机播放顺序：同一个列表只是增删了歌曲时增量修正，否则优先恢复保存的顺序，没有再重新洗牌。
+     * 不是随机模式时不需要顺序，也不写入保存的顺序，切换到随机模式时再建立。
+     *
+     * @param oldList 之前的播放列表
+     * @param queue   页面标识|关键字
+     */
+    private void updateShuffleOrder(List<MusicBean> oldList, String queue) {
+        int size = mMusicDataList == null ? 0 : mMusicDataList.size();
+        if (size == 0 || playMode != PLAY_MODE_RANDOM) {
+            mShuffleOrder = null;
+            mShuffleQueue = queue;
+            return;
+        }
+        int start = playPosition >= size ? 0 : playPosition;
+        boolean changed = false;
+        if (mShuffleOrder != null && queue.equals(mShuffleQueue) && oldList != null) {
+            int[] oldToNew = mapPositions(oldList, mMusicDataList);
+            if (!isSamePositions(oldToNew, size)) {
+                mShuffleOrder.patch(oldToNew, size);
+                changed = true;
+            }
+        } else {
+            String savedQueue = queue + "|" + size;
+            mShuffleOrder = savedQueue.equals(mSp.getString(Constant.SHUFFLE_QUEUE))
+                    ? ShuffleOrder.restore(mSp.getString(Constant.SHUFFLE_ORDER), mSp.getInt(Constant.SHUFFLE_CURSOR), size)
+                    : null;
+            if (mShuffleOrder == null) {
+                mShuffleOrder = new ShuffleOrder(size, start);
+                changed = true;
+            }
+        }
+        mShuffleQueue = queue;
+        mShuffleOrder.moveTo(start);
+        if (changed) {
+            mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_QUEUE, queue + "|" + size),
+                    new SpUtils.ContentValue(Constant.SHUFFLE_ORDER, mShuffleOrder.save()));
+        }
+        mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_CURSOR, mShuffleOrder.getCursor()));
+    }
+
+    private static boolean isSamePositions(int[] oldToNew, int newSize) {
+        if (oldToNew.length != newSize) {
+            return false;
+        }
+        for (int i = 0; i < oldToNew.length; i++) {
+            if (oldToNew[i] != i) {
+                return false;
+            }
         }
+        return true;
     }
 
+    /**
+     * 旧列表中每个位置在新列表中的位置，按歌曲id匹配，已删除的为-1。
+     */
+    private static int[] mapPositions(List<MusicBean> oldList, List<MusicBean> newList) {
+        Map<Long, Integer> newPositions = new HashMap<>(newList.size() * 2);
+        for (int i = 0; i < newList.size(); i++) {
+            newPositions.put(newList.get(i).getId(), i);
+        }
+        int[] oldToNew = new int[oldList.size()];
+        for (int i = 0; i < oldToNew.length; i++) {
+            Integer position = newPositions.get(oldList.get(i).getId());
+            oldToNew[i] = position == null ? -1 : position;
+        }
+        return oldToNew;
+    }
+
+    /**
+     * 切换到随机模式后第一次使用时按当前列表洗牌，和列表一起保存。
+     *
+     * @return 是否新建了顺序
+     */
+    private boolean ensureShuffleOrder() {
+        int size = mMusicDataList.size();
+        if (mShuffleOrder != null && mShuffleOrder.size() == size) {
+            return false;
+        }
+        mShuffleOrder = new ShuffleOrder(size, playPosition);
+        mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_QUEUE, mShuffleQueue + "|" + size),
+                new SpUtils.ContentValue(Constant.SHUFFLE_ORDER, mShuffleOrder.save()));
+        return true;
+    }
 
-    public class AudioBinder extends Binder implements MediaPlayer.OnPreparedListener, MediaPlayer.OnCompletionListener {
+    /**
+     * 随机模式下的下一首或上一首，并记录当前所在的下标。
+     */
+    private int shufflePosition(boolean next) {
+        boolean created = ensureShuffleOrder();
+        mShuffleOrder.moveTo(playPosition);
+        int position = next ? mShuffleOrder.next() : mShuffleOrder.previous();
+        // 一轮播完重新洗牌了，新建的已经保存过
+        if (!created && next && mShuffleOrder.getCursor() == 0) {
+            mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_ORDER, mShuffleOrder.save()));
+        }
+        mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_CURSOR, mShuffleOrder.getCursor()));
+        return position;
+    }
+
+    /**
+     * 根据播放模式推算接下来将要播放的位置。单曲循环按顺序推算，因为手动切歌时是顺序播放。
+     */
+    private int[] predictNextPositions() {
+        int size = mMusicDataList.size();
+        int count = Math.min(PrefetchManager.PREFETCH_COUNT, size - 1);
+        if (count <= 0) {
+            return new int[0];
+        }
+        int[] positions = new int[count];
+        if (playMode == PLAY_MODE_RANDOM && mShuffleOrder != null && mShuffleOrder.size() == size) {
+            for (int i = 0; i < count; i++) {
+                positions[i] = mShuffleOrder.peek(i + 1);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                positions[i] = (playPosition + i + 1) % size;
+            }
+        }
+        return positions;
+    }
+
+
+    public class AudioBinder extends Binder implements MediaPlayer.OnPreparedListener, MediaPlayer.OnCompletionListener,
+            MediaPlayer.OnErrorListener {
         private MusicBean mMusicInfo;
         private MusicNotifyManager mNotifyManager;
 
         private void play() {
-
+            releaseNextPlayer();
+            mPrepared = false;
+            mPlayWhenReady = true;
             if (mediaPlayer != null) {
                 mediaPlayer.reset();
                 mediaPlayer.release();
@@ -161,24 +363,184 @@ public class MusicPlayService extends Service {
                 playPosition = playPosition >= mMusicDataList.size() ? 0 : playPosition;
                 mMusicInfo = mMusicDataList.get(playPosition);
                 LogUtil.d(TAG, "  cccc ===   cc   " + mMusicInfo.getTitle());
-                mediaPlayer = MediaPlayer.create(MusicPlayService.this, getSongFileUri());
-
-                mediaPlayer.setOnPreparedListener(this);
-                mediaPlayer.setOnCompletionListener(this);
+                MediaPlayer player = new MediaPlayer();
+                player.setOnPreparedListener(this);
+                player.setOnCompletionListener(this);
+                player.setOnErrorListener(this);
+                try {
+                    player.setDataSource(MusicPlayService.this, getSongFileUri());
+                } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                    LogUtil.d(TAG, "歌曲文件出错 " + e.getMessage());
+                    player.release();
+                    return;
+                }
+                mediaPlayer = player;
+                player.prepareAsync();
                 String songName = StringUtil.getSongName(mMusicInfo.getTitle());
                 String artist = StringUtil.getArtist(mMusicInfo.getArtist());
 //                boolean lyricIsExists = LyricsUtil.checkLyricFile(songName, artist);
 //                if (!lyricIsExists && NetworkUtil.isNetworkConnected()) {
 //                    QqMusicRemote.getSongLyrics(songName, artist);
 //                }
-                mSp.putValues(new SpUtils.ContentValue(Constant.MUSIC_POSITION, playPosition));
-                showNotification(true);
-                mSessionManager.updatePlaybackState(true);
-                mSessionManager.updateLocMsg();
+                onTrackChanged();
+                syncClock();
             }
 
         }
 
+        /**
+         * 把当前的播放位置和状态记录到播放时钟
+         */
+        private void syncClock() {
+            boolean playing = isPlayerPlaying();
+            mClock.sync(readPosition(), readDuration(), playing);
+            mStats.onPlaying(playing);
+        }
+
+        private void onTrackChanged() {
+            mStats.onTrackStart(mMusicInfo.getId(), isPlayerPlaying());
+            mSp.putValues(new SpUtils.ContentValue(Constant.MUSIC_POSITION, playPosition));
+            showNotification(true);
+            mSessionManager.updatePlaybackState(true);
+            mSessionManager.updateLocMsg();
+            mPrefetchManager.prefetch(mMusicDataList, predictNextPositions());
+        }
+
+        /**
+         * 异步准备下一首，准备完成后接在当前歌曲后面。
+         */
+        private void prepareNextPlayer() {
+            releaseNextPlayer();
+            if (mediaPlayer == null || mMusicDataList == null || mMusicDataList.isEmpty()) {
+                return;
+            }
+            int position = peekNextPosition();
+            if (position < 0) {
+                return;
+            }
+            MediaPlayer next = new MediaPlayer();
+            try {
+                next.setDataSource(MusicPlayService.this, getSongFileUri(mMusicDataList.get(position)));
+            } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                LogUtil.d(TAG, "准备下一首出错 " + e.getMessage());
+                next.release();
+                return;
+            }
+            next.setOnPreparedListener(mp -> {
+                if (mp == mNextPlayer) {
+                    mNextPrepared = true;
+                    chainNextPlayer();
+                }
+            });
+            next.setOnErrorListener((mp, what, extra) -> {
+                if (mp == mNextPlayer) {
+                    releaseNextPlayer();
+                }
+                return true;
+            });
+            next.setOnInfoListener((mp, what, extra) -> {
+                if (what == MediaPlayer.MEDIA_INFO_STARTED_AS_NEXT) {
+                    mMetrics.markGaplessStart();
+                }
+                return false;
+            });
+            mNextPlayer = next;
+            mNextPosition = position;
+            next.prepareAsync();
+        }
+
+        /**
+         * 把准备好的下一首接在当前歌曲后面，失败时等当前歌曲播放完再正常切歌。
+         */
+        private void chainNextPlayer() {
+            if (mediaPlayer == null || mNextPlayer == null || !mNextPrepared) {
+                return;
+            }
+            try {
+                mediaPlayer.setNextMediaPlayer(mNextPlayer);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                LogUtil.d(TAG, "无缝播放衔接失败 " + e.getMessage());
+                releaseNextPlayer();
+            }
+        }
+
+        private void releaseNextPlayer() {
+            if (mNextPlayer != null) {
+                if (mediaPlayer != null) {
+                    try {
+                        mediaPlayer.setNextMediaPlayer(null);
+                    } catch (IllegalStateException e) {
+                        LogUtil.d(TAG, e.getMessage());
+                    }
+                }
+                mNextPlayer.release();
+                mNextPlayer = null;
+            }
+            mNextPosition = -1;
+            mNextPrepared = false;
+        }
+
+        /**
+         * 自动播放时的下一首：顺序播放下一个位置，单曲循环当前位置，随机播放随机顺序中的下一首。
+         */
+        private int peekNextPosition() {
+            int size = mMusicDataList.size();
+            switch (playMode) {
+                case PLAY_MODE_SINGLE:
+                    return playPosition;
+                case PLAY_MODE_RANDOM:
+                    return mShuffleOrder != null && mShuffleOrder.size() == size ? mShuffleOrder.peek(1) : -1;
+                default:
+                    return (playPosition + 1) % size;
+            }
+        }
+
+        /**
+         * 切换到已经准备好的下一首
+         *
+         * @param completed true 当前歌曲自然播放完成，下一首已经自动开始播放
+         */
+        private void switchToNextPlayer(boolean completed) {
+            int finishedPosition = playPosition;
+            MediaPlayer finished = mediaPlayer;
+            mediaPlayer = mNextPlayer;
+            mPrepared = true;
+            playPosition = mNextPosition;
+            mNextPlayer = null;
+            mNextPosition = -1;
+            mNextPrepared = false;
+            finished.setOnCompletionListener(null);
+            finished.release();
+            if (playMode == PLAY_MODE_RANDOM && mShuffleOrder != null && mShuffleOrder.size() == mMusicDataList.size()) {
+                if (completed) {
+                    // 和 autoPlayNext 一样前进，一轮播完重新洗牌；手动下一曲已经在 shufflePosition 中前进过
+                    mShuffleOrder.moveTo(finishedPosition);
+                    if (mShuffleOrder.advanceTo(playPosition)) {
+                        mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_ORDER, mShuffleOrder.save()));
+                    }
+                } else {
+                    mShuffleOrder.moveTo(playPosition);
+                }
+                mSp.putValues(new SpUtils.ContentValue(Constant.SHUFFLE_CURSOR, mShuffleOrder.getCursor()));
+            }
+            mediaPlayer.setOnPreparedListener(this);
+            mediaPlayer.setOnCompletionListener(this);
+            mediaPlayer.setOnErrorListener(this);
+            mPlayWhenReady = true;
+            if (!mediaPlayer.isPlaying()) {
+                mediaPlayer.start();
+            }
+            syncClock();
+            if (!completed) {
+                // 自然衔接的间隔在下一首的 MEDIA_INFO_STARTED_AS_NEXT 中记录
+                mMetrics.markFirstAudio();
+            }
+            mMusicInfo = mMusicDataList.get(playPosition);
+            onTrackChanged();
+            sendCurrentMusicInfo();
+            prepareNextPlayer();
+        }
+
         private void showNotification(boolean b) {
             mNotifyManager = new MusicNotifyManager(getApplication(), mMusicInfo, b);
             mNotifyManager.show();
@@ -189,11 +551,8 @@ public class MusicPlayService extends Service {
                 MusicBean musicBean = mMusicDataList.get(playPosition);
                 boolean favorite = mMusicDao.load(musicBean.getId()).getIsFavorite();
                 mNotifyManager.updateFavoriteBtn(favorite);
-                ThreadPoolProxyFactory.newInstance().execute(() -> {
-                    refreshFavorite(musicBean, favorite);
-                    // 更新本地收藏文件
-                    updateFavoriteFile(musicBean, favorite);
-                });
+                // 数据库写入提交后再在写入线程更新本地收藏文件，连续点击收藏时记录不会乱序
+                refreshFavorite(musicBean, favorite).thenRun(() -> updateFavoriteFile(musicBean, favorite));
             }
         }
 
@@ -210,27 +569,79 @@ public class MusicPlayService extends Service {
 
         @Override
         public void onPrepared(MediaPlayer mediaPlayer) {
-            // 开启播放
-            mediaPlayer.start();
+            if (mediaPlayer != MusicPlayService.this.mediaPlayer) {
+                return;
+            }
+            mPrepared = true;
+            // 准备期间没有暂停才开启播放
+            if (mPlayWhenReady) {
+                mediaPlayer.start();
+                mMetrics.markTrackStart();
+                mMetrics.markFirstAudio();
+            } else {
+                mMetrics.cancelTrackEnd();
+            }
+            syncClock();
             // 通知播放界面更新
             sendCurrentMusicInfo();
+            prepareNextPlayer();
+        }
+
+        @Override
+        public boolean onError(MediaPlayer mediaPlayer, int what, int extra) {
+            LogUtil.d(TAG, "播放出错 what " + what + "  extra " + extra);
+            if (mediaPlayer == MusicPlayService.this.mediaPlayer) {
+                mPrepared = false;
+                mPlayWhenReady = false;
+                syncClock();
+            }
+            return true;
         }
 
-        // 获取当前播放进度
+        // 获取当前播放进度，来自播放时钟，可以在任意线程调用
         public int getProgress() {
-            return mediaPlayer.getCurrentPosition();
+            return mClock.getPosition();
         }
 
-        // 获取音乐总时长
+        // 获取音乐总时长，来自播放时钟，还没有记录时使用媒体库中的时长
         public int getDuration() {
-            return mediaPlayer.getDuration();
+            int duration = mClock.getDuration();
+            if (duration > 0) {
+                return duration;
+            }
+            MusicBean musicInfo = mMusicInfo;
+            return musicInfo != null ? (int) musicInfo.getDuration() : 0;
+        }
+
+        /**
+         * 以下三个直接访问 MediaPlayer，只在播放线程调用
+         */
+        private int readPosition() {
+            return mediaPlayer != null && mPrepared ? mediaPlayer.getCurrentPosition() : 0;
+        }
+
+        private int readDuration() {
+            if (mediaPlayer != null && mPrepared) {
+                return mediaPlayer.getDuration();
+            }
+            return mMusicInfo != null ? (int) mMusicInfo.getDuration() : 0;
+        }
+
+        private boolean isPlayerPlaying() {
+            return mediaPlayer != null && mPrepared && mediaPlayer.isPlaying();
         }
 
         // 音乐播放完成监听
         @Override
         public void onCompletion(MediaPlayer mediaPlayer) {
-            // 自动播放下一首歌曲
-            autoPlayNext();
+            mMetrics.markTrackEnd();
+            mStats.onCompletion();
+            // 下一首已经准备好并接上时直接切换，否则自动播放下一首歌曲
+            if (mediaPlayer == MusicPlayService.this.mediaPlayer && mNextPlayer != null && mNextPrepared) {
+                switchToNextPlayer(true);
+            } else {
+                autoPlayNext();
+            }
         }
 
 
@@ -242,9 +653,7 @@ public class MusicPlayService extends Service {
                     playPosition = (playPosition + 1) % mMusicDataList.size();
                     break;
                 case PLAY_MODE_RANDOM:
-
-                    playPosition = new Random().nextInt(Math.abs(mMusicDataList.size()));
-
+                    playPosition = shufflePosition(true);
                     break;
                 default:
                     break;
@@ -264,14 +673,32 @@ public class MusicPlayService extends Service {
             playMode = mode;
             //保存播放模式
             mSp.putValues(new SpUtils.ContentValue(Constant.PLAY_MODE, playMode));
-
+            mPlaybackHandler.post(() -> {
+                if (mMusicDataList != null && mMusicDataList.size() > 0) {
+                    if (mode == PLAY_MODE_RANDOM) {
+                        ensureShuffleOrder();
+                        mShuffleOrder.moveTo(playPosition);
+                    }
+                    mPrefetchManager.prefetch(mMusicDataList, predictNextPositions());
+                    // 下一首变了，重新准备
+                    prepareNextPlayer();
+                }
+            });
         }
 
         //手动播放上一曲
 
         public void playPre() {
+            mMetrics.markPlayRequest();
+            mPlaybackHandler.post(this::playPreInternal);
+        }
+
+        private void playPreInternal() {
+            if (mMusicDataList == null || mMusicDataList.isEmpty()) {
+                return;
+            }
             if (playMode == PLAY_MODE_RANDOM) {
-                playPosition = new Random().nextInt(Math.abs(mMusicDataList.size()));
+                playPosition = shufflePosition(false);
             } else {
                 if (playPosition == 0) {
                     playPosition = mMusicDataList.size() - 1;
@@ -279,28 +706,44 @@ public class MusicPlayService extends Service {
                     playPosition--;
                 }
             }
+            mMetrics.cancelTrackEnd();
             play();
         }
 
         // 手动播放下一曲
 
         public void playNext() {
+            mMetrics.markPlayRequest();
+            mPlaybackHandler.post(this::playNextInternal);
+        }
+
+        private void playNextInternal() {
+            if (mMusicDataList == null || mMusicDataList.isEmpty()) {
+                return;
+            }
             if (playMode == PLAY_MODE_RANDOM) {
-                playPosition = new Random().nextInt(mMusicDataList.size());
+                playPosition = shufflePosition(true);
             } else {
                 playPosition = (playPosition + 1) % mMusicDataList.size();
             }
-            play();
+            mMetrics.cancelTrackEnd();
+            // 下一首正好是已经准备好的，直接切换
+            if (playPosition == mNextPosition && mNextPrepared && playMode != PLAY_MODE_SINGLE) {
+                switchToNextPlayer(false);
+            } else {
+                play();
+            }
         }
 
-        //true 当前正在播放
+        //true 当前正在播放（或者准备完成后就会播放），不访问 MediaPlayer，可以在任意线程调用
 
         public boolean isPlaying() {
-            return mediaPlayer.isPlaying();
+            return mPlayWhenReady && mediaPlayer != null;
         }
 
         public void start() {
-            mediaPlayer.start();
+            mPlayWhenReady = true;
+            mPlaybackHandler.post(() -> setPlayWhenReady(true));
             mSessionManager.updatePlaybackState(true);
             showNotification(true);
             initAudioFocus();
@@ -309,14 +752,37 @@ public class MusicPlayService extends Service {
         // 暂停播放
 
         public void pause() {
-            mediaPlayer.pause();
+            mPlayWhenReady = false;
+            mPlaybackHandler.post(() -> setPlayWhenReady(false));
             mSessionManager.updatePlaybackState(false);
             showNotification(false);
         }
 
+        /**
+         * 在播放线程执行开始或暂停。还没有准备完成时只记录状态，由 onPrepared 决定是否开始。
+         */
+        private void setPlayWhenReady(boolean playWhenReady) {
+            mPlayWhenReady = playWhenReady;
+            if (mediaPlayer != null && mPrepared) {
+                if (playWhenReady) {
+                    mediaPlayer.start();
+                } else {
+                    mediaPlayer.pause();
+                }
+            }
+            syncClock();
+        }
+
         // 跳转到指定位置进行播放
         public void seekTo(int progress) {
-            mediaPlayer.seekTo(progress);
+            mPlaybackHandler.post(() -> {
+                if (mediaPlayer != null && mPrepared) {
+                    mediaPlayer.seekTo(progress);
+                    mClock.sync(progress, readDuration(), isPlayerPlaying());
+                    // 有的机型拖动进度后衔接会失效，重新接上
+                    chainNextPlayer();
+                }
+            });
         }
 
         public List<MusicBean> getMusicList() {
@@ -330,38 +796,44 @@ public class MusicPlayService extends Service {
         public void updateFavorite(MusicBean bean) {
             bean.setIsFavorite(!bean.isFavorite());
             bean.setTime(StringUtil.getTime());
-            mMusicDao.update(bean);
+            MusicDbWriter.getInstance().update(mMusicDao, bean);
         }
 
         private Uri getSongFileUri() {
-            int songId = mMusicInfo.getId().intValue();
-            return VersionUtil.checkAndroidVersionQ() ? ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, songId) : Uri.parse(mMusicInfo.getSongUrl());
+            return getSongFileUri(mMusicInfo);
+        }
+
+        private Uri getSongFileUri(MusicBean musicBean) {
+            int songId = musicBean.getId().intValue();
+            return VersionUtil.checkAndroidVersionQ() ? ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, songId) : Uri.parse(musicBean.getSongUrl());
+        }
+
+        /**
+         * 切歌间隔和首次出声耗时统计
+         */
+        public PlaybackMetrics getPlaybackMetrics() {
+            return mMetrics;
         }
 
     }
 
-    private void refreshFavorite(MusicBean currentMusicBean, boolean mCurrentIsFavorite) {
+    private CompletableFuture<Void> refreshFavorite(MusicBean currentMusicBean, boolean mCurrentIsFavorite) {
         // 数据更新
         currentMusicBean.setIsFavorite(!mCurrentIsFavorite);
         if (!mCurrentIsFavorite) {
             currentMusicBean.setTime(StringUtil.getTime());
         }
-        mMusicDao.update(currentMusicBean);
+        return MusicDbWriter.getInstance().update(mMusicDao, currentMusicBean);
     }
 
     private void updateFavoriteFile(MusicBean musicBean, boolean currentIsFavorite) {
         if (currentIsFavorite) {
-            mDisposable = ReadFavoriteFileUtil.deleteFavorite(musicBean.getTitle()).observeOn(AndroidSchedulers.mainThread()).subscribe(aBoolean -> {
-                if (!aBoolean) {
-//                    ToastUtil.show(this, getResources().getString(R.string.song_not_favorite));
-                    LogUtil.d(TAG, getResources().getString(R.string.song_not_favorite));
-                }
-            });
+            if (!ReadFavoriteFileUtil.deleteFavorite(musicBean)) {
+                LogUtil.d(TAG, getResources().getString(R.string.song_not_favorite));
+            }
         } else {
-            //更新收藏文件  将歌名和收藏时间拼接储存，恢复的时候，歌名和时间以“T”为标记进行截取
-            String songInfo = musicBean.getTitle() + "T" + musicBean.getTime();
-            ReadFavoriteFileUtil.writeFile(songInfo);
-
+            // 更新收藏日志，收藏时间在 refreshFavorite 中已经设置
+            ReadFavoriteFileUtil.addFavorite(musicBean);
         }
 
     }
@@ -387,7 +859,7 @@ public class MusicPlayService extends Service {
                     switch (id) {
                         case Constant.FAVORITE:
                             mAudioBinder.updateFavorite();
-                            mBus.post(Constant.PLAY_STATUS, Constant.NUMBER_ONE);
+                            mPlayStatusTopic.post(Constant.NUMBER_ONE);
                             break;
                         case Constant.CLOSE:
                             pauseMusic();
@@ -402,7 +874,7 @@ public class MusicPlayService extends Service {
                                 } else {
                                     mAudioBinder.start();
                                 }
-                                mBus.post(Constant.PLAY_STATUS, Constant.NUMBER_ZERO);
+                                mPlayStatusTopic.post(Constant.NUMBER_ZERO);
                             }
                             break;
                         case Constant.NEXT:
@@ -422,7 +894,7 @@ public class MusicPlayService extends Service {
             if (mAudioBinder != null) {
                 mAudioBinder.pause();
                 mAudioBinder.hintNotification();
-                mBus.post(Constant.PLAY_STATUS, Constant.NUMBER_TWO);
+                mPlayStatusTopic.post(Constant.NUMBER_TWO);
 
                 mSp.putValues(new SpUtils.ContentValue(Constant.MUSIC_FOCUS, false));
                 stopSelf();
@@ -443,7 +915,7 @@ public class MusicPlayService extends Service {
         public void onReceive(Context context, Intent intent) {
             if (mAudioBinder != null && mAudioBinder.isPlaying()) {
                 mAudioBinder.pause();
-                mBus.post(Constant.PLAY_STATUS, Constant.NUMBER_ZERO);
+                mPlayStatusTopic.post(Constant.NUMBER_ZERO);
             }
         }
     };
@@ -496,7 +968,7 @@ public class MusicPlayService extends Service {
         } else {
             mAudioBinder.start();
         }
-        mBus.post(Constant.PLAY_STATUS, Constant.NUMBER_ZERO);
+        mPlayStatusTopic.post(Constant.NUMBER_ZERO);
     }
 
     public void abandonAudioFocus() {
@@ -511,21 +983,30 @@ public class MusicPlayService extends Service {
         if (mAudioBinder != null) {
             mAudioBinder.hintNotification();
         }
-        if (mediaPlayer != null) {
-            mediaPlayer.release();
-            mediaPlayer = null;
-        }
+        mClock.setSampler(null);
+        mClock.sync(mClock.getPosition(), mClock.getDuration(), false);
+        mStats.stop();
+        LogUtil.d(TAG, "播放统计  " + mStats.getStats());
+        // 等播放线程中已经提交的任务执行完再释放
+        mPlaybackHandler.post(() -> {
+            if (mNextPlayer != null) {
+                mNextPlayer.release();
+                mNextPlayer = null;
+            }
+            if (mediaPlayer != null) {
+                mediaPlayer.release();
+                mediaPlayer = null;
+            }
+        });
+        mPlaybackThread.quitSafely();
         if (mMusicReceiver != null) {
             unregisterReceiver(mMusicReceiver);
         }
         if (headsetReceiver != null) {
             unregisterReceiver(headsetReceiver);
         }
-        if (mDisposable != null) {
-            mDisposable.dispose();
-            mDisposable = null;
-        }
         abandonAudioFocus();
         mSessionManager.release();
+        mPrefetchManager.release();
     }
 }
@@ -0,0 +1,264 @@
+package com.yibao.music.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import com.yibao.music.util.LogUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   PlaybackClock
+ * @ Des:    播放时钟。播放服务只在开始、暂停、拖动、切歌时记录一次播放位置，界面按订阅的间隔收到推送的进度，
+ * 两次记录之间用系统时间推算当前位置，不再每隔几毫秒跨 Binder 查询 MediaPlayer。
+ * 推送跟随 Choreographer 的帧回调，只在有订阅并且正在播放时注册，界面不可见（取消订阅）或暂停后不再唤醒主线程。
+ */
+public class PlaybackClock {
+    private static final String TAG = "====" + PlaybackClock.class.getSimpleName() + "    ";
+    /**
+     * 进度条和时间的刷新间隔 ms
+     */
+    public static final long PROGRESS_INTERVAL = 200;
+    /**
+     * 歌词切换行的检查间隔 ms
+     */
+    public static final long LYRIC_INTERVAL = 100;
+    /**
+     * 歌词滚动的刷新间隔 ms，约两帧一次
+     */
+    public static final long ROLL_LYRIC_INTERVAL = 30;
+    /**
+     * 播放中每隔这么久向播放服务重新取一次真实位置，校正推算的误差
+     */
+    private static final long RESYNC_INTERVAL = 1000;
+    /**
+     * 一帧的时长 ms，下一次推送前一帧注册帧回调，推送仍然和帧对齐
+     */
+    private static final long FRAME_INTERVAL = 16;
+    private static volatile PlaybackClock instance;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<Subscriber> mSubscribers = new ArrayList<>();
+    private Sampler mSampler;
+    private boolean mFrameScheduled;
+
+    private long mSamplePosition;
+    private long mSampleTime = -1;
+    private int mDuration;
+    private boolean mPlaying;
+
+    private long mStatsStartTime = SystemClock.uptimeMillis();
+    private long mWakeupCount;
+    private long mDispatchCount;
+    private long mSampleCount;
+
+    /**
+     * 播放服务提供真实的播放状态，校正时在主线程的帧回调中调用。实现不能在这里访问播放器，
+     * 应该交给播放线程读取后调用 sync()
+     */
+    public interface Sampler {
+        void sample(PlaybackClock clock);
+    }
+
+    private static final class Subscriber {
+        final ObservableEmitter<Integer> emitter;
+        final long intervalMs;
+        long lastDispatchTime;
+
+        Subscriber(ObservableEmitter<Integer> emitter, long intervalMs) {
+            this.emitter = emitter;
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameScheduled = false;
+            mWakeupCount++;
+            long now = SystemClock.uptimeMillis();
+            Sampler sampler = mSampler;
+            if (sampler != null && now - getSampleTime() >= RESYNC_INTERVAL) {
+                sampler.sample(PlaybackClock.this);
+            }
+            dispatch(now, false);
+            scheduleFrameIfNeeded();
+        }
+    };
+
+    private final Runnable mStateChanged = () -> {
+        dispatch(SystemClock.uptimeMillis(), true);
+        scheduleFrameIfNeeded();
+    };
+
+    private PlaybackClock() {
+    }
+
+    public static PlaybackClock getInstance() {
+        if (instance == null) {
+            synchronized (PlaybackClock.class) {
+                if (instance == null) {
+                    instance = new PlaybackClock();
+                }
+            }
+        }
+        return instance;
+    }
+
+    void setSampler(Sampler sampler) {
+        mSampler = sampler;
+    }
+
+    /**
+     * 播放服务在播放状态变化时调用，记录当前位置，并立即通知订阅者。可以在任意线程调用。
+     *
+     * @param position 当前播放位置 ms
+     * @param duration 歌曲总时长 ms
+     * @param playing  是否正在播放
+     */
+    public void sync(int position, int duration, boolean playing) {
+        boolean changed;
+        synchronized (this) {
+            changed = playing != mPlaying || duration != mDuration
+                    || Math.abs(position - positionAt(SystemClock.uptimeMillis())) > RESYNC_INTERVAL / 4;
+            mSamplePosition = position;
+            mSampleTime = SystemClock.uptimeMillis();
+            mDuration = duration;
+            mPlaying = playing;
+            mSampleCount++;
+        }
+        if (changed) {
+            mMainHandler.removeCallbacks(mStateChanged);
+            mMainHandler.post(mStateChanged);
+        }
+    }
+
+    /**
+     * 当前播放位置，两次记录之间按经过的时间推算，不超过歌曲总时长
+     */
+    public synchronized int getPosition() {
+        return (int) positionAt(SystemClock.uptimeMillis());
+    }
+
+    public synchronized int getDuration() {
+        return mDuration;
+    }
+
+    public synchronized boolean isPlaying() {
+        return mPlaying;
+    }
+
+    /**
+     * 订阅播放进度，在主线程按帧推送，两次推送至少间隔 intervalMs。
+     * 订阅时先推送一次当前位置，暂停、拖动、切歌时立即推送，暂停期间没有推送。
+     *
+     * @param intervalMs 推送间隔 ms
+     * @return 推送当前播放位置 ms
+     */
+    public Observable<Integer> ticks(long intervalMs) {
+        return Observable.<Integer>create(emitter -> {
+            Subscriber subscriber = new Subscriber(emitter, intervalMs);
+            mSubscribers.add(subscriber);
+            emitter.setCancellable(() -> {
+                mSubscribers.remove(subscriber);
+                if (mSubscribers.isEmpty()) {
+                    stopFrames();
+                }
+            });
+            if (hasSample()) {
+                subscriber.lastDispatchTime = SystemClock.uptimeMillis();
+                emitter.onNext(getPosition());
+            }
+            scheduleFrameIfNeeded();
+        }).subscribeOn(AndroidSchedulers.mainThread()).unsubscribeOn(AndroidSchedulers.mainThread());
+    }
+
+    private void dispatch(long now, boolean force) {
+        if (!hasSample()) {
+            return;
+        }
+        int position = getPosition();
+        // 倒序遍历，回调中取消订阅不影响遍历
+        for (int i = mSubscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = mSubscribers.get(i);
+            // 帧回调提前一帧注册，差不到一帧的也在这一帧推送
+            if (force || now - subscriber.lastDispatchTime >= subscriber.intervalMs - FRAME_INTERVAL) {
+                subscriber.lastDispatchTime = now;
+                mDispatchCount++;
+                subscriber.emitter.onNext(position);
+            }
+        }
+    }
+
+    /**
+     * 只在最近一个订阅者快要到推送时间时注册帧回调，中间的帧不唤醒主线程
+     */
+    private void scheduleFrameIfNeeded() {
+        if (mFrameScheduled || mSubscribers.isEmpty() || !isPlaying()) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long nextTime = Long.MAX_VALUE;
+        for (Subscriber subscriber : mSubscribers) {
+            nextTime = Math.min(nextTime, subscriber.lastDispatchTime + subscriber.intervalMs);
+        }
+        mFrameScheduled = true;
+        Choreographer.getInstance().postFrameCallbackDelayed(mFrameCallback, Math.max(0, nextTime - now - FRAME_INTERVAL));
+    }
+
+    private void stopFrames() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        LogUtil.d(TAG, "停止推送进度  " + getStats());
+    }
+
+    private long positionAt(long now) {
+        if (mSampleTime < 0) {
+            return 0;
+        }
+        long position = mPlaying ? mSamplePosition + now - mSampleTime : mSamplePosition;
+        return mDuration > 0 ? Math.min(position, mDuration) : position;
+    }
+
+    private synchronized long getSampleTime() {
+        return mSampleTime;
+    }
+
+    private synchronized boolean hasSample() {
+        return mSampleTime >= 0;
+    }
+
+    /**
+     * 主线程被时钟唤醒（帧回调）的次数，每分钟的平均值用于对比轮询时的唤醒次数
+     */
+    public long getWakeupCount() {
+        return mWakeupCount;
+    }
+
+    public long getWakeupsPerMinute() {
+        long elapsed = SystemClock.uptimeMillis() - mStatsStartTime;
+        return elapsed <= 0 ? 0 : mWakeupCount * 60_000 / elapsed;
+    }
+
+    public String getStats() {
+        return "唤醒 " + mWakeupCount + " 次  每分钟 " + getWakeupsPerMinute() + " 次  推送 " + mDispatchCount
+                + " 次  采样 " + mSampleCount + " 次";
+    }
+
+    public void resetStats() {
+        mStatsStartTime = SystemClock.uptimeMillis();
+        mWakeupCount = 0;
+        mDispatchCount = 0;
+        mSampleCount = 0;
+    }
+}
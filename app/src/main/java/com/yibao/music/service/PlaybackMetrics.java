@@ -0,0 +1,113 @@
+package com.yibao.music.service;
+
+import android.os.SystemClock;
+
+import com.yibao.music.util.LogUtil;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   PlaybackMetrics
+ * @ Des:    播放相关的耗时统计：切歌时上一首结束到下一首出声的间隔，以及点击播放到出声的耗时。
+ * 无缝衔接的间隔用下一首的 MEDIA_INFO_STARTED_AS_NEXT 回调时间计算，它和上一首的完成回调先后不定。
+ */
+public class PlaybackMetrics {
+    private static final String TAG = "====" + PlaybackMetrics.class.getSimpleName() + "    ";
+    private long mTrackEndTime = -1;
+    private long mGaplessStartTime = -1;
+    private long mLastGapMs;
+    private long mTotalGapMs;
+    private int mTransitionCount;
+    private int mGaplessCount;
+    private long mRequestTime = -1;
+    private long mLastTimeToFirstAudioMs;
+
+    /**
+     * 上一首播放完成
+     */
+    public synchronized void markTrackEnd() {
+        mTrackEndTime = SystemClock.elapsedRealtime();
+        if (mGaplessStartTime >= 0) {
+            addTransition(mGaplessStartTime, true);
+        }
+    }
+
+    /**
+     * 下一首开始出声（准备完成后开始播放）
+     */
+    public synchronized void markTrackStart() {
+        if (mTrackEndTime >= 0) {
+            addTransition(SystemClock.elapsedRealtime(), false);
+        }
+    }
+
+    /**
+     * 由 setNextMediaPlayer 衔接的下一首开始出声，在下一首的 MEDIA_INFO_STARTED_AS_NEXT 回调中调用。
+     * 比上一首的完成回调先到时先记下时间，等完成回调再计算。
+     */
+    public synchronized void markGaplessStart() {
+        mGaplessStartTime = SystemClock.elapsedRealtime();
+        if (mTrackEndTime >= 0) {
+            addTransition(mGaplessStartTime, true);
+        }
+    }
+
+    private void addTransition(long startTime, boolean gapless) {
+        // 衔接的下一首先出声时两个回调的先后不代表间隔，记为0
+        mLastGapMs = Math.max(0, startTime - mTrackEndTime);
+        mTotalGapMs += mLastGapMs;
+        mTransitionCount++;
+        if (gapless) {
+            mGaplessCount++;
+        }
+        mTrackEndTime = -1;
+        mGaplessStartTime = -1;
+        LogUtil.d(TAG, "切歌间隔 " + mLastGapMs + " ms  无缝 " + mGaplessCount + "/" + mTransitionCount);
+    }
+
+    /**
+     * 收到播放请求（选歌、上一曲、下一曲）
+     */
+    public synchronized void markPlayRequest() {
+        mRequestTime = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * 开始出声，记录从播放请求到出声的耗时
+     */
+    public synchronized void markFirstAudio() {
+        if (mRequestTime < 0) {
+            return;
+        }
+        mLastTimeToFirstAudioMs = SystemClock.elapsedRealtime() - mRequestTime;
+        mRequestTime = -1;
+        LogUtil.d(TAG, "首次出声耗时 " + mLastTimeToFirstAudioMs + " ms");
+    }
+
+    public synchronized long getLastTimeToFirstAudioMs() {
+        return mLastTimeToFirstAudioMs;
+    }
+
+    /**
+     * 手动切歌等情况，不计入间隔统计
+     */
+    public synchronized void cancelTrackEnd() {
+        mTrackEndTime = -1;
+        mGaplessStartTime = -1;
+    }
+
+    public synchronized long getLastGapMs() {
+        return mLastGapMs;
+    }
+
+    public synchronized long getAverageGapMs() {
+        return mTransitionCount == 0 ? 0 : mTotalGapMs / mTransitionCount;
+    }
+
+    public synchronized int getTransitionCount() {
+        return mTransitionCount;
+    }
+
+    public synchronized int getGaplessCount() {
+        return mGaplessCount;
+    }
+}
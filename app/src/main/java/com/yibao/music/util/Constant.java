@@ -119,6 +119,13 @@ public class Constant {
      */
     public static final String MUSIC_POSITION = "music_position";
 
+    /**
+     * 随机播放的顺序、当前所在下标，以及这个顺序对应的播放列表（页面标识|关键字|歌曲数量）。
+     */
+    public static final String SHUFFLE_ORDER = "shuffle_order";
+    public static final String SHUFFLE_CURSOR = "shuffle_cursor";
+    public static final String SHUFFLE_QUEUE = "shuffle_queue";
+
     /**
      * 用于存储退出程序或关闭音乐界面时，音乐的播放状态 。 1：表示暂停时关闭 ， 2：表示播放时关闭
      */
@@ -138,6 +145,13 @@ public class Constant {
     public static final String MUSIC_DURATION_FLAG = "music_duration_flag";
     public static final String MUSIC_FILE_SIZE_FLAG = "music_file_size_flag";
 
+    /**
+     * 媒体库增量同步的水位、同步时的过滤设置和媒体库版本
+     */
+    public static final String MUSIC_SYNC_WATERMARK = "music_sync_watermark";
+    public static final String MUSIC_SYNC_FILTER = "music_sync_filter";
+    public static final String MUSIC_SYNC_VERSION = "music_sync_version";
+
     public static final String MUSIC_CONFIG = "music_config";
 
 
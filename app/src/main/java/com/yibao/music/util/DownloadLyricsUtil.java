@@ -49,6 +49,7 @@ public class DownloadLyricsUtil {
             raf.seek(file.length());
             raf.write(strContent.getBytes());
             raf.close();
+            LyricsCache.getInstance().remove(file);
             isSavaFile = true;
         } catch (Exception e) {
             isSavaFile = false;
@@ -0,0 +1,179 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.query.LazyList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   FavoriteBackupUtil
+ * @ Des:    收藏列表的批量备份和恢复。恢复时先把收藏日志按 (歌名, 歌手, 时长) 建立哈希表，
+ * 只读歌曲的几列逐行匹配，匹配到的歌曲在一个事务里 updateInTx，进度按固定频率回调。
+ */
+public class FavoriteBackupUtil {
+    private static final String TAG = "====" + FavoriteBackupUtil.class.getSimpleName() + "    ";
+    /**
+     * 进度回调的最小间隔 ms
+     */
+    private static final long PROGRESS_INTERVAL = 100;
+    /**
+     * 按id加载匹配到的歌曲时每次的id数量，SQLite 默认最多 999 个参数
+     */
+    private static final int ID_CHUNK_SIZE = 500;
+    private static final String SQL_NOT_FAVORITE = "SELECT " + MusicBeanDao.Properties.Id.columnName + ", "
+            + MusicBeanDao.Properties.Title.columnName + ", " + MusicBeanDao.Properties.Artist.columnName + ", "
+            + MusicBeanDao.Properties.Duration.columnName + " FROM " + MusicBeanDao.TABLENAME + " WHERE "
+            + MusicBeanDao.Properties.IsFavorite.columnName + " = 0";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public interface OnProgressListener {
+        /**
+         * @param current 已匹配的歌曲数量
+         * @param total   需要匹配的歌曲总数
+         */
+        void onProgress(int current, int total);
+    }
+
+    /**
+     * 收藏记录的匹配表。先按歌曲id并且歌名相同匹配，重装或换手机后id变化时按 (歌名, 歌手, 时长) 匹配，
+     * 旧版本收藏文件导入的记录只有歌名，按歌名匹配。
+     */
+    public static class FavoriteMatcher {
+        private final Map<Long, FavoriteJournal.Record> mById = new HashMap<>();
+        private final Map<String, FavoriteJournal.Record> mByHash = new HashMap<>();
+        private final Map<String, FavoriteJournal.Record> mByTitle = new HashMap<>();
+
+        public FavoriteMatcher(Collection<FavoriteJournal.Record> records) {
+            for (FavoriteJournal.Record record : records) {
+                if (record.songId > 0) {
+                    mById.put(record.songId, record);
+                    mByHash.put(hash(record.title, record.artist, record.duration), record);
+                } else {
+                    mByTitle.put(normalize(record.title), record);
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return mById.isEmpty() && mByTitle.isEmpty();
+        }
+
+        public FavoriteJournal.Record match(MusicBean bean) {
+            return match(bean.getId() == null ? 0 : bean.getId(), bean.getTitle(), bean.getArtist(), bean.getDuration());
+        }
+
+        public FavoriteJournal.Record match(long songId, String title, String artist, long duration) {
+            FavoriteJournal.Record record = mById.get(songId);
+            if (record != null && normalize(record.title).equals(normalize(title))) {
+                return record;
+            }
+            record = mByHash.get(hash(title, artist, duration));
+            return record != null ? record : mByTitle.get(normalize(title));
+        }
+    }
+
+    /**
+     * 本地收藏日志的匹配表，没有收藏记录时为空
+     */
+    public static FavoriteMatcher loadMatcher() {
+        return new FavoriteMatcher(FavoriteJournal.getInstance().getFavorites());
+    }
+
+    /**
+     * 从收藏日志恢复收藏。只匹配还没有收藏的歌曲，已经收藏的保留原来的收藏时间。
+     *
+     * @return 恢复的歌曲数量
+     */
+    public static int restore(MusicBeanDao dao, OnProgressListener listener) {
+        return restore(dao, loadMatcher(), listener);
+    }
+
+    /**
+     * 按匹配表恢复收藏
+     *
+     * @return 恢复的歌曲数量
+     */
+    public static int restore(MusicBeanDao dao, FavoriteMatcher matcher, OnProgressListener listener) {
+        long startTime = SystemClock.elapsedRealtime();
+        if (matcher.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> matchedTimes = new HashMap<>();
+        int total;
+        try (Cursor cursor = dao.getDatabase().rawQuery(SQL_NOT_FAVORITE, null)) {
+            total = cursor.getCount();
+            int current = 0;
+            long lastProgressTime = 0;
+            while (cursor.moveToNext()) {
+                FavoriteJournal.Record record = matcher.match(cursor.getLong(0), cursor.isNull(1) ? null : cursor.getString(1),
+                        cursor.isNull(2) ? null : cursor.getString(2), cursor.getLong(3));
+                if (record != null) {
+                    matchedTimes.put(cursor.getLong(0), record.time);
+                }
+                current++;
+                long now = SystemClock.elapsedRealtime();
+                if (listener != null && now - lastProgressTime >= PROGRESS_INTERVAL) {
+                    lastProgressTime = now;
+                    listener.onProgress(current, total);
+                }
+            }
+        }
+        List<MusicBean> musicList = new ArrayList<>(matchedTimes.size());
+        List<Long> ids = new ArrayList<>(matchedTimes.keySet());
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            musicList.addAll(dao.queryBuilder()
+                    .where(MusicBeanDao.Properties.Id.in(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())))).list());
+        }
+        for (MusicBean musicBean : musicList) {
+            musicBean.setTime(matchedTimes.get(musicBean.getId()));
+            musicBean.setIsFavorite(true);
+        }
+        dao.updateInTx(musicList);
+        if (listener != null) {
+            listener.onProgress(total, total);
+        }
+        LogUtil.d(TAG, "恢复收藏 " + musicList.size() + " 首  耗时 " + (SystemClock.elapsedRealtime() - startTime) + " ms");
+        return musicList.size();
+    }
+
+    /**
+     * 把数据库中的全部收藏写入收藏日志，逐条读取，已经记录过的不再重复写。
+     *
+     * @return 是否写入成功
+     */
+    public static boolean backup(MusicBeanDao dao) {
+        LazyList<MusicBean> favoriteList = dao.queryBuilder()
+                .where(MusicBeanDao.Properties.IsFavorite.eq(true)).build().listLazyUncached();
+        try {
+            return FavoriteJournal.getInstance().addAll(favoriteList);
+        } finally {
+            favoriteList.close();
+        }
+    }
+
+    /**
+     * (歌名, 歌手, 时长) 的匹配key，时长按秒，忽略大小写和多余的空白
+     */
+    static String hash(String title, String artist, long duration) {
+        return normalize(title) + '\u0001' + normalize(artist) + '\u0001' + duration / 1000;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,375 @@
+package com.yibao.music.util;
+
+import android.os.Environment;
+import android.text.TextUtils;
+
+import com.yibao.music.model.MusicBean;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   FavoriteJournal
+ * @ Des:    收藏日志。每次收藏、取消收藏只在文件末尾追加一行记录（歌曲id、歌名、歌手、时长、收藏时间），
+ * 写完同步到磁盘，程序崩溃也不会丢失。第一次使用时重放全部记录得到当前的收藏，末尾没有换行的最后一行是写到一半的记录，丢弃。
+ * 失效的记录超过阈值后在后台把当前收藏重写成新文件再替换。文件放在外部存储，卸载重装后仍然可以恢复收藏。
+ */
+public class FavoriteJournal {
+    private static final String TAG = "====" + FavoriteJournal.class.getSimpleName() + "    ";
+    private static final String JOURNAL_FILE = Environment.getExternalStorageDirectory().getAbsolutePath() + "/smartisan/music/favorite.journal";
+    private static final char OP_ADD = '+';
+    private static final char OP_REMOVE = '-';
+    private static final String SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 6;
+    /**
+     * 失效记录至少这么多，并且超过有效记录数时才压缩
+     */
+    private static final int MIN_GARBAGE_TO_COMPACT = 64;
+    private static volatile FavoriteJournal instance;
+
+    private final File mJournal;
+    private final File mLegacyFile;
+    private final Executor mCompactExecutor;
+    /**
+     * 当前收藏，key 为歌曲id，旧版本收藏文件导入的没有id，以歌名为key
+     */
+    private final Map<String, Record> mFavorites = new LinkedHashMap<>();
+    private boolean mLoaded;
+    private int mLineCount;
+    private boolean mCompacting;
+
+    /**
+     * 一条收藏记录
+     */
+    public static class Record {
+        public final long songId;
+        public final String title;
+        public final String artist;
+        public final long duration;
+        public final String time;
+
+        Record(long songId, String title, String artist, long duration, String time) {
+            this.songId = songId;
+            this.title = title;
+            this.artist = artist;
+            this.duration = duration;
+            this.time = time;
+        }
+
+        static Record of(MusicBean bean) {
+            return new Record(bean.getId() == null ? 0 : bean.getId(), bean.getTitle(), bean.getArtist(),
+                    bean.getDuration(), bean.getTime());
+        }
+
+        String key() {
+            return songId > 0 ? String.valueOf(songId) : titleKey(title);
+        }
+    }
+
+    /**
+     * @param compactExecutor 执行压缩的线程
+     */
+    FavoriteJournal(File journal, File legacyFile, Executor compactExecutor) {
+        mJournal = journal;
+        mLegacyFile = legacyFile;
+        mCompactExecutor = compactExecutor;
+    }
+
+    public static FavoriteJournal getInstance() {
+        if (instance == null) {
+            synchronized (FavoriteJournal.class) {
+                if (instance == null) {
+                    instance = new FavoriteJournal(new File(JOURNAL_FILE), new File(Constant.FAVORITE_FILE),
+                            task -> ThreadPoolProxyFactory.getIo().execute(task, ThreadPoolProxy.PRIORITY_LOW));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 收藏日志或者旧版本的收藏文件是否存在
+     */
+    public boolean exists() {
+        return mJournal.exists() || mLegacyFile.exists();
+    }
+
+    /**
+     * 当前收藏的全部记录
+     */
+    public synchronized List<Record> getFavorites() {
+        ensureLoaded();
+        return new ArrayList<>(mFavorites.values());
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return mFavorites.size();
+    }
+
+    /**
+     * 收藏一首歌，追加一条记录
+     */
+    public synchronized boolean add(MusicBean bean) {
+        List<MusicBean> beans = new ArrayList<>(1);
+        beans.add(bean);
+        return addAll(beans);
+    }
+
+    /**
+     * 一次追加多条收藏记录，只打开和同步一次文件。已经记录过并且收藏时间相同的跳过。
+     */
+    public synchronized boolean addAll(Collection<MusicBean> beans) {
+        ensureLoaded();
+        List<Record> records = new ArrayList<>();
+        for (MusicBean bean : beans) {
+            Record record = Record.of(bean);
+            Record old = mFavorites.get(record.key());
+            if (old != null && TextUtils.equals(old.time, record.time)) {
+                continue;
+            }
+            records.add(record);
+            putRecord(record);
+        }
+        return records.isEmpty() || append(OP_ADD, records);
+    }
+
+    /**
+     * 取消收藏，追加一条删除记录。只删除这首歌，旧版本导入的记录按歌名完全相同删除。
+     *
+     * @return 之前是否收藏
+     */
+    public synchronized boolean remove(MusicBean bean) {
+        ensureLoaded();
+        Record record = Record.of(bean);
+        boolean removed = removeRecord(record);
+        if (removed) {
+            List<Record> records = new ArrayList<>(1);
+            records.add(record);
+            append(OP_REMOVE, records);
+        }
+        return removed;
+    }
+
+    private void putRecord(Record record) {
+        if (record.songId > 0) {
+            // 旧版本导入的同名记录由这条有id的记录代替
+            mFavorites.remove(titleKey(record.title));
+        }
+        mFavorites.put(record.key(), record);
+    }
+
+    private boolean removeRecord(Record record) {
+        boolean removed = mFavorites.remove(record.key()) != null;
+        return mFavorites.remove(titleKey(record.title)) != null || removed;
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (mJournal.exists()) {
+            replay();
+        } else if (mLegacyFile.exists()) {
+            importLegacyFile();
+        }
+    }
+
+    private void replay() {
+        int brokenCount = 0;
+        // 最后一行没有换行时是写到一半的记录（比如写入时断电），断在最后一个字段（歌名）里时字段数量仍然完整
+        boolean tornTail = hasTornTail(mJournal);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mJournal), StandardCharsets.UTF_8))) {
+            String next = reader.readLine();
+            while (next != null) {
+                String line = next;
+                next = reader.readLine();
+                mLineCount++;
+                if (next == null && tornTail) {
+                    brokenCount++;
+                    break;
+                }
+                // 字段不完整的记录直接跳过
+                String[] fields = line.split(SEPARATOR, -1);
+                if (fields.length != FIELD_COUNT || fields[0].length() != 1) {
+                    brokenCount++;
+                    continue;
+                }
+                Record record;
+                try {
+                    record = new Record(Long.parseLong(fields[1]), fields[5], fields[2], Long.parseLong(fields[3]), fields[4]);
+                } catch (NumberFormatException e) {
+                    brokenCount++;
+                    continue;
+                }
+                if (fields[0].charAt(0) == OP_ADD) {
+                    putRecord(record);
+                } else if (fields[0].charAt(0) == OP_REMOVE) {
+                    removeRecord(record);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LogUtil.d(TAG, "重放收藏日志 " + mLineCount + " 条记录  收藏 " + mFavorites.size() + " 首");
+        if (brokenCount > 0) {
+            // 重写后再追加，新记录不会和没有换行的半条记录连在一起
+            rewrite();
+        }
+    }
+
+    /**
+     * 文件不为空，并且最后一个字节不是换行
+     */
+    private static boolean hasTornTail(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length == 0) {
+                return false;
+            }
+            raf.seek(length - 1);
+            return raf.read() != '\n';
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 旧版本的收藏文件每行是 歌名 + "T" + 收藏时间，导入后写成日志，旧文件保留作为备份。
+     */
+    private void importLegacyFile() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mLegacyFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int index = line.lastIndexOf('T');
+                if (index <= 0) {
+                    continue;
+                }
+                Record record = new Record(0, line.substring(0, index), null, 0, line.substring(index + 1));
+                mFavorites.put(record.key(), record);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        LogUtil.d(TAG, "导入旧收藏文件 " + mFavorites.size() + " 首");
+        rewrite();
+    }
+
+    private boolean append(char op, List<Record> records) {
+        File parent = mJournal.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            return false;
+        }
+        if (mJournal.exists() && hasTornTail(mJournal)) {
+            // 之前的追加写到一半失败，新记录不能接在后面。当前收藏已经包含这次的变化，直接重写
+            return rewrite();
+        }
+        try (FileOutputStream out = new FileOutputStream(mJournal, true)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Record record : records) {
+                writeRecord(writer, op, record);
+            }
+            writer.flush();
+            out.getFD().sync();
+            mLineCount += records.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        int garbage = mLineCount - mFavorites.size();
+        if (!mCompacting && garbage >= MIN_GARBAGE_TO_COMPACT && garbage > mFavorites.size()) {
+            mCompacting = true;
+            mCompactExecutor.execute(() -> {
+                synchronized (FavoriteJournal.this) {
+                    rewrite();
+                    mCompacting = false;
+                }
+            });
+        }
+    }
+
+    /**
+     * 把当前收藏写到临时文件，同步后替换日志。替换前崩溃时旧日志仍然完整。
+     */
+    synchronized boolean rewrite() {
+        File parent = mJournal.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            return false;
+        }
+        File temp = new File(mJournal.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp, false)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Record record : mFavorites.values()) {
+                writeRecord(writer, OP_ADD, record);
+            }
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (!temp.renameTo(mJournal)) {
+            return false;
+        }
+        LogUtil.d(TAG, "压缩收藏日志 " + mLineCount + " -> " + mFavorites.size());
+        mLineCount = mFavorites.size();
+        return true;
+    }
+
+    private static void writeRecord(Writer writer, char op, Record record) throws IOException {
+        writer.write(op);
+        writer.write(SEPARATOR);
+        writer.write(String.valueOf(record.songId));
+        writer.write(SEPARATOR);
+        writer.write(clean(record.artist));
+        writer.write(SEPARATOR);
+        writer.write(String.valueOf(record.duration));
+        writer.write(SEPARATOR);
+        writer.write(clean(record.time));
+        writer.write(SEPARATOR);
+        writer.write(clean(record.title));
+        writer.write('\n');
+    }
+
+    /**
+     * 字段里的分隔符和换行换成空格
+     */
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String titleKey(String title) {
+        return "T" + title;
+    }
+
+    /**
+     * 日志中的行数，包括失效的记录
+     */
+    synchronized int getLineCount() {
+        ensureLoaded();
+        return mLineCount;
+    }
+}
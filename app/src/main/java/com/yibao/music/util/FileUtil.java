@@ -32,12 +32,6 @@ import java.util.Locale;
 public class FileUtil {
     private static final String TAG = "====" + FileUtil.class.getSimpleName() + "    ";
 
-    public static boolean getFavoriteFile() {
-        return VersionUtil.checkAndroidVersionQ() ? FileUtil.isAndroidQFileExists(Constant.FAVORITE_FILE) : new File(Constant.FAVORITE_FILE).exists();
-
-    }
-
-
     public static long getId(String str) {
         //        String str="2017-06-12T10:22:59.890Z";
         return Long.parseLong(str.substring(11, 19)
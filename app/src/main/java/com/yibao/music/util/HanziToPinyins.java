@@ -7,6 +7,11 @@ import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
 import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
 import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @项目名： ArtisanMusic
  * @包名： com.yibao.music.util
@@ -18,37 +23,33 @@ import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombi
  */
 
 public class HanziToPinyins {
-    private static char xe = 0x4e00;
-    private static char xf = 0x9fa5;
+    private static final char xe = 0x4e00;
+    private static final char xf = 0x9fa5;
+    /**
+     * 首字母不是字母的排在最后，'~' 比所有小写字母大
+     */
+    private static final char SORT_KEY_OTHER = '~';
 
     /**
-     * 返回一个字的拼音
+     * 提前生成拼音查找表（两万多次 pinyin4j 查询），在后台线程调用，第一次排序或者显示首字母时不会卡住主线程
      */
-    private static String toPinYin(char hanzi) {
-        HanyuPinyinOutputFormat hanyuPinyin = new HanyuPinyinOutputFormat();
-        hanyuPinyin.setCaseType(HanyuPinyinCaseType.LOWERCASE);
-        hanyuPinyin.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
-        hanyuPinyin.setVCharType(HanyuPinyinVCharType.WITH_U_UNICODE);
-        String[] pinyinArray = null;
+    public static void warmUp() {
+        toPinYin(xe);
+    }
 
-        try {
-            //是否在汉字范围内
-            if (hanzi >= xe && hanzi <= xf) {
-                pinyinArray = PinyinHelper.toHanyuPinyinStringArray(hanzi, hanyuPinyin);
-            }
-        } catch (BadHanyuPinyinOutputFormatCombination e) {
-            e.printStackTrace();
-        }
-        //将获取到的拼音返回
-        if (pinyinArray != null && pinyinArray.length > 0) {
-            return pinyinArray[0];
-        } else {
-            return "#";
+    /**
+     * 返回一个字的拼音，不是汉字或者没有拼音时返回null
+     */
+    public static String toPinYin(char hanzi) {
+        if (hanzi < xe || hanzi > xf) {
+            return null;
         }
+        int index = PinyinTable.INDEX[hanzi - xe];
+        return index == 0 ? null : PinyinTable.SYLLABLES[index - 1];
     }
 
     /**
-     * 返回传入的字符串的首字母
+     * 返回传入的字符串的首字母，汉字取拼音的首字母，不在[A,Z]内的返回‘#’
      *
      * @param input i
      * @return r
@@ -57,29 +58,87 @@ public class HanziToPinyins {
         if (input == null) {
             return 0;
         }
-        StringBuilder result = null;
+        if (input.isEmpty()) {
+            return 'a';
+        }
+        char first = input.charAt(0);
+        if (first >= xe && first <= xf) {
+            String pinyin = toPinYin(first);
+            first = pinyin == null ? '#' : pinyin.charAt(0);
+        }
+        first = Character.toUpperCase(first);
+        return first >= Constant.LETTER_A && first <= Constant.LETTER_Z ? first : '#';
+    }
+
+    /**
+     * 返回传入的字符串的全拼，汉字换成不带声调的小写拼音，其他字符转成小写
+     *
+     * @param input i
+     * @return r
+     */
+    public static String stringToPinyin(String input) {
+        if (input == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(input.length() * 3);
         for (int i = 0; i < input.length(); i++) {
-            //是否在汉字范围内
-            if (input.charAt(i) >= xe && input.charAt(i) <= xf) {
-                result = (result == null ? new StringBuilder("null") : result).append(toPinYin(input.charAt(i)));
+            char c = input.charAt(i);
+            String pinyin = toPinYin(c);
+            if (pinyin != null) {
+                builder.append(pinyin);
             } else {
-                result = (result == null ? new StringBuilder("null") : result).append(input.charAt(i));
+                builder.append(Character.toLowerCase(c));
             }
         }
-        if (result != null) {
-            if (result.length() > Constant.NUMBER_FOUR) {
-                result = new StringBuilder(result.substring(4));
-            }
+        return builder.toString();
+    }
+
+    /**
+     * 排序用的key：全拼小写，首字母不在[A,Z]内的排在最后。
+     *
+     * @param input i
+     * @return r
+     */
+    public static String toSortKey(String input) {
+        String pinyin = stringToPinyin(input);
+        return stringToPinyinSpecial(input) == '#' ? SORT_KEY_OTHER + pinyin : pinyin;
+    }
+
+    /**
+     * 汉字到拼音的查找表，第一次使用时用pinyin4j生成，之后每个字的查找只是一次数组访问。
+     * INDEX 按 (字 - 0x4e00) 存放拼音在 SYLLABLES 中的下标加1，0 表示没有拼音。
+     */
+    private static final class PinyinTable {
+        private static final String[] SYLLABLES;
+        private static final char[] INDEX = new char[xf - xe + 1];
 
-            //如果首字母不在[a,z]和[A,Z]内则首字母改为‘#’
-            if (!(result.toString().toUpperCase().charAt(0) >= Constant.LETTER_A && result.toString().toUpperCase().charAt(0) <= Constant.LETTER_Z)) {
-                StringBuilder builder = new StringBuilder(result.toString());
-                builder.replace(0, 1, "#");
-                result = new StringBuilder(builder.toString());
+        static {
+            HanyuPinyinOutputFormat hanyuPinyin = new HanyuPinyinOutputFormat();
+            hanyuPinyin.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+            hanyuPinyin.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+            hanyuPinyin.setVCharType(HanyuPinyinVCharType.WITH_U_UNICODE);
+            // 不带声调的拼音只有四百多个，每个只保存一份
+            Map<String, Character> syllableMap = new HashMap<>(512);
+            List<String> syllables = new ArrayList<>(512);
+            for (char hanzi = xe; hanzi <= xf; hanzi++) {
+                String[] pinyinArray = null;
+                try {
+                    pinyinArray = PinyinHelper.toHanyuPinyinStringArray(hanzi, hanyuPinyin);
+                } catch (BadHanyuPinyinOutputFormatCombination e) {
+                    e.printStackTrace();
+                }
+                if (pinyinArray != null && pinyinArray.length > 0) {
+                    Character index = syllableMap.get(pinyinArray[0]);
+                    if (index == null) {
+                        syllables.add(pinyinArray[0]);
+                        index = (char) syllables.size();
+                        syllableMap.put(pinyinArray[0], index);
+                    }
+                    INDEX[hanzi - xe] = index;
+                }
             }
-            return result.toString().toUpperCase().charAt(0);
+            SYLLABLES = syllables.toArray(new String[0]);
         }
-        return 'a';
     }
 
 }
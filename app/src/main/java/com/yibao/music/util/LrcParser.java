@@ -0,0 +1,255 @@
+package com.yibao.music.util;
+
+import com.yibao.music.model.LyricTimeline;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   LrcParser
+ * @ Des:    LRC歌词解析。整个文件一次读入char[]，逐字符扫描，不使用split和正则，每行只记录时间和内容位置。
+ * 支持一行多个时间标签、[offset:]、[ti:]、[ar:]，以及 mm:ss、mm:ss.xx、mm:ss.xxx、mm:ss:xx 几种时间格式。
+ */
+public class LrcParser {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NOT_TIME = -1;
+
+    private LrcParser() {
+        throw new UnsupportedOperationException("cannot be instantiated");
+    }
+
+    public static LyricTimeline parse(File file) throws IOException {
+        char[] buf = new char[(int) Math.max(INITIAL_CAPACITY, file.length())];
+        int length = 0;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            int n;
+            while ((n = reader.read(buf, length, buf.length - length)) > 0) {
+                length += n;
+                if (length == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length << 1);
+                }
+            }
+        }
+        // utf-8 的中文一个字占三个字节，按文件长度分配的buffer会偏大
+        return parse(length == buf.length ? buf : Arrays.copyOf(buf, length), length);
+    }
+
+    public static LyricTimeline parse(char[] buf, int length) {
+        int[] times = new int[INITIAL_CAPACITY];
+        int[] starts = new int[INITIAL_CAPACITY];
+        int[] ends = new int[INITIAL_CAPACITY];
+        int[] lineTimes = new int[4];
+        int size = 0;
+        int offset = 0;
+        String title = null;
+        String artist = null;
+
+        int pos = 0;
+        if (length > 0 && buf[0] == '\uFEFF') {
+            pos = 1;
+        }
+        while (pos < length) {
+            int lineEnd = pos;
+            while (lineEnd < length && buf[lineEnd] != '\n' && buf[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            int lineTimeCount = 0;
+            int p = pos;
+            while (p < lineEnd && buf[p] == '[') {
+                int close = indexOf(buf, ']', p + 1, lineEnd);
+                if (close < 0) {
+                    break;
+                }
+                int time = parseTime(buf, p + 1, close);
+                if (time != NOT_TIME) {
+                    if (lineTimeCount == lineTimes.length) {
+                        lineTimes = Arrays.copyOf(lineTimes, lineTimeCount << 1);
+                    }
+                    lineTimes[lineTimeCount++] = time;
+                } else {
+                    int colon = indexOf(buf, ':', p + 1, close);
+                    if (colon < 0) {
+                        // 不是标签，剩下的都当作歌词内容
+                        break;
+                    }
+                    if (isKey(buf, p + 1, colon, "offset")) {
+                        offset = parseSignedInt(buf, colon + 1, close);
+                    } else if (isKey(buf, p + 1, colon, "ti")) {
+                        title = trimmed(buf, colon + 1, close);
+                    } else if (isKey(buf, p + 1, colon, "ar")) {
+                        artist = trimmed(buf, colon + 1, close);
+                    }
+                }
+                p = close + 1;
+            }
+            // 没有内容的时间行不显示
+            if (p < lineEnd) {
+                if (size + lineTimeCount > times.length) {
+                    int capacity = Math.max(times.length << 1, size + lineTimeCount);
+                    times = Arrays.copyOf(times, capacity);
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                }
+                for (int i = 0; i < lineTimeCount; i++) {
+                    times[size] = lineTimes[i];
+                    starts[size] = p;
+                    ends[size] = lineEnd;
+                    size++;
+                }
+            }
+            pos = lineEnd;
+            if (pos < length && buf[pos] == '\r') {
+                pos++;
+            }
+            if (pos < length && buf[pos] == '\n') {
+                pos++;
+            }
+        }
+
+        if (offset != 0) {
+            // offset 为正表示歌词提前显示
+            for (int i = 0; i < size; i++) {
+                times[i] = Math.max(0, times[i] - offset);
+            }
+        }
+        if (!isSorted(times, size)) {
+            sortByTime(times, starts, ends, size);
+        }
+        return new LyricTimeline(buf, times, starts, ends, size, offset, title, artist);
+    }
+
+    /**
+     * 解析 mm:ss、mm:ss.x(x)(x) 或 mm:ss:xx，不是时间格式返回 NOT_TIME。
+     */
+    private static int parseTime(char[] buf, int from, int to) {
+        int p = from;
+        int minutes = 0;
+        int digits = 0;
+        while (p < to && isDigit(buf[p])) {
+            minutes = minutes * 10 + (buf[p++] - '0');
+            digits++;
+        }
+        if (digits == 0 || p >= to || buf[p] != ':') {
+            return NOT_TIME;
+        }
+        p++;
+        int seconds = 0;
+        digits = 0;
+        while (p < to && isDigit(buf[p])) {
+            seconds = seconds * 10 + (buf[p++] - '0');
+            digits++;
+        }
+        if (digits == 0 || digits > 2) {
+            return NOT_TIME;
+        }
+        int millis = 0;
+        if (p < to && (buf[p] == '.' || buf[p] == ':')) {
+            p++;
+            int scale = 100;
+            while (p < to && isDigit(buf[p])) {
+                // 只取前三位，超出毫秒的精度忽略
+                if (scale > 0) {
+                    millis += (buf[p] - '0') * scale;
+                    scale /= 10;
+                }
+                p++;
+            }
+        }
+        if (p != to) {
+            return NOT_TIME;
+        }
+        return (minutes * 60 + seconds) * 1000 + millis;
+    }
+
+    private static int parseSignedInt(char[] buf, int from, int to) {
+        int p = skipSpace(buf, from, to);
+        boolean negative = false;
+        if (p < to && (buf[p] == '-' || buf[p] == '+')) {
+            negative = buf[p] == '-';
+            p++;
+        }
+        int value = 0;
+        while (p < to && isDigit(buf[p])) {
+            value = value * 10 + (buf[p++] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isKey(char[] buf, int from, int to, String key) {
+        from = skipSpace(buf, from, to);
+        while (to > from && buf[to - 1] == ' ') {
+            to--;
+        }
+        if (to - from != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (Character.toLowerCase(buf[from + i]) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String trimmed(char[] buf, int from, int to) {
+        from = skipSpace(buf, from, to);
+        while (to > from && buf[to - 1] == ' ') {
+            to--;
+        }
+        return new String(buf, from, to - from);
+    }
+
+    private static int skipSpace(char[] buf, int from, int to) {
+        while (from < to && buf[from] == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int indexOf(char[] buf, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSorted(int[] times, int size) {
+        for (int i = 1; i < size; i++) {
+            if (times[i] < times[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一行多个时间标签时会乱序。时间放高位、原下标放低位排序，时间相同的行保持文件中的顺序。
+     */
+    private static void sortByTime(int[] times, int[] starts, int[] ends, int size) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) times[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] oldStarts = Arrays.copyOf(starts, size);
+        int[] oldEnds = Arrays.copyOf(ends, size);
+        for (int i = 0; i < size; i++) {
+            int index = (int) keys[i];
+            times[i] = (int) (keys[i] >>> 32);
+            starts[i] = oldStarts[index];
+            ends[i] = oldEnds[index];
+        }
+    }
+}
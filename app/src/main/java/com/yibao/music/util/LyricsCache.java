@@ -0,0 +1,105 @@
+package com.yibao.music.util;
+
+import android.util.LruCache;
+
+import com.yibao.music.model.LyricTimeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ Author: Luoshipeng
+ * @ Name:   LyricsCache
+ * @ Des:    进程内解析后歌词的LRU缓存，以歌词文件路径（歌名$$歌手）为key，按歌词字符总数限制大小。
+ * 文件修改时间或长度变化时重新解析，保存和删除歌词时主动清除。
+ */
+public class LyricsCache {
+    private static final String TAG = "====" + LyricsCache.class.getSimpleName() + "    ";
+    /**
+     * 缓存的歌词字符总数上限，约1MB内存。
+     */
+    private static final int MAX_CHARS = 512 * 1024;
+    private static volatile LyricsCache instance;
+
+    private final LruCache<String, Entry> mCache;
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    private LyricsCache() {
+        mCache = new LruCache<String, Entry>(MAX_CHARS) {
+            @Override
+            protected int sizeOf(String key, Entry value) {
+                return Math.max(1, value.timeline.getTextLength());
+            }
+        };
+    }
+
+    public static LyricsCache getInstance() {
+        if (instance == null) {
+            synchronized (LyricsCache.class) {
+                if (instance == null) {
+                    instance = new LyricsCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 缓存中的歌词和文件一致时直接返回，否则读取文件重新解析。
+     *
+     * @param file 歌词文件
+     * @return 歌词时间轴
+     * @throws IOException 文件不存在或读取出错
+     */
+    public LyricTimeline get(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Entry entry = mCache.get(key);
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            mHitCount.incrementAndGet();
+            return entry.timeline;
+        }
+        mMissCount.incrementAndGet();
+        LyricTimeline timeline = LrcParser.parse(file);
+        mCache.put(key, new Entry(timeline, lastModified, length));
+        LogUtil.d(TAG, "解析歌词 " + key + "  " + timeline.size() + " 行");
+        return timeline;
+    }
+
+    public void remove(File file) {
+        mCache.remove(file.getAbsolutePath());
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * 直接返回缓存歌词的次数
+     */
+    public int hitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * 读取文件重新解析的次数，包括缓存中没有和文件已经变化两种情况
+     */
+    public int missCount() {
+        return mMissCount.get();
+    }
+
+    private static class Entry {
+        private final LyricTimeline timeline;
+        private final long lastModified;
+        private final long length;
+
+        private Entry(LyricTimeline timeline, long lastModified, long length) {
+            this.timeline = timeline;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
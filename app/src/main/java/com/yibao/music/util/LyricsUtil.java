@@ -9,7 +9,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,6 +47,7 @@ public class LyricsUtil {
         String path = Constant.MUSIC_LYRICS_ROOT + songName + "$$" + songArtist + ".lrc";
         LogUtil.d(TAG, " 删除当前 歌词    " + path);
         File file = new File(path);
+        LyricsCache.getInstance().remove(file);
         if (file.exists()) {
             file.delete();
         }
@@ -66,6 +66,7 @@ public class LyricsUtil {
             if (lylist.size() < 2) {
                 LogUtil.d(TAG, " 歌词长度小于4的 : " + "\n" + f.getAbsolutePath());
                 nu++;
+                LyricsCache.getInstance().remove(f);
                 f.delete();
             }
 
@@ -111,84 +112,16 @@ public class LyricsUtil {
      * @return 返回歌词List
      */
     public static List<MusicLyricBean> getLyricList(MusicBean musicBean) {
-        List<MusicLyricBean> lrcList = new ArrayList<>();
-
+        List<MusicLyricBean> lrcList;
         try {
             File file = FileUtil.getLyricsFile(musicBean.getTitle(), musicBean.getArtist());
             LogUtil.d(TAG, file.getAbsolutePath());
-            String charsetName = "utf-8";
-            br = new BufferedReader(new InputStreamReader(new FileInputStream(file), charsetName));
-            String line = br.readLine();
-            while (line != null) {
-                ArrayList<MusicLyricBean> been = parseLine(line);
-                lrcList.addAll(been);
-                if (br != null) {
-                    line = br.readLine();
-                }
-            }
-            br.close();
+            lrcList = LyricsCache.getInstance().get(file).toLyricList();
         } catch (IOException e) {
             e.printStackTrace();
+            lrcList = new ArrayList<>();
             lrcList.add(new MusicLyricBean(0, "歌词加载出错"));
-        } finally {
-            try {
-                if (br != null) {
-                    br.close();
-                    br = null;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
         }
-        Collections.sort(lrcList);
         return lrcList;
     }
-
-
-    private static ArrayList<MusicLyricBean> parseLine(String str) {
-        ArrayList<MusicLyricBean> list = new ArrayList<>();
-        String[] arr = str.split("]");
-        String content = arr[arr.length - 1];
-        for (int i = 0; i < arr.length - 1; i++) {
-            int startTime = parseTime(arr[i]);
-            MusicLyricBean lrcBean = new MusicLyricBean(startTime, content);
-            list.add(lrcBean);
-        }
-        return list;
-    }
-
-    /**
-     * 对歌词时间可能出现汉字或英文字母做了处理
-     *
-     * @param s s
-     * @return d
-     */
-    private static int parseTime(String s) {
-        int mtime = 0;
-        boolean containsChinese = isContainsEnglishAndChinese(s);
-        String braces = "[";
-        if (containsChinese) {
-            LogUtil.d(TAG, "============== 歌词时间解析异常！================");
-            return 0;
-        } else {
-            String[] arr = s.split(":");
-            String min = arr[0].substring(1);
-            if (min.contains(braces)) {
-                min = "00";
-            }
-            if (arr.length > 1) {
-                String sec = arr[1];
-                boolean b = isContainsEnglishAndChinese(sec);
-                mtime = (int) (Integer.parseInt(min) * 60 * 1000 + Float.parseFloat(b ? "1" : sec) * 1000);
-            }
-            return arr.length > 1 ? mtime : 1;
-        }
-
-    }
-
-    private static boolean isContainsEnglishAndChinese(String str) {
-        String regex = "^[a-z0-9A-Z\\\\u4e00-\u9fa5]+$";
-        return str.matches(regex);
-    }
-}
\ No newline at end of file
+}
@@ -7,7 +7,9 @@ import com.yibao.music.model.greendao.MusicBeanDao;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
@@ -24,16 +26,32 @@ import io.reactivex.schedulers.Schedulers;
 public class MusicDaoUtil {
 
 
-    public static void setMusicListFlag(PlayListBean playListBean) {
+    /**
+     * 从数据库删除歌曲，同时更新搜索表和艺术家、专辑汇总表，在写入线程的同一个事务里完成。
+     */
+    public static CompletableFuture<Void> deleteMusic(MusicBean musicBean) {
         MusicBeanDao musicDao = MusicApplication.getInstance().getMusicDao();
-        MusicApplication.getInstance().getPlayListDao().delete(playListBean);
-        ThreadPoolProxyFactory.newInstance().execute(() -> {
+        return MusicDbWriter.getInstance().submit(() -> {
+            musicDao.delete(musicBean);
+            MusicSearchUtil.remove(musicDao.getDatabase(), Collections.singletonList(musicBean.getId()));
+            MusicSummaryUtil.update(musicDao.getDatabase(), Collections.singletonList(musicBean.getArtist()),
+                    Collections.singletonList(musicBean.getAlbum()));
+        });
+    }
+
+    /**
+     * 删除播放列表，列表中的歌曲恢复为不在列表中
+     */
+    public static CompletableFuture<Void> setMusicListFlag(PlayListBean playListBean) {
+        MusicBeanDao musicDao = MusicApplication.getInstance().getMusicDao();
+        return MusicDbWriter.getInstance().submit(() -> {
+            MusicApplication.getInstance().getPlayListDao().delete(playListBean);
             List<MusicBean> musicBeanList = musicDao.queryBuilder().where(MusicBeanDao.Properties.PlayListFlag.eq(playListBean.getTitle())).build().list();
             for (MusicBean musicBean : musicBeanList) {
                 musicBean.setPlayListFlag(Constant.PLAY_LIST_BACK_FLAG);
                 musicBean.setAddListTime(Constant.NUMBER_ZERO);
-                musicDao.update(musicBean);
             }
+            musicDao.updateInTx(musicBeanList);
         });
     }
 
@@ -0,0 +1,318 @@
+package com.yibao.music.util;
+
+import android.os.SystemClock;
+
+import com.yibao.music.MusicApplication;
+
+import org.greenrobot.greendao.AbstractDao;
+import org.greenrobot.greendao.database.Database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   MusicDbWriter
+ * @ Des:    数据库的唯一写入者。调用方提交更新、删除或者自定义的写操作后立即返回，写入线程把排队的操作合并到一个事务里执行，
+ * 同一行还没有写入的多次更新只保留最后一次。每次提交返回一个 CompletableFuture，所在的事务提交（或者失败）后结束，
+ * 同一个线程提交的操作按顺序完成。写入线程是 ThreadPoolProxyFactory.getDbWriter()。
+ */
+public class MusicDbWriter {
+    private static final String TAG = "====" + MusicDbWriter.class.getSimpleName() + "    ";
+    /**
+     * 一个事务最多执行的操作数，避免长时间占用写锁
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+    private static volatile MusicDbWriter instance;
+
+    private final Database mDb;
+    private final ThreadPoolProxy mWriter;
+    private final ArrayDeque<Op<?>> mPending = new ArrayDeque<>();
+    /**
+     * 还在排队、可以合并的更新。删除和自定义操作之前的更新不再合并，合并不会越过它们。
+     */
+    private final HashMap<String, UpdateOp<?>> mMergeable = new HashMap<>();
+    private boolean mFlushScheduled;
+    private volatile Thread mWriterThread;
+
+    private long mSubmitCount;
+    private long mMergedCount;
+    private long mBatchCount;
+    private long mFailedBatchCount;
+    private long mMaxBatchSize;
+    private long mTotalBatchMs;
+
+    private abstract static class Op<R> {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+
+        abstract R apply() throws Exception;
+    }
+
+    private static final class UpdateOp<T> extends Op<Void> {
+        final AbstractDao<T, ?> dao;
+        final String key;
+        T entity;
+
+        UpdateOp(AbstractDao<T, ?> dao, String key, T entity) {
+            this.dao = dao;
+            this.key = key;
+            this.entity = entity;
+        }
+
+        @Override
+        Void apply() {
+            dao.update(entity);
+            return null;
+        }
+    }
+
+    private static final class DeleteOp<T> extends Op<Void> {
+        final AbstractDao<T, ?> dao;
+        final T entity;
+
+        DeleteOp(AbstractDao<T, ?> dao, T entity) {
+            this.dao = dao;
+            this.entity = entity;
+        }
+
+        @Override
+        Void apply() {
+            dao.delete(entity);
+            return null;
+        }
+    }
+
+    private static final class CallOp<R> extends Op<R> {
+        final Callable<R> callable;
+
+        CallOp(Callable<R> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        R apply() throws Exception {
+            return callable.call();
+        }
+    }
+
+    MusicDbWriter(Database db, ThreadPoolProxy writer) {
+        mDb = db;
+        mWriter = writer;
+    }
+
+    public static MusicDbWriter getInstance() {
+        if (instance == null) {
+            synchronized (MusicDbWriter.class) {
+                if (instance == null) {
+                    instance = new MusicDbWriter(MusicApplication.getInstance().getMusicDao().getDatabase(),
+                            ThreadPoolProxyFactory.getDbWriter());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 更新一行。同一行前一次提交的更新还没有写入时直接替换成这次的数据，两次提交返回同一个 future。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Void> update(AbstractDao<T, ?> dao, T entity) {
+        String key = dao.getTablename() + ':' + dao.getKey(entity);
+        UpdateOp<T> op;
+        synchronized (mPending) {
+            mSubmitCount++;
+            op = (UpdateOp<T>) mMergeable.get(key);
+            if (op != null) {
+                op.entity = entity;
+                mMergedCount++;
+                return op.future;
+            }
+            op = new UpdateOp<>(dao, key, entity);
+            if (!isWriterThread()) {
+                mMergeable.put(key, op);
+                return enqueue(op);
+            }
+        }
+        return runNow(op);
+    }
+
+    public <T> CompletableFuture<Void> delete(AbstractDao<T, ?> dao, T entity) {
+        return submitBarrier(new DeleteOp<>(dao, entity));
+    }
+
+    /**
+     * 自定义的写操作，和前后的操作在同一个事务里执行。抛出异常时这个事务回滚，其余的操作逐个重新执行，
+     * 所以里面只做数据库操作，文件之类的后续处理放到返回的 future 完成之后。
+     */
+    public CompletableFuture<Void> submit(Runnable mutation) {
+        return call(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * 有返回值的写操作，规则和 submit 相同
+     */
+    public <R> CompletableFuture<R> call(Callable<R> callable) {
+        return submitBarrier(new CallOp<>(callable));
+    }
+
+    /**
+     * 之前提交的操作全部写入后完成
+     */
+    public CompletableFuture<Void> flush() {
+        return submit(() -> {
+        });
+    }
+
+    private <R> CompletableFuture<R> submitBarrier(Op<R> op) {
+        synchronized (mPending) {
+            mSubmitCount++;
+            if (!isWriterThread()) {
+                mMergeable.clear();
+                return enqueue(op);
+            }
+        }
+        return runNow(op);
+    }
+
+    /**
+     * 在写入线程里提交（比如自定义操作里又调用了 update）时直接执行，已经在外层的事务中
+     */
+    private <R> CompletableFuture<R> runNow(Op<R> op) {
+        try {
+            op.future.complete(op.apply());
+        } catch (Throwable e) {
+            op.future.completeExceptionally(e);
+        }
+        return op.future;
+    }
+
+    private boolean isWriterThread() {
+        return Thread.currentThread() == mWriterThread;
+    }
+
+    private <R> CompletableFuture<R> enqueue(Op<R> op) {
+        mPending.add(op);
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            mWriter.execute(this::drain);
+        }
+        return op.future;
+    }
+
+    /**
+     * 写入线程：取出排队的操作，一批一个事务，直到队列为空。执行期间提交的操作进入下一批。
+     */
+    private void drain() {
+        mWriterThread = Thread.currentThread();
+        try {
+            List<Op<?>> batch;
+            while ((batch = takeBatch()) != null) {
+                runBatch(batch);
+            }
+        } finally {
+            mWriterThread = null;
+        }
+    }
+
+    private List<Op<?>> takeBatch() {
+        synchronized (mPending) {
+            if (mPending.isEmpty()) {
+                mFlushScheduled = false;
+                return null;
+            }
+            List<Op<?>> batch = new ArrayList<>(Math.min(mPending.size(), MAX_BATCH_SIZE));
+            while (!mPending.isEmpty() && batch.size() < MAX_BATCH_SIZE) {
+                Op<?> op = mPending.poll();
+                if (op instanceof UpdateOp) {
+                    // 已经取出的更新不能再合并
+                    mMergeable.remove(((UpdateOp<?>) op).key);
+                }
+                batch.add(op);
+            }
+            return batch;
+        }
+    }
+
+    private void runBatch(List<Op<?>> batch) {
+        long startTime = SystemClock.elapsedRealtime();
+        List<Object> results = new ArrayList<>(batch.size());
+        boolean success = false;
+        mDb.beginTransaction();
+        try {
+            for (Op<?> op : batch) {
+                results.add(op.apply());
+            }
+            mDb.setTransactionSuccessful();
+            success = true;
+        } catch (Throwable e) {
+            LogUtil.d(TAG, "批量写入失败，逐个重新执行  " + e);
+        } finally {
+            mDb.endTransaction();
+        }
+        long costTime = SystemClock.elapsedRealtime() - startTime;
+        synchronized (mPending) {
+            mBatchCount++;
+            mTotalBatchMs += costTime;
+            mMaxBatchSize = Math.max(mMaxBatchSize, batch.size());
+            if (!success) {
+                mFailedBatchCount++;
+            }
+        }
+        if (success) {
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), results.get(i));
+            }
+        } else {
+            for (Op<?> op : batch) {
+                runAlone(op);
+            }
+        }
+    }
+
+    /**
+     * 单独一个事务执行，失败只影响自己
+     */
+    private <R> void runAlone(Op<R> op) {
+        R result = null;
+        Throwable error = null;
+        mDb.beginTransaction();
+        try {
+            result = op.apply();
+            mDb.setTransactionSuccessful();
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            mDb.endTransaction();
+        }
+        if (error == null) {
+            op.future.complete(result);
+        } else {
+            LogUtil.d(TAG, "写入失败  " + error);
+            op.future.completeExceptionally(error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> void complete(Op<R> op, Object result) {
+        op.future.complete((R) result);
+    }
+
+    public String getStats() {
+        synchronized (mPending) {
+            return "提交 " + mSubmitCount + "  合并 " + mMergedCount + "  事务 " + mBatchCount + "  失败 " + mFailedBatchCount
+                    + "  最大批次 " + mMaxBatchSize + "  平均事务耗时 " + (mBatchCount == 0 ? 0 : mTotalBatchMs / mBatchCount)
+                    + " ms  排队 " + mPending.size();
+        }
+    }
+
+    public void logStats() {
+        LogUtil.d(TAG, getStats());
+    }
+}
@@ -4,16 +4,16 @@ import android.database.Cursor;
 import android.provider.MediaStore;
 
 import com.yibao.music.MusicApplication;
-import com.yibao.music.model.AlbumInfo;
-import com.yibao.music.model.ArtistInfo;
 import com.yibao.music.model.MusicBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+
+import org.greenrobot.greendao.query.QueryBuilder;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableOnSubscribe;
@@ -36,36 +36,81 @@ public class MusicListUtil {
      */
     private static final long CONFIG_MUSIC_DURATION = 10800;
 
+    /**
+     * 扫描时只查询用到的列
+     */
+    private static final String[] MUSIC_PROJECTION = {
+            MediaStore.Audio.Media._ID,
+            MediaStore.Audio.Media.TITLE,
+            MediaStore.Audio.Media.ARTIST,
+            MediaStore.Audio.Media.ALBUM,
+            MediaStore.Audio.Media.ALBUM_ID,
+            MediaStore.Audio.Media.DURATION,
+            MediaStore.Audio.Media.DATA,
+            MediaStore.Audio.Media.DATE_ADDED,
+            MediaStore.Audio.Media.MIME_TYPE,
+            MediaStore.Audio.Media.YEAR};
+    /**
+     * 每次回调的歌曲数量
+     */
+    public static final int SCAN_BATCH_SIZE = 500;
+
     /**
      * 从本地获取歌曲的信息，保存在List当中
      *
      * @return d
      */
     public static List<MusicBean> getMusicDataList() {
-        SpUtils sp = new SpUtils(MusicApplication.getInstance(), Constant.MUSIC_SETTING);
-        boolean aBooleanDuration = sp.getBoolean(Constant.MUSIC_DURATION_FLAG, false);
-        boolean aBooleanFileSize = sp.getBoolean(Constant.MUSIC_FILE_SIZE_FLAG, false);
+        return getMusicDataList(null, null);
+    }
+
+    /**
+     * 从本地获取符合条件的歌曲信息，增量同步时只查询变化的歌曲。
+     *
+     * @param selection     查询条件
+     * @param selectionArgs 条件参数
+     * @return d
+     */
+    public static List<MusicBean> getMusicDataList(String selection, String[] selectionArgs) {
         List<MusicBean> musicInfo = new ArrayList<>();
+        scanMusic(selection, selectionArgs, SCAN_BATCH_SIZE, (musicList, scannedCount, totalCount) -> musicInfo.addAll(musicList));
+        LogUtil.d(TAG, "歌曲数量 ========== " + musicInfo.size());
+        return musicInfo;
+    }
+
+    /**
+     * 边读边回调地扫描媒体库，不需要先把所有歌曲读进一个List。时长和大小的过滤放在查询条件里，由媒体库完成。
+     *
+     * @param selection     查询条件，可以为null
+     * @param selectionArgs 条件参数
+     * @param batchSize     每次回调的歌曲数量
+     * @param listener      每读满一批回调一次，最后不足一批的也会回调
+     */
+    public static void scanMusic(String selection, String[] selectionArgs, int batchSize, OnMusicScanListener listener) {
         Cursor cursor = MusicApplication.getInstance().getApplicationContext().getContentResolver()
                 .query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                        null,
-                        null,
-                        null,
+                        MUSIC_PROJECTION,
+                        appendFilterSelection(selection),
+                        selectionArgs,
                         MediaStore.Audio.Media.DEFAULT_SORT_ORDER);
-        if (cursor != null) {
+        if (cursor == null) {
+            return;
+        }
+        try {
             int musicId = cursor.getColumnIndex(MediaStore.Audio.Media._ID);
             int mTitle = cursor.getColumnIndex(MediaStore.Audio.Media.TITLE);
             int mArtist = cursor.getColumnIndex(MediaStore.Audio.Media.ARTIST);
             int mAlbum = cursor.getColumnIndex(MediaStore.Audio.Media.ALBUM);
             int mAlbumId = cursor.getColumnIndex(MediaStore.Audio.Media.ALBUM_ID);
             int mDuration = cursor.getColumnIndex(MediaStore.Audio.Media.DURATION);
-            int mSize = cursor.getColumnIndex(MediaStore.Audio.Media.SIZE);
             int mUrl = cursor.getColumnIndex(MediaStore.Audio.Media.DATA);
             int addDed = cursor.getColumnIndex(MediaStore.Audio.Media.DATE_ADDED);
             int qualityType = cursor.getColumnIndex(MediaStore.Audio.Media.MIME_TYPE);
-            int issueYear = cursor.getColumnIndex(MediaStore.Audio.Media.YEAR);
-            for (int i = 0, p = cursor.getCount(); i < p; i++) {
-                cursor.moveToNext();
+            int mIssueYear = cursor.getColumnIndex(MediaStore.Audio.Media.YEAR);
+            int totalCount = cursor.getCount();
+            int scannedCount = 0;
+            List<MusicBean> musicInfo = new ArrayList<>(Math.min(batchSize, totalCount));
+            while (cursor.moveToNext()) {
                 MusicBean info = new MusicBean();
                 // 音乐id
                 long mId = cursor.getLong(musicId);
@@ -80,41 +125,86 @@ public class MusicListUtil {
                 long duration = cursor.getInt(mDuration);
                 // 添加时间
                 int addTime = (int) cursor.getLong(addDed);
-                // 文件大小
-                long size = cursor.getLong(mSize);
                 // 文件路径
                 String url = cursor.getString(mUrl);
-                if (aBooleanDuration && aBooleanFileSize) {
-                    if (size > CONFIG_MUSIC_FILE_SIZE && duration > CONFIG_MUSIC_DURATION) {
-                        addMusicData(musicInfo, qualityType, issueYear, info, mId, title, artist, album, albumId, duration, addTime, url);
-                    }
-
-                } else if (aBooleanDuration) {
-                    if (duration > CONFIG_MUSIC_DURATION) {
-                        addMusicData(musicInfo, qualityType, issueYear, info, mId, title, artist, album, albumId, duration, addTime, url);
-                    } else {
-                        LogUtil.d(TAG, "little time  " + duration);
-                    }
-                } else if (aBooleanFileSize) {
-                    if (size > CONFIG_MUSIC_FILE_SIZE) {
-                        addMusicData(musicInfo, qualityType, issueYear, info, mId, title, artist, album, albumId, duration, addTime, url);
-                    }
-                } else {
-                    addMusicData(musicInfo, qualityType, issueYear, info, mId, title, artist, album, albumId, duration, addTime, url);
-
+                // 发行年份
+                int issueYear = cursor.getInt(mIssueYear);
+                addMusicData(musicInfo, qualityType, issueYear, info, mId, title, artist, album, albumId, duration, addTime, url);
+                scannedCount++;
+                if (musicInfo.size() == batchSize) {
+                    listener.onMusicScanned(musicInfo, scannedCount, totalCount);
+                    musicInfo = new ArrayList<>(batchSize);
                 }
+            }
+            if (musicInfo.size() > 0) {
+                listener.onMusicScanned(musicInfo, scannedCount, totalCount);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public interface OnMusicScanListener {
+        /**
+         * 读完一批歌曲
+         *
+         * @param musicList    这一批歌曲
+         * @param scannedCount 已读取的数量
+         * @param totalCount   符合条件的歌曲总数
+         */
+        void onMusicScanned(List<MusicBean> musicList, int scannedCount, int totalCount);
+    }
 
+    /**
+     * 媒体库中所有符合过滤条件的歌曲id，只查询id一列。
+     */
+    public static Set<Long> getMusicIdSet() {
+        Set<Long> idSet = new HashSet<>();
+        Cursor cursor = MusicApplication.getInstance().getApplicationContext().getContentResolver()
+                .query(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+                        new String[]{MediaStore.Audio.Media._ID},
+                        appendFilterSelection(null),
+                        null,
+                        null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                idSet.add(cursor.getLong(0));
             }
             cursor.close();
         }
-        LogUtil.d(TAG, "歌曲数量 ========== " + musicInfo.size());
-        return musicInfo;
+        return idSet;
+    }
+
+    /**
+     * 根据设置在查询条件中过滤掉时长过短或文件过小的音乐
+     */
+    private static String appendFilterSelection(String selection) {
+        SpUtils sp = new SpUtils(MusicApplication.getInstance(), Constant.MUSIC_SETTING);
+        StringBuilder builder = new StringBuilder();
+        if (selection != null) {
+            builder.append('(').append(selection).append(')');
+        }
+        if (sp.getBoolean(Constant.MUSIC_DURATION_FLAG, false)) {
+            appendCondition(builder, MediaStore.Audio.Media.DURATION + " > " + CONFIG_MUSIC_DURATION);
+        }
+        if (sp.getBoolean(Constant.MUSIC_FILE_SIZE_FLAG, false)) {
+            appendCondition(builder, MediaStore.Audio.Media.SIZE + " > " + CONFIG_MUSIC_FILE_SIZE);
+        }
+        return builder.length() == 0 ? null : builder.toString();
+    }
+
+    private static void appendCondition(StringBuilder builder, String condition) {
+        if (builder.length() > 0) {
+            builder.append(" AND ");
+        }
+        builder.append(condition);
     }
 
     private static void addMusicData(List<MusicBean> musicInfo, int qualityType, int issueYear, MusicBean info, long mId, String title, String artist, String album, long albumId, long duration, int addTime, String url) {
         String firstChar = String.valueOf(HanziToPinyins.stringToPinyinSpecial(title));
         info.setMusicQualityType(qualityType);
         info.setFirstChar(firstChar);
+        info.setSortKey(HanziToPinyins.toSortKey(title));
         info.setId(mId);
         info.setTitle(title);
         info.setArtist(artist);
@@ -129,116 +219,14 @@ public class MusicListUtil {
 
 
     /**
-     * 按ABCD 首字母排序
+     * 按歌名的全拼排序，排序在数据库中按 SORT_KEY 索引完成，相同时按id，保证播放列表和界面的顺序一致。
      *
-     * @param musicList d
+     * @param queryBuilder 已经设置好查询条件的queryBuilder
      */
-    public static List<MusicBean> sortByAbc(List<MusicBean> musicList) {
-        String str = "#";
-        musicList.sort((m1, m2) -> sortAbc(str, m1, m2));
-        return musicList;
-    }
-
-    private static int sortAbc(String str, MusicBean m1, MusicBean m2) {
-        if (str.equals(m2.getFirstChar())) {
-            return -1;
-        }
-        if (str.equals(m1.getFirstChar())) {
-            return 1;
-        }
-        return m1.getFirstChar().compareTo(m2.getFirstChar());
-    }
-
-
-    //  按艺术家分类
-
-    public static List<ArtistInfo> getArtistList(List<MusicBean> list) {
-        Map<String, List<MusicBean>> musicMap = new HashMap<>(16);
-        ArrayList<ArtistInfo> singerInfoList = new ArrayList<>();
-
-        for (MusicBean musicBean : list) {
-            forArtistList(musicBean, musicMap);
-        }
-        for (Map.Entry<String, List<MusicBean>> entry : musicMap.entrySet()) {
-            forArtistMap(singerInfoList, entry.getKey(), entry.getValue());
-        }
-
-
-        Collections.sort(singerInfoList);
-        return singerInfoList;
+    public static List<MusicBean> orderByAbc(QueryBuilder<MusicBean> queryBuilder) {
+        return queryBuilder.orderAsc(MusicBeanDao.Properties.SortKey, MusicBeanDao.Properties.Id).build().list();
     }
 
-    private static void forArtistMap(ArrayList<ArtistInfo> singerInfoList, String s, List<MusicBean> musicBeanList) {
-        ArtistInfo artistInfo = new ArtistInfo();
-        artistInfo.setArtist(s);
-        artistInfo.setSongCount(musicBeanList.size());
-        artistInfo.setAlbumName(musicBeanList.get(0).getAlbum());
-        artistInfo.setYear(musicBeanList.get(0).getIssueYear());
-        artistInfo.setAlbumId(musicBeanList.get(0).getAlbumId());
-        String firstChar = String.valueOf(HanziToPinyins.stringToPinyinSpecial(s));
-        artistInfo.setFirstChar(firstChar);
-        singerInfoList.add(artistInfo);
-    }
-
-    private static void forArtistList(MusicBean musicInfo, Map<String, List<MusicBean>> musicMap) {
-        if (musicMap.containsKey(musicInfo.getArtist())) {
-            ArrayList<MusicBean> singerList = (ArrayList<MusicBean>) musicMap.get(musicInfo.getArtist());
-            if (singerList != null) {
-                singerList.add(musicInfo);
-            }
-        } else {
-            ArrayList<MusicBean> tempList = new ArrayList<>();
-            tempList.add(musicInfo);
-            musicMap.put(musicInfo.getArtist(), tempList);
-
-        }
-    }
-
-
-    // 按专辑分组
-
-    public static List<AlbumInfo> getAlbumList(List<MusicBean> list) {
-        Map<String, List<MusicBean>> musicMap = new HashMap<>(16);
-        List<AlbumInfo> albumInfoList = new ArrayList<>();
-
-        for (MusicBean musicInfo : list) {
-            forAlbumList(musicMap, musicInfo);
-        }
-        for (Map.Entry<String, List<MusicBean>> entry : musicMap.entrySet()) {
-            forAlbumMap(albumInfoList, entry.getKey(), entry.getValue());
-        }
-
-
-        Collections.sort(albumInfoList);
-        return albumInfoList;
-    }
-
-    private static void forAlbumMap(List<AlbumInfo> albumInfoList, String s, List<MusicBean> musicBeanList) {
-        AlbumInfo albumInfo = new AlbumInfo();
-        albumInfo.setAlbumName(s);
-        albumInfo.setArtist(musicBeanList.get(0).getArtist());
-        albumInfo.setAlbumId(musicBeanList.get(0).getAlbumId());
-        albumInfo.setSongName(musicBeanList.get(0).getTitle());
-        albumInfo.setYear(musicBeanList.get(0).getIssueYear());
-        albumInfo.setAlbumId(musicBeanList.get(0).getAlbumId());
-        albumInfo.setSongCount(musicBeanList.size());
-        String firstChar = String.valueOf(HanziToPinyins.stringToPinyinSpecial(s));
-        albumInfo.setFirstChar(firstChar);
-        albumInfoList.add(albumInfo);
-    }
-
-    private static void forAlbumList(Map<String, List<MusicBean>> musicMap, MusicBean musicInfo) {
-        if (musicMap.containsKey(musicInfo.getAlbum())) {
-            ArrayList<MusicBean> albumList = (ArrayList<MusicBean>) musicMap.get(musicInfo.getAlbum());
-            if (albumList != null) {
-                albumList.add(musicInfo);
-            }
-        } else {
-            ArrayList<MusicBean> tempList = new ArrayList<>();
-            tempList.add(musicInfo);
-            musicMap.put(musicInfo.getAlbum(), tempList);
-        }
-    }
 
     public static Observable<List<MusicBean>> getFavoriteList() {
         return Observable.create((ObservableOnSubscribe<List<MusicBean>>) emitter -> {
@@ -0,0 +1,241 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import io.reactivex.android.schedulers.AndroidSchedulers;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   MusicPageList
+ * @ Des:    分页加载的歌曲列表。创建时只按排序读出全部歌曲的id，歌曲按固定大小的页第一次访问时才从数据库读取，
+ * 只保留最近访问的几页，离可见区域远的页会被回收。列表的位置和创建时的id快照一致，和播放服务查询的顺序相同。
+ * 读取时发现歌曲已经被删除，不改变列表大小（RecyclerView 还是原来的数量），用占位的歌曲代替，
+ * 并在主线程通知 OnChangedListener，由它调用 reload 后刷新列表。
+ */
+public class MusicPageList extends AbstractList<MusicBean> implements RandomAccess {
+    private static final String TAG = "====" + MusicPageList.class.getSimpleName() + "    ";
+    /**
+     * 每页的歌曲数量，大约是两屏
+     */
+    public static final int PAGE_SIZE = 60;
+    /**
+     * 最多保留的页数，超过后回收最久没有访问的页
+     */
+    private static final int MAX_PAGE_COUNT = 6;
+    private static final String ID = MusicBeanDao.Properties.Id.columnName;
+    private static final String SORT_KEY = MusicBeanDao.Properties.SortKey.columnName;
+    /**
+     * 排序方式，和 QueryMusicFlagListUtil 中对应页面的排序一致，相同时按id，保证顺序确定
+     */
+    public static final String ORDER_ABC = SORT_KEY + " ASC, " + ID + " ASC";
+    /**
+     * 按评分，评分相同（大多数歌曲没有评分）时按 PlayStatsRecorder 统计的收听时长
+     */
+    public static final String ORDER_SCORE = MusicBeanDao.Properties.SongScore.columnName + " DESC, "
+            + MusicBeanDao.Properties.ListenTime.columnName + " DESC, " + ID + " DESC";
+    public static final String ORDER_FREQUENCY = MusicBeanDao.Properties.PlayFrequency.columnName + " DESC, " + ID + " DESC";
+    public static final String ORDER_ADD_TIME = MusicBeanDao.Properties.AddTime.columnName + " DESC, " + ID + " DESC";
+    private final MusicBeanDao mDao;
+    private final String mWhere;
+    private final String[] mWhereArgs;
+    private final String mOrderBy;
+    private long[] mIds;
+    private int mSize;
+    /**
+     * 按歌名排序时和id一起读出的字母分组，其他排序为null
+     */
+    private SectionIndex mSectionIndex;
+    /**
+     * 已经发现有歌曲被删除，还没有 reload
+     */
+    private boolean mChanged;
+    private OnChangedListener mChangedListener;
+    private final Map<Integer, List<MusicBean>> mPages = new LinkedHashMap<Integer, List<MusicBean>>(MAX_PAGE_COUNT + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<MusicBean>> eldest) {
+            return size() > MAX_PAGE_COUNT;
+        }
+    };
+
+    public interface OnChangedListener {
+        /**
+         * 数据库中的歌曲已经变化，在主线程回调。调用 reload 后需要立即刷新列表，两者之间列表的大小会变化。
+         */
+        void onChanged(MusicPageList list);
+    }
+
+    /**
+     * @param dao       dao
+     * @param where     查询条件，不带 WHERE，可以为null
+     * @param whereArgs 条件参数
+     * @param orderBy   排序，ORDER_ABC、ORDER_SCORE 等
+     */
+    public MusicPageList(MusicBeanDao dao, String where, String[] whereArgs, String orderBy) {
+        mDao = dao;
+        mWhere = where == null ? "" : " WHERE " + where;
+        mWhereArgs = whereArgs;
+        mOrderBy = orderBy;
+        loadIds();
+    }
+
+    private void loadIds() {
+        long[] ids = new long[256];
+        int size = 0;
+        // 按歌名排序时顺便读出 SORT_KEY 的第一个字符，仍然只扫描 SORT_KEY 索引
+        SectionIndex sectionIndex = ORDER_ABC.equals(mOrderBy) ? new SectionIndex() : null;
+        String columns = sectionIndex == null ? ID : ID + ", substr(" + SORT_KEY + ", 1, 1)";
+        try (Cursor cursor = mDao.getDatabase().rawQuery("SELECT " + columns + " FROM " + MusicBeanDao.TABLENAME
+                + mWhere + " ORDER BY " + mOrderBy, mWhereArgs)) {
+            if (cursor.getCount() > ids.length) {
+                ids = new long[cursor.getCount()];
+            }
+            while (cursor.moveToNext()) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = cursor.getLong(0);
+                if (sectionIndex != null) {
+                    sectionIndex.add(cursor.isNull(1) ? null : cursor.getString(1));
+                }
+            }
+        }
+        mIds = ids;
+        mSize = size;
+        mSectionIndex = sectionIndex;
+        mPages.clear();
+        mChanged = false;
+    }
+
+    /**
+     * 重新读取id快照，列表大小可能变化，只在主线程调用并且紧接着刷新列表
+     */
+    public synchronized void reload() {
+        loadIds();
+        modCount++;
+    }
+
+    public synchronized void setOnChangedListener(OnChangedListener listener) {
+        mChangedListener = listener;
+    }
+
+    @Override
+    public synchronized MusicBean get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + mSize);
+        }
+        int page = index / PAGE_SIZE;
+        List<MusicBean> beans = mPages.get(page);
+        if (beans == null) {
+            beans = loadPage(page);
+            mPages.put(page, beans);
+        }
+        return beans.get(index - page * PAGE_SIZE);
+    }
+
+    @Override
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * 读取一页，已经不在数据库中的歌曲用占位的歌曲代替，并通知列表需要刷新
+     */
+    private List<MusicBean> loadPage(int page) {
+        int start = page * PAGE_SIZE;
+        int end = Math.min(start + PAGE_SIZE, mSize);
+        List<Long> pageIds = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            pageIds.add(mIds[i]);
+        }
+        List<MusicBean> rows = mDao.queryBuilder().where(MusicBeanDao.Properties.Id.in(pageIds)).build().list();
+        Map<Long, MusicBean> rowMap = new HashMap<>(rows.size() * 2);
+        for (MusicBean bean : rows) {
+            rowMap.put(bean.getId(), bean);
+        }
+        List<MusicBean> beans = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            MusicBean bean = rowMap.get(id);
+            beans.add(bean != null ? bean : placeholder(id));
+        }
+        if (rows.size() < pageIds.size()) {
+            notifyChanged();
+        }
+        return beans;
+    }
+
+    /**
+     * 已经删除的歌曲在刷新之前显示为空的一行
+     */
+    private static MusicBean placeholder(long id) {
+        MusicBean bean = new MusicBean();
+        bean.setId(id);
+        bean.setTitle("");
+        bean.setArtist("");
+        bean.setAlbum("");
+        bean.setFirstChar("");
+        return bean;
+    }
+
+    private void notifyChanged() {
+        if (mChanged) {
+            return;
+        }
+        mChanged = true;
+        LogUtil.d(TAG, "歌曲已变化，通知刷新列表");
+        OnChangedListener listener = mChangedListener;
+        if (listener != null) {
+            AndroidSchedulers.mainThread().scheduleDirect(() -> listener.onChanged(this));
+        }
+    }
+
+    /**
+     * 字母分组，加载id时一起得到，和数据库的排序一致。只有按歌名排序的列表有，其他返回null。
+     */
+    public synchronized SectionIndex getSectionIndex() {
+        return mSectionIndex;
+    }
+
+    @Override
+    public synchronized MusicBean remove(int index) {
+        MusicBean bean = get(index);
+        System.arraycopy(mIds, index + 1, mIds, index, mSize - index - 1);
+        mSize--;
+        modCount++;
+        if (mSectionIndex != null) {
+            mSectionIndex.remove(index);
+        }
+        // 删除位置之后的页都错位了，丢弃后重新读取
+        int page = index / PAGE_SIZE;
+        mPages.keySet().removeIf(key -> key >= page);
+        return bean;
+    }
+
+    @Override
+    public synchronized void clear() {
+        mSize = 0;
+        modCount++;
+        if (mSectionIndex != null) {
+            mSectionIndex.clear();
+        }
+        mPages.clear();
+    }
+
+    /**
+     * 当前保留的页数
+     */
+    synchronized int getLoadedPageCount() {
+        return mPages.size();
+    }
+}
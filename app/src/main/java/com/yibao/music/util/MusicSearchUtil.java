@@ -0,0 +1,340 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   MusicSearchUtil
+ * @ Des:    本地搜索。MUSIC_SEARCH 是 MUSIC_BEAN 的 FTS4 影子表，docid 就是歌曲id，歌名、歌手、专辑每列保存
+ * 原文（汉字逐字分词）、拼音、连写拼音和首字母，搜索时按前缀匹配，支持部分匹配、拼音和拼音首字母。
+ * 扫描歌曲时由 LoadMusicDataService 同步更新。
+ */
+public class MusicSearchUtil {
+    private static final String TAG = "====" + MusicSearchUtil.class.getSimpleName() + "    ";
+    public static final String TABLE_NAME = "MUSIC_SEARCH";
+    private static final String COLUMN_TITLE = "TITLE";
+    private static final String COLUMN_ARTIST = "ARTIST";
+    private static final String COLUMN_ALBUM = "ALBUM";
+    private static final String SQL_INSERT = "INSERT OR REPLACE INTO " + TABLE_NAME + " (docid, " + COLUMN_TITLE + ", "
+            + COLUMN_ARTIST + ", " + COLUMN_ALBUM + ") VALUES (?, ?, ?, ?)";
+    private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE docid = ?";
+    private static final char HAN_START = 0x4e00;
+    private static final char HAN_END = 0x9fa5;
+
+    /**
+     * 创建搜索表，数据库创建和升级时调用。
+     */
+    public static void createTable(Database db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_NAME + " USING fts4("
+                + COLUMN_TITLE + ", " + COLUMN_ARTIST + ", " + COLUMN_ALBUM + ")");
+    }
+
+    /**
+     * 按 MUSIC_BEAN 重建整个搜索表，升级到有搜索表的版本时调用一次。
+     */
+    public static void rebuild(Database db) {
+        db.execSQL("DELETE FROM " + TABLE_NAME);
+        List<MusicBean> musicList = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT _id, " + MusicBeanDao.Properties.Title.columnName + ", "
+                + MusicBeanDao.Properties.Artist.columnName + ", " + MusicBeanDao.Properties.Album.columnName
+                + " FROM " + MusicBeanDao.TABLENAME, null)) {
+            while (cursor.moveToNext()) {
+                MusicBean bean = new MusicBean();
+                bean.setId(cursor.getLong(0));
+                bean.setTitle(cursor.getString(1));
+                bean.setArtist(cursor.getString(2));
+                bean.setAlbum(cursor.getString(3));
+                musicList.add(bean);
+            }
+        }
+        index(db, musicList);
+        LogUtil.d(TAG, "重建搜索表 " + musicList.size());
+    }
+
+    /**
+     * 新增或更新歌曲的搜索数据，一个事务写完。
+     */
+    public static void index(Database db, Collection<MusicBean> musicList) {
+        if (musicList.isEmpty()) {
+            return;
+        }
+        DatabaseStatement statement = db.compileStatement(SQL_INSERT);
+        db.beginTransaction();
+        try {
+            for (MusicBean bean : musicList) {
+                statement.bindLong(1, bean.getId());
+                statement.bindString(2, toIndexText(bean.getTitle()));
+                statement.bindString(3, toIndexText(bean.getArtist()));
+                statement.bindString(4, toIndexText(bean.getAlbum()));
+                statement.execute();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    /**
+     * 删除歌曲的搜索数据
+     */
+    public static void remove(Database db, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        DatabaseStatement statement = db.compileStatement(SQL_DELETE);
+        db.beginTransaction();
+        try {
+            for (Long id : ids) {
+                statement.bindLong(1, id);
+                statement.execute();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    /**
+     * 搜索歌曲。结果和关键字完全相同的排在最前，其次是以关键字开头的，其余按歌名全拼排序。
+     * 排序规则和 {@link #refine} 的 {@link #rankComparator} 一致，修改时两处一起改。
+     *
+     * @param dao        d
+     * @param key        关键字
+     * @param searchType 搜索类别：  11歌曲 、 12专辑 、 13 艺术家 、14 全部
+     * @return 匹配的歌曲
+     */
+    public static List<MusicBean> search(MusicBeanDao dao, String key, int searchType) {
+        String match = toMatchQuery(key);
+        if (match == null) {
+            return Collections.emptyList();
+        }
+        String matchColumn;
+        String rankColumn;
+        if (searchType == Constant.NUMBER_TWELVE) {
+            matchColumn = TABLE_NAME + "." + COLUMN_ALBUM;
+            rankColumn = MusicBeanDao.Properties.Album.columnName;
+        } else if (searchType == Constant.NUMBER_THIRTEEN) {
+            matchColumn = TABLE_NAME + "." + COLUMN_ARTIST;
+            rankColumn = MusicBeanDao.Properties.Artist.columnName;
+        } else if (searchType == Constant.NUMBER_FOURTEEN) {
+            matchColumn = TABLE_NAME;
+            rankColumn = MusicBeanDao.Properties.Title.columnName;
+        } else {
+            matchColumn = TABLE_NAME + "." + COLUMN_TITLE;
+            rankColumn = MusicBeanDao.Properties.Title.columnName;
+        }
+        String trimKey = key.trim();
+        return dao.queryRaw("JOIN " + TABLE_NAME + " ON T._id = " + TABLE_NAME + ".docid WHERE " + matchColumn + " MATCH ?"
+                        + " ORDER BY ifnull(T." + rankColumn + ", '') = ? DESC, instr(ifnull(T." + rankColumn + ", ''), ?) = 1 DESC, T."
+                        + MusicBeanDao.Properties.SortKey.columnName + " ASC, T._id ASC",
+                match, trimKey, trimKey);
+    }
+
+    /**
+     * 在上一次的搜索结果中继续筛选。新关键字是上一次关键字加上后面的字符时，新的结果一定是上一次结果的子集，
+     * 不用再查数据库。匹配和排序规则与 {@link #search} 相同，结果的顺序也和播放队列一致。
+     *
+     * @param previous   上一次关键字的完整搜索结果
+     * @param key        新关键字
+     * @param searchType 搜索类别：  11歌曲 、 12专辑 、 13 艺术家 、14 全部
+     * @return 匹配的歌曲
+     */
+    public static List<MusicBean> refine(List<MusicBean> previous, String key, int searchType) {
+        List<String> tokens = tokenize(key);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String joined = isAsciiQuery(tokens) && tokens.size() > 1 ? String.join("", tokens) : null;
+        List<MusicBean> result = new ArrayList<>();
+        for (MusicBean bean : previous) {
+            boolean matched;
+            if (searchType == Constant.NUMBER_TWELVE) {
+                matched = matches(bean.getAlbum(), tokens, joined);
+            } else if (searchType == Constant.NUMBER_THIRTEEN) {
+                matched = matches(bean.getArtist(), tokens, joined);
+            } else if (searchType == Constant.NUMBER_FOURTEEN) {
+                matched = matches(bean.getTitle(), tokens, joined) || matches(bean.getArtist(), tokens, joined)
+                        || matches(bean.getAlbum(), tokens, joined);
+            } else {
+                matched = matches(bean.getTitle(), tokens, joined);
+            }
+            if (matched) {
+                result.add(bean);
+            }
+        }
+        Collections.sort(result, rankComparator(key.trim(), searchType));
+        return result;
+    }
+
+    /**
+     * 和 MATCH 表达式等价：索引词中有连续的一段和关键字的词相同，最后一个词只要求前缀相同；或者有以连写关键字开头的词。
+     */
+    private static boolean matches(String text, List<String> tokens, String joined) {
+        String[] words = toIndexText(text).split(" ");
+        int last = tokens.size() - 1;
+        for (int start = 0; start < words.length; start++) {
+            if (joined != null && words[start].startsWith(joined)) {
+                return true;
+            }
+            if (start + last >= words.length) {
+                continue;
+            }
+            int i = 0;
+            while (i < last && words[start + i].equals(tokens.get(i))) {
+                i++;
+            }
+            if (i == last && words[start + last].startsWith(tokens.get(last))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * search 中 ORDER BY 的 Java 实现。SQLite 按 UTF-8 字节比较字符串，和按码点比较的顺序相同，NULL 排在最前。
+     */
+    private static Comparator<MusicBean> rankComparator(String key, int searchType) {
+        return (o1, o2) -> {
+            String r1 = getRankText(o1, searchType);
+            String r2 = getRankText(o2, searchType);
+            int result = Boolean.compare(key.equals(r2), key.equals(r1));
+            if (result == 0) {
+                result = Boolean.compare(r2 != null && r2.startsWith(key), r1 != null && r1.startsWith(key));
+            }
+            if (result == 0) {
+                result = compareCodePoints(o1.getSortKey(), o2.getSortKey());
+            }
+            return result != 0 ? result : Long.compare(o1.getId(), o2.getId());
+        };
+    }
+
+    private static String getRankText(MusicBean bean, int searchType) {
+        if (searchType == Constant.NUMBER_TWELVE) {
+            return bean.getAlbum();
+        } else if (searchType == Constant.NUMBER_THIRTEEN) {
+            return bean.getArtist();
+        }
+        return bean.getTitle();
+    }
+
+    private static int compareCodePoints(String s1, String s2) {
+        if (s1 == null || s2 == null) {
+            return s1 == null ? (s2 == null ? 0 : -1) : 1;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < s1.length() && j < s2.length()) {
+            int c1 = s1.codePointAt(i);
+            int c2 = s2.codePointAt(j);
+            if (c1 != c2) {
+                return Integer.compare(c1, c2);
+            }
+            i += Character.charCount(c1);
+            j += Character.charCount(c2);
+        }
+        return Boolean.compare(i < s1.length(), j < s2.length());
+    }
+
+    /**
+     * 关键字转换成 MATCH 表达式：分词后作为短语，最后一个词按前缀匹配；全是字母数字时再加上连写的前缀，
+     * 这样 "qing ti" 和 "qingti" 都能搜到晴天。没有可搜索的字符时返回null。
+     */
+    static String toMatchQuery(String key) {
+        List<String> tokens = tokenize(key);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder("\"").append(String.join(" ", tokens)).append("*\"");
+        if (isAsciiQuery(tokens) && tokens.size() > 1) {
+            builder.append(" OR ").append(String.join("", tokens)).append('*');
+        }
+        return builder.toString();
+    }
+
+    private static boolean isAsciiQuery(List<String> tokens) {
+        for (String token : tokens) {
+            if (isHan(token.charAt(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一列的索引内容：原文的分词，含有汉字时再加上拼音、连写拼音和拼音首字母。
+     */
+    static String toIndexText(String text) {
+        List<String> tokens = tokenize(text);
+        if (tokens.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(String.join(" ", tokens));
+        StringBuilder syllables = new StringBuilder();
+        StringBuilder joined = new StringBuilder();
+        StringBuilder initials = new StringBuilder();
+        boolean hasHan = false;
+        for (String token : tokens) {
+            String pinyin = token.length() == 1 ? HanziToPinyins.toPinYin(token.charAt(0)) : null;
+            hasHan |= isHan(token.charAt(0));
+            String syllable = pinyin != null ? pinyin : token;
+            syllables.append(' ').append(syllable);
+            joined.append(syllable);
+            initials.append(syllable.charAt(0));
+        }
+        if (hasHan) {
+            builder.append(syllables).append(' ').append(joined).append(' ').append(initials);
+        } else if (tokens.size() > 1) {
+            builder.append(' ').append(joined);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 分词：汉字每个字一个词，连续的字母数字转成小写作为一个词，其他字符都是分隔符。
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isHan(c)) {
+                addWord(tokens, word);
+                tokens.add(String.valueOf(c));
+            } else if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else {
+                addWord(tokens, word);
+            }
+        }
+        addWord(tokens, word);
+        return tokens;
+    }
+
+    private static void addWord(List<String> tokens, StringBuilder word) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isHan(char c) {
+        return c >= HAN_START && c <= HAN_END;
+    }
+}
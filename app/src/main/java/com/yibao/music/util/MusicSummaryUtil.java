@@ -0,0 +1,219 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+
+import com.yibao.music.MusicApplication;
+import com.yibao.music.model.AlbumInfo;
+import com.yibao.music.model.ArtistInfo;
+import com.yibao.music.model.greendao.AlbumInfoDao;
+import com.yibao.music.model.greendao.ArtistInfoDao;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   MusicSummaryUtil
+ * @ Des:    艺术家和专辑列表的汇总表 ARTIST_INFO、ALBUM_INFO。由 MUSIC_BEAN 按艺术家、专辑 GROUP BY 一次得到，
+ * 每组的专辑、年份、封面等取组内id最小的歌曲；扫描和删除歌曲时只重新汇总受影响的艺术家和专辑，列表页面直接读汇总表。
+ */
+public class MusicSummaryUtil {
+    private static final String TAG = "====" + MusicSummaryUtil.class.getSimpleName() + "    ";
+    /**
+     * 每条语句的 IN 参数个数，SQLite 默认最多 999 个参数
+     */
+    private static final int KEY_CHUNK_SIZE = 200;
+    private static final String MUSIC_ARTIST = MusicBeanDao.Properties.Artist.columnName;
+    private static final String MUSIC_ALBUM = MusicBeanDao.Properties.Album.columnName;
+    /**
+     * 只有一个 MIN 聚合时，其他非聚合列取自 MIN 所在的行，也就是组内的第一首歌
+     */
+    private static final String SQL_ARTIST_SUMMARY = "SELECT " + MUSIC_ARTIST + ", COUNT(*), COUNT(DISTINCT "
+            + MUSIC_ALBUM + "), MIN(_id), " + MUSIC_ALBUM + ", " + MusicBeanDao.Properties.AlbumId.columnName + ", "
+            + MusicBeanDao.Properties.IssueYear.columnName + " FROM " + MusicBeanDao.TABLENAME;
+    private static final String SQL_ALBUM_SUMMARY = "SELECT " + MUSIC_ALBUM + ", COUNT(*), MIN(_id), " + MUSIC_ARTIST
+            + ", " + MusicBeanDao.Properties.AlbumId.columnName + ", " + MusicBeanDao.Properties.Title.columnName + ", "
+            + MusicBeanDao.Properties.IssueYear.columnName + " FROM " + MusicBeanDao.TABLENAME;
+    private static final String SQL_INSERT_ARTIST = "INSERT OR REPLACE INTO " + ArtistInfoDao.TABLENAME + " ("
+            + ArtistInfoDao.Properties.Artist.columnName + ", " + ArtistInfoDao.Properties.AlbumName.columnName + ", "
+            + ArtistInfoDao.Properties.AlbumCount.columnName + ", " + ArtistInfoDao.Properties.SongCount.columnName + ", "
+            + ArtistInfoDao.Properties.FirstChar.columnName + ", " + ArtistInfoDao.Properties.Year.columnName + ", "
+            + ArtistInfoDao.Properties.AlbumId.columnName + ", " + ArtistInfoDao.Properties.SortKey.columnName
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_INSERT_ALBUM = "INSERT OR REPLACE INTO " + AlbumInfoDao.TABLENAME + " ("
+            + AlbumInfoDao.Properties.AlbumName.columnName + ", " + AlbumInfoDao.Properties.Artist.columnName + ", "
+            + AlbumInfoDao.Properties.AlbumId.columnName + ", " + AlbumInfoDao.Properties.SongCount.columnName + ", "
+            + AlbumInfoDao.Properties.FirstChar.columnName + ", " + AlbumInfoDao.Properties.SongName.columnName + ", "
+            + AlbumInfoDao.Properties.Year.columnName + ", " + AlbumInfoDao.Properties.MSelected.columnName + ", "
+            + AlbumInfoDao.Properties.SortKey.columnName + ") VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?)";
+
+    /**
+     * 艺术家列表，按全拼排序
+     */
+    public static List<ArtistInfo> getArtistList() {
+        return MusicApplication.getInstance().getArtistDao().queryBuilder()
+                .orderAsc(ArtistInfoDao.Properties.SortKey, ArtistInfoDao.Properties.Id).build().list();
+    }
+
+    /**
+     * 专辑列表，按全拼排序
+     */
+    public static List<AlbumInfo> getAlbumList() {
+        return MusicApplication.getInstance().getAlbumDao().queryBuilder()
+                .orderAsc(AlbumInfoDao.Properties.SortKey, AlbumInfoDao.Properties.Id).build().list();
+    }
+
+    /**
+     * 清空后重新汇总全部艺术家和专辑，首次扫描和数据库升级时调用。
+     */
+    public static void rebuild(Database db) {
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + ArtistInfoDao.TABLENAME);
+            db.execSQL("DELETE FROM " + AlbumInfoDao.TABLENAME);
+            int artistCount = insertArtists(db, "", new String[0]);
+            int albumCount = insertAlbums(db, "", new String[0]);
+            db.setTransactionSuccessful();
+            LogUtil.d(TAG, "重建汇总表 艺术家 " + artistCount + "  专辑 " + albumCount);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 重新汇总歌曲变化涉及的艺术家和专辑，已经没有歌曲的从汇总表删除。
+     *
+     * @param artists 新增、修改或删除的歌曲修改前后的艺术家
+     * @param albums  新增、修改或删除的歌曲修改前后的专辑
+     */
+    public static void update(Database db, Collection<String> artists, Collection<String> albums) {
+        if (artists.isEmpty() && albums.isEmpty()) {
+            return;
+        }
+        db.beginTransaction();
+        try {
+            for (List<String> chunk : chunk(artists)) {
+                String[] args = toArgs(chunk);
+                db.execSQL("DELETE FROM " + ArtistInfoDao.TABLENAME + " WHERE "
+                        + inCondition(ArtistInfoDao.Properties.Artist.columnName, chunk), args);
+                insertArtists(db, " WHERE " + inCondition(MUSIC_ARTIST, chunk), args);
+            }
+            for (List<String> chunk : chunk(albums)) {
+                String[] args = toArgs(chunk);
+                db.execSQL("DELETE FROM " + AlbumInfoDao.TABLENAME + " WHERE "
+                        + inCondition(AlbumInfoDao.Properties.AlbumName.columnName, chunk), args);
+                insertAlbums(db, " WHERE " + inCondition(MUSIC_ALBUM, chunk), args);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        LogUtil.d(TAG, "更新汇总表 艺术家 " + artists.size() + "  专辑 " + albums.size());
+    }
+
+    private static int insertArtists(Database db, String where, String[] args) {
+        int count = 0;
+        DatabaseStatement statement = db.compileStatement(SQL_INSERT_ARTIST);
+        try (Cursor cursor = db.rawQuery(SQL_ARTIST_SUMMARY + where + " GROUP BY " + MUSIC_ARTIST, args)) {
+            while (cursor.moveToNext()) {
+                String artist = cursor.isNull(0) ? null : cursor.getString(0);
+                statement.clearBindings();
+                bindText(statement, 1, artist);
+                bindText(statement, 2, cursor.isNull(4) ? null : cursor.getString(4));
+                statement.bindLong(3, cursor.getInt(2));
+                statement.bindLong(4, cursor.getInt(1));
+                bindText(statement, 5, String.valueOf(HanziToPinyins.stringToPinyinSpecial(artist)));
+                statement.bindLong(6, cursor.getInt(6));
+                statement.bindLong(7, cursor.getLong(5));
+                bindText(statement, 8, HanziToPinyins.toSortKey(artist));
+                statement.execute();
+                count++;
+            }
+        } finally {
+            statement.close();
+        }
+        return count;
+    }
+
+    private static int insertAlbums(Database db, String where, String[] args) {
+        int count = 0;
+        DatabaseStatement statement = db.compileStatement(SQL_INSERT_ALBUM);
+        try (Cursor cursor = db.rawQuery(SQL_ALBUM_SUMMARY + where + " GROUP BY " + MUSIC_ALBUM, args)) {
+            while (cursor.moveToNext()) {
+                String album = cursor.isNull(0) ? null : cursor.getString(0);
+                statement.clearBindings();
+                bindText(statement, 1, album);
+                bindText(statement, 2, cursor.isNull(3) ? null : cursor.getString(3));
+                statement.bindLong(3, cursor.getLong(4));
+                statement.bindLong(4, cursor.getInt(1));
+                bindText(statement, 5, String.valueOf(HanziToPinyins.stringToPinyinSpecial(album)));
+                bindText(statement, 6, cursor.isNull(5) ? null : cursor.getString(5));
+                statement.bindLong(7, cursor.getInt(6));
+                bindText(statement, 8, HanziToPinyins.toSortKey(album));
+                statement.execute();
+                count++;
+            }
+        } finally {
+            statement.close();
+        }
+        return count;
+    }
+
+    private static void bindText(DatabaseStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * column IN (?, ...)，集合里有 null 时加上 OR column IS NULL
+     */
+    private static String inCondition(String column, List<String> keys) {
+        StringBuilder builder = new StringBuilder("(").append(column).append(" IN (");
+        int argCount = 0;
+        boolean hasNull = false;
+        for (String key : keys) {
+            if (key == null) {
+                hasNull = true;
+            } else {
+                builder.append(argCount++ == 0 ? "?" : ", ?");
+            }
+        }
+        builder.append(')');
+        if (hasNull) {
+            builder.append(" OR ").append(column).append(" IS NULL");
+        }
+        return builder.append(')').toString();
+    }
+
+    private static String[] toArgs(List<String> keys) {
+        List<String> args = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (key != null) {
+                args.add(key);
+            }
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private static List<List<String>> chunk(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>(KEY_CHUNK_SIZE);
+        for (String key : keys) {
+            current.add(key);
+            if (current.size() == KEY_CHUNK_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(KEY_CHUNK_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,136 @@
+package com.yibao.music.util;
+
+import android.database.Cursor;
+import android.provider.MediaStore;
+
+import com.yibao.music.MusicApplication;
+import com.yibao.music.model.MusicBean;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   MusicSyncUtil
+ * @ Des:    媒体库增量同步。每次同步后记录同步开始的时间作为水位，手动扫描时只查询添加或修改时间不早于水位的歌曲，
+ * 删除的歌曲通过媒体库和数据库的id集合求差得到。过滤设置或媒体库版本变化时水位失效，退回全量同步。
+ */
+public class MusicSyncUtil {
+    private static final String TAG = "====" + MusicSyncUtil.class.getSimpleName() + "    ";
+    public static final String SELECTION_CHANGED = MediaStore.Audio.Media.DATE_ADDED + " >= ? OR "
+            + MediaStore.Audio.Media.DATE_MODIFIED + " >= ?";
+    private static final String SQL_QUERY_IDS = "SELECT _id FROM MUSIC_BEAN";
+    /**
+     * 按id批量读取时每次的id数量，SQLite 默认最多 999 个参数
+     */
+    private static final int ID_CHUNK_SIZE = 500;
+
+    /**
+     * 同步开始的时间（秒），和媒体库的 DATE_ADDED、DATE_MODIFIED 单位一致。
+     */
+    public static long currentSyncTime() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * 上次同步的水位，-1 表示需要全量同步。
+     */
+    public static long getWatermark() {
+        SpUtils sp = new SpUtils(MusicApplication.getInstance(), Constant.MUSIC_SETTING);
+        long watermark = sp.getLong(Constant.MUSIC_SYNC_WATERMARK);
+        if (watermark < 0) {
+            return -1;
+        }
+        if (!getFilterState().equals(sp.getString(Constant.MUSIC_SYNC_FILTER))) {
+            LogUtil.d(TAG, "过滤设置变化，全量同步");
+            return -1;
+        }
+        if (!getMediaVersion().equals(sp.getString(Constant.MUSIC_SYNC_VERSION))) {
+            LogUtil.d(TAG, "媒体库版本变化，全量同步");
+            return -1;
+        }
+        return watermark;
+    }
+
+    /**
+     * 同步完成后保存水位和当时的过滤设置、媒体库版本。
+     *
+     * @param syncTime 本次同步开始的时间
+     */
+    public static void saveWatermark(long syncTime) {
+        new SpUtils(MusicApplication.getInstance(), Constant.MUSIC_SETTING).putValues(
+                new SpUtils.ContentValue(Constant.MUSIC_SYNC_WATERMARK, syncTime),
+                new SpUtils.ContentValue(Constant.MUSIC_SYNC_FILTER, getFilterState()),
+                new SpUtils.ContentValue(Constant.MUSIC_SYNC_VERSION, getMediaVersion()));
+    }
+
+    /**
+     * 查询水位之后添加或修改的歌曲的条件参数，和 SELECTION_CHANGED 一起使用。
+     */
+    public static String[] getChangedSelectionArgs(long watermark) {
+        String time = String.valueOf(watermark);
+        return new String[]{time, time};
+    }
+
+    /**
+     * 数据库中所有歌曲的id，只读一列，不创建MusicBean。
+     */
+    public static Set<Long> getDaoIdSet(Database database) {
+        Set<Long> idSet = new HashSet<>();
+        try (Cursor cursor = database.rawQuery(SQL_QUERY_IDS, null)) {
+            while (cursor.moveToNext()) {
+                idSet.add(cursor.getLong(0));
+            }
+        }
+        return idSet;
+    }
+
+    /**
+     * 按id批量读取歌曲，每次最多 ID_CHUNK_SIZE 个id，不存在的id没有对应的歌曲，顺序不保证。
+     */
+    public static List<MusicBean> loadByIds(MusicBeanDao dao, List<Long> ids) {
+        List<MusicBean> musicList = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            musicList.addAll(dao.queryBuilder()
+                    .where(MusicBeanDao.Properties.Id.in(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())))).list());
+        }
+        return musicList;
+    }
+
+    /**
+     * 用媒体库的最新信息覆盖数据库中的歌曲，保留收藏、播放次数、评分和播放列表等用户数据。
+     */
+    public static void copyMediaFields(MusicBean from, MusicBean to) {
+        to.setTitle(from.getTitle());
+        to.setArtist(from.getArtist());
+        to.setAlbum(from.getAlbum());
+        to.setAlbumId(from.getAlbumId());
+        to.setDuration(from.getDuration());
+        to.setAddTime(from.getAddTime());
+        to.setSongUrl(from.getSongUrl());
+        to.setFirstChar(from.getFirstChar());
+        to.setSortKey(from.getSortKey());
+        to.setIssueYear(from.getIssueYear());
+        to.setMusicQualityType(from.getMusicQualityType());
+    }
+
+    private static String getFilterState() {
+        SpUtils sp = new SpUtils(MusicApplication.getInstance(), Constant.MUSIC_SETTING);
+        return sp.getBoolean(Constant.MUSIC_DURATION_FLAG, false) + "|" + sp.getBoolean(Constant.MUSIC_FILE_SIZE_FLAG, false);
+    }
+
+    /**
+     * 媒体库重建后id可能被重新分配，Q 以上通过版本号判断。
+     */
+    private static String getMediaVersion() {
+        if (VersionUtil.checkAndroidVersionQ()) {
+            return MediaStore.getVersion(MusicApplication.getInstance());
+        }
+        return "";
+    }
+}
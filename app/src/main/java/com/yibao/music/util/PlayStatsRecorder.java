@@ -0,0 +1,257 @@
+package com.yibao.music.util;
+
+import android.os.SystemClock;
+import android.util.LongSparseArray;
+
+import com.yibao.music.MusicApplication;
+import com.yibao.music.model.greendao.MusicBeanDao;
+
+import org.greenrobot.greendao.database.Database;
+import org.greenrobot.greendao.database.DatabaseStatement;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   PlayStatsRecorder
+ * @ Des:    播放统计。播放服务在切歌、播放、暂停、播放完成时通知，每首歌的开始和结束各记一条记录，
+ * 记录先放在定长的基本类型数组里，写满、暂停或者距离上次写入超过一分钟时按歌曲id汇总，
+ * 在 MusicDbWriter 的一个事务里用同一条只修改统计列的 UPDATE 逐首累加，不再每次播放都整行更新。
+ * 统计列只增不减，由触发器保证整行更新时旧的实体不会把统计写回去。
+ */
+public class PlayStatsRecorder {
+    private static final String TAG = "====" + PlayStatsRecorder.class.getSimpleName() + "    ";
+    /**
+     * 缓冲的记录数量，写满后立即写入
+     */
+    private static final int CAPACITY = 256;
+    /**
+     * 有新记录时，距离上次写入超过这个时间就写入
+     */
+    private static final long FLUSH_INTERVAL = 60_000;
+    /**
+     * 没有播放完、收听不到这么久就切走的算作切歌
+     */
+    public static final long SKIP_THRESHOLD = 30_000;
+
+    private static final int EVENT_START = 0;
+    private static final int EVENT_STOP = 1;
+    private static final int EVENT_SKIP = 2;
+    private static final int EVENT_COMPLETE = 3;
+
+    private static final String TABLE = "\"" + MusicBeanDao.TABLENAME + "\"";
+    private static final String PLAY_FREQUENCY = MusicBeanDao.Properties.PlayFrequency.columnName;
+    private static final String LISTEN_TIME = MusicBeanDao.Properties.ListenTime.columnName;
+    private static final String SKIP_COUNT = MusicBeanDao.Properties.SkipCount.columnName;
+    private static final String COMPLETE_COUNT = MusicBeanDao.Properties.CompleteCount.columnName;
+    private static final String SQL_UPDATE_STATS = "UPDATE " + TABLE + " SET "
+            + PLAY_FREQUENCY + " = " + PLAY_FREQUENCY + " + ?, "
+            + LISTEN_TIME + " = " + LISTEN_TIME + " + ?, "
+            + SKIP_COUNT + " = " + SKIP_COUNT + " + ?, "
+            + COMPLETE_COUNT + " = " + COMPLETE_COUNT + " + ? WHERE _id = ?";
+    private static final String SQL_CREATE_TRIGGER = "CREATE TRIGGER IF NOT EXISTS MUSIC_BEAN_PLAY_STATS AFTER UPDATE OF "
+            + PLAY_FREQUENCY + ", " + LISTEN_TIME + ", " + SKIP_COUNT + ", " + COMPLETE_COUNT + " ON " + TABLE
+            + " WHEN " + lessThanOld(PLAY_FREQUENCY) + " OR " + lessThanOld(LISTEN_TIME) + " OR " + lessThanOld(SKIP_COUNT)
+            + " OR " + lessThanOld(COMPLETE_COUNT)
+            + " BEGIN UPDATE " + TABLE + " SET " + keepMax(PLAY_FREQUENCY) + ", " + keepMax(LISTEN_TIME) + ", "
+            + keepMax(SKIP_COUNT) + ", " + keepMax(COMPLETE_COUNT) + " WHERE _id = NEW._id; END";
+    private static volatile PlayStatsRecorder instance;
+
+    private final MusicDbWriter mWriter;
+    private final MusicBeanDao mMusicDao;
+    private final Database mDb;
+    private final long[] mIds = new long[CAPACITY];
+    private final long[] mListenTimes = new long[CAPACITY];
+    private final byte[] mEvents = new byte[CAPACITY];
+    private int mSize;
+    private long mLastFlushTime = SystemClock.elapsedRealtime();
+
+    private long mCurrentId = -1;
+    private boolean mPlaying;
+    private long mPlayingSince;
+    private long mListenTime;
+    private boolean mCompleted;
+
+    private long mRecordCount;
+    private long mFlushCount;
+    private long mRowCount;
+
+    PlayStatsRecorder(MusicDbWriter writer, MusicBeanDao musicDao) {
+        mWriter = writer;
+        mMusicDao = musicDao;
+        mDb = musicDao.getDatabase();
+    }
+
+    public static PlayStatsRecorder getInstance() {
+        if (instance == null) {
+            synchronized (PlayStatsRecorder.class) {
+                if (instance == null) {
+                    instance = new PlayStatsRecorder(MusicDbWriter.getInstance(), MusicApplication.getInstance().getMusicDao());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 建库和升级时创建触发器：统计列被改小（整行更新时用的是旧数据）时恢复成原来的值
+     */
+    public static void createTrigger(Database db) {
+        db.execSQL(SQL_CREATE_TRIGGER);
+    }
+
+    private static String lessThanOld(String column) {
+        return "NEW." + column + " < OLD." + column;
+    }
+
+    private static String keepMax(String column) {
+        return column + " = max(OLD." + column + ", NEW." + column + ")";
+    }
+
+    /**
+     * 切换到一首歌，上一首按收听时长和是否播放完成结束
+     *
+     * @param songId  歌曲id
+     * @param playing 是否已经开始播放
+     */
+    public synchronized void onTrackStart(long songId, boolean playing) {
+        long now = SystemClock.elapsedRealtime();
+        endTrack(now);
+        mCurrentId = songId;
+        mListenTime = 0;
+        mCompleted = false;
+        mPlaying = playing;
+        mPlayingSince = now;
+        record(songId, EVENT_START, 0);
+    }
+
+    /**
+     * 播放状态变化，和播放时钟同步时一起调用。暂停时写入。
+     */
+    public synchronized void onPlaying(boolean playing) {
+        if (mCurrentId < 0 || playing == mPlaying) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (mPlaying) {
+            mListenTime += now - mPlayingSince;
+        }
+        mPlaying = playing;
+        mPlayingSince = now;
+        if (!playing) {
+            flush();
+        }
+    }
+
+    /**
+     * 当前歌曲自然播放完成
+     */
+    public synchronized void onCompletion() {
+        if (mCurrentId < 0) {
+            return;
+        }
+        if (mPlaying) {
+            mListenTime += SystemClock.elapsedRealtime() - mPlayingSince;
+            mPlaying = false;
+        }
+        mCompleted = true;
+    }
+
+    /**
+     * 播放服务退出，结束当前歌曲并写入
+     */
+    public synchronized CompletableFuture<Void> stop() {
+        endTrack(SystemClock.elapsedRealtime());
+        return flush();
+    }
+
+    private void endTrack(long now) {
+        if (mCurrentId < 0) {
+            return;
+        }
+        if (mPlaying) {
+            mListenTime += now - mPlayingSince;
+        }
+        int event = mCompleted ? EVENT_COMPLETE : mListenTime < SKIP_THRESHOLD ? EVENT_SKIP : EVENT_STOP;
+        record(mCurrentId, event, mListenTime);
+        mCurrentId = -1;
+        mPlaying = false;
+    }
+
+    private void record(long songId, int event, long listenTime) {
+        mIds[mSize] = songId;
+        mEvents[mSize] = (byte) event;
+        mListenTimes[mSize] = listenTime;
+        mSize++;
+        mRecordCount++;
+        if (mSize == CAPACITY || SystemClock.elapsedRealtime() - mLastFlushTime >= FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+
+    /**
+     * 按歌曲id汇总缓冲的记录并提交写入。返回的 future 在这些统计（以及之前提交的写操作）写入后完成，
+     * 列表按播放统计排序前先等它完成。
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        mLastFlushTime = SystemClock.elapsedRealtime();
+        if (mSize == 0) {
+            return mWriter.flush();
+        }
+        // 每首歌依次是播放次数、收听时长、切歌次数、完整播放次数
+        LongSparseArray<long[]> totals = new LongSparseArray<>();
+        for (int i = 0; i < mSize; i++) {
+            long[] total = totals.get(mIds[i]);
+            if (total == null) {
+                total = new long[4];
+                totals.put(mIds[i], total);
+            }
+            switch (mEvents[i]) {
+                case EVENT_START:
+                    total[0]++;
+                    break;
+                case EVENT_SKIP:
+                    total[2]++;
+                    break;
+                case EVENT_COMPLETE:
+                    total[3]++;
+                    break;
+                default:
+                    break;
+            }
+            total[1] += mListenTimes[i];
+        }
+        mSize = 0;
+        mFlushCount++;
+        return mWriter.submit(() -> write(totals));
+    }
+
+    /**
+     * 在写入线程的事务中执行，同一条语句绑定不同的歌曲重复执行。
+     * UPDATE 绕过了 greenDAO 的实体缓存，写完后清掉缓存，之后 load 和查询读到的是新的统计。
+     */
+    private void write(LongSparseArray<long[]> totals) {
+        DatabaseStatement statement = mDb.compileStatement(SQL_UPDATE_STATS);
+        try {
+            for (int i = 0; i < totals.size(); i++) {
+                long[] total = totals.valueAt(i);
+                statement.bindLong(1, total[0]);
+                statement.bindLong(2, total[1]);
+                statement.bindLong(3, total[2]);
+                statement.bindLong(4, total[3]);
+                statement.bindLong(5, totals.keyAt(i));
+                statement.execute();
+            }
+        } finally {
+            statement.close();
+        }
+        mMusicDao.detachAll();
+        synchronized (this) {
+            mRowCount += totals.size();
+        }
+    }
+
+    public synchronized String getStats() {
+        return "记录 " + mRecordCount + "  写入 " + mFlushCount + " 次  更新 " + mRowCount + " 行  缓冲 " + mSize;
+    }
+}
@@ -1,5 +1,6 @@
 package com.yibao.music.util;
 
+import com.yibao.music.MusicApplication;
 import com.yibao.music.model.MusicBean;
 import com.yibao.music.model.greendao.MusicBeanDao;
 
@@ -36,35 +37,27 @@ public class QueryMusicFlagListUtil {
                 // 专辑列表数据
             } else if (pageFlag == Constant.NUMBER_SEVEN) {
                 whereCondition = MusicBeanDao.Properties.Album.eq(condition);
-            } else if (pageFlag == Constant.NUMBER_ELEVEN) {
-                // 11 表示按歌曲搜索，歌曲 like 关键字
-                whereCondition = MusicBeanDao.Properties.Title.like(condition);
-            } else if (pageFlag == Constant.NUMBER_TWELVE) {
-                // 12 表示按专辑搜索
-                whereCondition = MusicBeanDao.Properties.Album.eq(condition);
-            } else if (pageFlag == Constant.NUMBER_THIRTEEN) {
-                // 13 表示按艺术家搜索
-                whereCondition = MusicBeanDao.Properties.Artist.eq(condition);
-            } else if (pageFlag == Constant.NUMBER_FOURTEEN) {
-                // 14 全部 ，暂时先按歌曲名 like
-                whereCondition = MusicBeanDao.Properties.Title.like(condition);
+            } else if (pageFlag >= Constant.NUMBER_ELEVEN && pageFlag <= Constant.NUMBER_FOURTEEN) {
+                // 11 - 14 搜索结果，和搜索页面显示的列表一致
+                return MusicSearchUtil.search(MusicApplication.getInstance().getMusicDao(), condition, pageFlag);
             }
             if (whereCondition != null) {
-                return MusicListUtil.sortByAbc(queryBuilder.where(whereCondition).build().list());
+                return MusicListUtil.orderByAbc(queryBuilder.where(whereCondition));
             }
         } else {
             if (pageFlag == Constant.NUMBER_ONE) {
                 // 按歌ABC
-                return MusicListUtil.sortByAbc(queryBuilder.list());
+                return MusicListUtil.orderByAbc(queryBuilder);
             } else if (pageFlag == Constant.NUMBER_TWO) {
-                // 按评分
-                return queryBuilder.orderDesc(MusicBeanDao.Properties.SongScore).build().list();
+                // 按评分，相同时按收听时长和id，和 MusicPageList 的顺序一致
+                return queryBuilder.orderDesc(MusicBeanDao.Properties.SongScore, MusicBeanDao.Properties.ListenTime,
+                        MusicBeanDao.Properties.Id).build().list();
             } else if (pageFlag == Constant.NUMBER_THREE) {
                 // 按播放次数
-                return queryBuilder.orderDesc(MusicBeanDao.Properties.PlayFrequency).build().list();
+                return queryBuilder.orderDesc(MusicBeanDao.Properties.PlayFrequency, MusicBeanDao.Properties.Id).build().list();
             } else if (pageFlag == Constant.NUMBER_FOUR) {
                 // 按添加时间
-                return queryBuilder.orderDesc(MusicBeanDao.Properties.AddTime).build().list();
+                return queryBuilder.orderDesc(MusicBeanDao.Properties.AddTime, MusicBeanDao.Properties.Id).build().list();
             } else if (pageFlag == Constant.NUMBER_EIGHT) {
                 // 收藏列表
                 return queryBuilder.where(MusicBeanDao.Properties.IsFavorite.eq(true)).orderDesc(MusicBeanDao.Properties.Time).build().list();
@@ -72,7 +65,7 @@ public class QueryMusicFlagListUtil {
         }
 
 
-        return MusicListUtil.sortByAbc(queryBuilder.build().list());
+        return MusicListUtil.orderByAbc(queryBuilder);
     }
 
 
@@ -11,15 +11,34 @@ import java.util.Random;
  * @author Stran
  */
 public class RandomUtil {
+    private static final Random RANDOM = new Random();
+
+    /**
+     * 随机播放的起始位置，之后的顺序由ShuffleOrder决定。
+     */
     public static int getRandomPosition(int listSize) {
-        Random random = new Random();
-        return Math.abs(random.nextInt(listSize));
+        return nextInt(listSize);
+    }
+
+    static int nextInt(int bound) {
+        return RANDOM.nextInt(bound);
+    }
+
+    /**
+     * Fisher–Yates 洗牌，打乱 arr[from, to) 。
+     */
+    static void shuffle(int[] arr, int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + RANDOM.nextInt(i - from + 1);
+            int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
     }
 
     public static String getRandomUrl(boolean picUrlFlag) {
-        Random random = new Random();
         int picUrlLength = Api.picUrlArr.length;
-        int position = random.nextInt(picUrlLength) + 1;
+        int position = RANDOM.nextInt(picUrlLength) + 1;
 
 //        return picUrlFlag ? getUnsplashUrl(picUrlLength).get(position) : Api.picUrlArr[position >= picUrlLength ? picUrlLength - 1 : position];
         return Api.picUrlArr[position >= picUrlLength ? picUrlLength - 1 : position];
@@ -1,59 +1,243 @@
 package com.yibao.music.util;
 
 
-import com.yibao.music.model.Message;
+import com.yibao.music.model.MusicCountBean;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 
 
 /**
- * Des：${TODO}
+ * Des：事件总线。每个主题（字符串、数字key或者事件类型）有自己的 Subject，发送时按key在 Map 中找到主题直接分发，
+ * 订阅者只收到自己主题的事件。高频主题（扫描进度）可以设置合并间隔，间隔内只发送最新的一个事件。
  * Time:2017/4/29 10:35
  *
  * @author Luoshipeng
  */
 public class RxBus {
+    private static final String TAG = "====" + RxBus.class.getSimpleName() + "    ";
+    /**
+     * 扫描进度的合并间隔
+     */
+    private static final long PROGRESS_CONFLATE_MS = 100;
 
-
-    private final PublishSubject<Object> bus;
+    private final ConcurrentHashMap<Object, Channel> mChannels = new ConcurrentHashMap<>();
+    /**
+     * 合并的主题按它的时间计算间隔，并在它上面发送合并后的事件
+     */
+    private final Scheduler mScheduler;
     private static volatile RxBus instance;
 
-    // PublishSubject只会把在订阅发生的时间点之后来自原始Observable的数据发射给观察者
+    /**
+     * 一个主题的事件通道，PublishSubject只会把在订阅发生的时间点之后的事件发射给观察者
+     */
+    private static final class Channel {
+        final Object key;
+        final Subject<Object> subject = PublishSubject.create().toSerialized();
+        final AtomicLong postCount = new AtomicLong();
+        final AtomicLong droppedCount = new AtomicLong();
+        private final Scheduler mScheduler;
+        private volatile long mConflateMs;
+        private long mLastEmitTime;
+        private Object mPending;
+        private boolean mFlushScheduled;
+
+        Channel(Object key, Scheduler scheduler) {
+            this.key = key;
+            mScheduler = scheduler;
+        }
+
+        void setConflateInterval(long ms) {
+            mConflateMs = ms;
+        }
+
+        void post(Object o) {
+            if (mConflateMs <= 0) {
+                postCount.incrementAndGet();
+                subject.onNext(o);
+            } else {
+                postConflated(o);
+            }
+        }
+
+        /**
+         * 距离上次发送不到合并间隔的事件先保存，间隔到了只发送最新的一个
+         */
+        private synchronized void postConflated(Object o) {
+            postCount.incrementAndGet();
+            long now = now();
+            if (mPending == null && now - mLastEmitTime >= mConflateMs) {
+                emit(o, now);
+                return;
+            }
+            if (mPending != null) {
+                droppedCount.incrementAndGet();
+            }
+            mPending = o;
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                // 时钟回拨时最多等一个间隔
+                long delay = Math.max(0, Math.min(mConflateMs, mLastEmitTime + mConflateMs - now));
+                mScheduler.scheduleDirect(this::flush, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * 不合并，丢弃还没有发送的旧事件，立即发送
+         */
+        synchronized void postNow(Object o) {
+            postCount.incrementAndGet();
+            if (mPending != null) {
+                droppedCount.incrementAndGet();
+                mPending = null;
+            }
+            emit(o, now());
+        }
+
+        private synchronized void flush() {
+            mFlushScheduled = false;
+            if (mPending != null) {
+                Object o = mPending;
+                mPending = null;
+                emit(o, now());
+            }
+        }
+
+        private long now() {
+            return mScheduler.now(TimeUnit.MILLISECONDS);
+        }
+
+        private void emit(Object o, long now) {
+            mLastEmitTime = now;
+            subject.onNext(o);
+        }
+    }
+
+    /**
+     * 带类型的主题，发送和订阅都不需要再转换类型
+     *
+     * @param <T> 事件类型
+     */
+    public static final class Topic<T> {
+        private final Channel mChannel;
+        private final Class<T> mType;
+
+        private Topic(Channel channel, Class<T> type) {
+            mChannel = channel;
+            mType = type;
+        }
+
+        public void post(T event) {
+            mChannel.post(event);
+        }
+
+        /**
+         * 立即发送，不参与合并，用于加载完成这类不能丢失的事件。还没有发送的旧事件直接丢弃，不会在它之后到达。
+         */
+        public void postNow(T event) {
+            mChannel.postNow(event);
+        }
+
+        public Observable<T> toObservable() {
+            return mChannel.subject.ofType(mType);
+        }
+
+        /**
+         * 设置合并间隔，间隔内的多个事件只发送最新的一个。0 不合并。
+         */
+        public Topic<T> setConflateInterval(long ms) {
+            mChannel.setConflateInterval(ms);
+            return this;
+        }
+
+        public boolean hasObservers() {
+            return mChannel.subject.hasObservers();
+        }
+
+        /**
+         * 这个主题发送过的事件数量
+         */
+        public long getPostCount() {
+            return mChannel.postCount.get();
+        }
+
+        /**
+         * 合并时丢弃的事件数量
+         */
+        public long getDroppedCount() {
+            return mChannel.droppedCount.get();
+        }
+    }
 
-    private RxBus() {
-        bus = PublishSubject.create();
+    /**
+     * @param scheduler 合并事件使用的调度器，测试时传入 TestScheduler
+     */
+    RxBus(Scheduler scheduler) {
+        mScheduler = scheduler;
+        topic(MusicCountBean.class).setConflateInterval(PROGRESS_CONFLATE_MS);
     }
 
     public static RxBus getInstance() {
         if (instance == null) {
             synchronized (RxBus.class) {
                 if (instance == null) {
-                    instance = new RxBus();
+                    instance = new RxBus(Schedulers.computation());
                 }
             }
         }
         return instance;
     }
 
+    /**
+     * 以key区分的主题
+     *
+     * @param msgKey    事件key
+     * @param eventType 事件类型
+     */
+    public <T> Topic<T> topic(String msgKey, Class<T> eventType) {
+        return new Topic<>(channel(msgKey), eventType);
+    }
+
+    /**
+     * 以事件类型区分的主题
+     */
+    public <T> Topic<T> topic(Class<T> eventType) {
+        return new Topic<>(channel(eventType), eventType);
+    }
+
+    private Channel channel(Object key) {
+        Channel channel = mChannels.get(key);
+        return channel != null ? channel : mChannels.computeIfAbsent(key, k -> new Channel(k, mScheduler));
+    }
+
+    /**
+     * 按事件的类型分发
+     */
     public void post(Object o) {
-        bus.onNext(o);
+        channel(o.getClass()).post(o);
     }
 
     // 根据传递的 eventType 类型返回特定类型(eventType)的 被观察者
 
     public <T> Observable<T> toObserverable(Class<T> eventType) {
-        //本质是先filter再cast
-        return bus.ofType(eventType);
+        return topic(eventType).toObservable();
     }
 
     public void post(int msgKey, Object o) {
-        bus.onNext(new Message(msgKey, o));
+        channel(msgKey).post(o);
     }
 
     public <T> Observable<T> toObservableType(final int msgKey, final Class<T> eventType) {
-        return bus.ofType(Message.class)
-                .filter(msg -> msg.getMsgKey() != null && msg.getCode() == (msgKey) && eventType.isInstance(msg.getObject())).map(Message::getObject).cast(eventType);
+        return new Topic<>(channel(msgKey), eventType).toObservable();
     }
 
     /**
@@ -62,7 +246,7 @@ public class RxBus {
      * @param msgKey 事件key
      */
     public void post(String msgKey, Object o) {
-        bus.onNext(new Message(msgKey, o));
+        channel(msgKey).post(o);
     }
 
 
@@ -76,9 +260,33 @@ public class RxBus {
      */
 
     public <T> Observable<T> toObservableType(final String msgKey, final Class<T> eventType) {
-        return bus.ofType(Message.class)
-                .filter(msg -> msg.getMsgKey() != null && msg.getMsgKey().equals(msgKey) && eventType.isInstance(msg.getObject())).map(Message::getObject).cast(eventType);
+        return topic(msgKey, eventType).toObservable();
     }
 
+    /**
+     * 每个主题发送过的事件数量
+     */
+    public Map<String, Long> getPostCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Channel channel : mChannels.values()) {
+            counts.put(nameOf(channel.key), channel.postCount.get());
+        }
+        return counts;
+    }
+
+    public void logPostCounts() {
+        StringBuilder builder = new StringBuilder("事件数量");
+        for (Channel channel : mChannels.values()) {
+            builder.append("  ").append(nameOf(channel.key)).append(' ').append(channel.postCount.get());
+            if (channel.droppedCount.get() > 0) {
+                builder.append("(合并 ").append(channel.droppedCount.get()).append(')');
+            }
+        }
+        LogUtil.d(TAG, builder.toString());
+    }
+
+    private static String nameOf(Object key) {
+        return key instanceof Class ? ((Class<?>) key).getSimpleName() : String.valueOf(key);
+    }
 
 }
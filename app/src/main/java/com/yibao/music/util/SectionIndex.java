@@ -0,0 +1,83 @@
+package com.yibao.music.util;
+
+import java.util.Arrays;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   SectionIndex
+ * @ Des:    字母导航的分组索引。按 SORT_KEY 的第一个字符分成 A-Z 和 # 共27组，只保存每组的数量，
+ * 列表按 SORT_KEY 排序时每组是连续的，组的起始位置就是前面各组数量之和。和数据库排序用同一个key，
+ * 删除时只修改一组的数量，其它变化（加入、替换列表）由使用者丢弃后重新建立。
+ */
+public class SectionIndex {
+    public static final String SECTIONS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ#";
+    private static final int OTHER_SECTION = SECTIONS.length() - 1;
+    private final int[] mCounts = new int[SECTIONS.length()];
+
+    /**
+     * SORT_KEY 对应的组：小写字母开头的是 A-Z，以 '~' 开头的是 #。空的key排在最前面，归到 A。
+     */
+    public static int sectionOf(String sortKey) {
+        if (sortKey == null || sortKey.isEmpty()) {
+            return 0;
+        }
+        char first = sortKey.charAt(0);
+        return first >= 'a' && first <= 'z' ? first - 'a' : OTHER_SECTION;
+    }
+
+    /**
+     * 导航栏上的字母对应的组，不是导航字母时返回 -1
+     */
+    public static int indexOf(char section) {
+        return SECTIONS.indexOf(Character.toUpperCase(section));
+    }
+
+    /**
+     * 按顺序加入一个条目
+     */
+    public void add(String sortKey) {
+        mCounts[sectionOf(sortKey)]++;
+    }
+
+    /**
+     * 删除列表中 position 位置的条目后调用
+     */
+    public void remove(int position) {
+        int start = 0;
+        for (int i = 0; i < mCounts.length; i++) {
+            start += mCounts[i];
+            if (position < start) {
+                mCounts[i]--;
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(mCounts, 0);
+    }
+
+    /**
+     * @param section 'A' - 'Z' 或 '#'
+     * @return 这一组第一个条目的位置，组内没有条目时返回 -1
+     */
+    public int getPositionForSection(char section) {
+        int index = indexOf(section);
+        if (index < 0 || mCounts[index] == 0) {
+            return -1;
+        }
+        int position = 0;
+        for (int i = 0; i < index; i++) {
+            position += mCounts[i];
+        }
+        return position;
+    }
+
+    /**
+     * 这一组的条目数量，导航栏用来置灰没有条目的字母
+     */
+    public int getCount(char section) {
+        int index = indexOf(section);
+        return index < 0 ? 0 : mCounts[index];
+    }
+}
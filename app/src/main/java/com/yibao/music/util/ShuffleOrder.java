@@ -0,0 +1,230 @@
+package com.yibao.music.util;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * @author Luoshipeng
+ * @ Name:   ShuffleOrder
+ * @ Des:    随机播放顺序。对播放列表做一次 Fisher–Yates 洗牌得到一个排列，上一曲/下一曲只是移动下标，
+ * 一轮播完之前不会重复，随机模式下也能回到上一曲，还可以提前知道接下来播放哪几首。
+ * 同时保存每个位置在排列中的下标，从列表中选歌时可以直接定位。
+ */
+public class ShuffleOrder {
+    private static final String SEPARATOR = ",";
+    /**
+     * 排列：第 i 个播放的是列表中的 order[i]
+     */
+    private int[] mOrder;
+    /**
+     * 反向索引：列表位置 p 在排列中的下标
+     */
+    private int[] mIndex;
+    private int mCursor;
+
+    /**
+     * @param size          播放列表长度
+     * @param startPosition 第一首播放的位置
+     */
+    public ShuffleOrder(int size, int startPosition) {
+        mOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            mOrder[i] = i;
+        }
+        reshuffle(startPosition);
+    }
+
+    private ShuffleOrder(int[] order, int cursor) {
+        mOrder = order;
+        mCursor = cursor;
+        buildIndex();
+    }
+
+    public int size() {
+        return mOrder.length;
+    }
+
+    public int getCursor() {
+        return mCursor;
+    }
+
+    public int current() {
+        return mOrder[mCursor];
+    }
+
+    /**
+     * 从列表中直接选歌后，从这首歌所在的位置继续。
+     */
+    public void moveTo(int position) {
+        if (position >= 0 && position < mIndex.length) {
+            mCursor = mIndex[position];
+        }
+    }
+
+    /**
+     * 下一首。一轮播完后重新洗牌，并保证新一轮的第一首和刚播完的不同。
+     *
+     * @return 列表中的位置
+     */
+    public int next() {
+        if (mCursor + 1 < mOrder.length) {
+            mCursor++;
+        } else {
+            int last = current();
+            reshuffle(-1);
+            if (mOrder.length > 1 && mOrder[0] == last) {
+                swap(0, 1 + RandomUtil.nextInt(mOrder.length - 1));
+            }
+        }
+        return current();
+    }
+
+    /**
+     * 下一首已经确定（无缝播放提前准备的 peek(1)）时前进到它。一轮播完后和 next() 一样重新洗牌，
+     * 新一轮从这首开始。
+     *
+     * @param position 下一首在列表中的位置
+     * @return 是否重新洗牌了
+     */
+    public boolean advanceTo(int position) {
+        if (mCursor + 1 < mOrder.length) {
+            moveTo(position);
+            return false;
+        }
+        reshuffle(position);
+        return true;
+    }
+
+    /**
+     * 上一首，到第一首时回到这一轮的最后一首。
+     *
+     * @return 列表中的位置
+     */
+    public int previous() {
+        mCursor = mCursor == 0 ? mOrder.length - 1 : mCursor - 1;
+        return current();
+    }
+
+    /**
+     * 查看当前之后第 n 首，不移动下标。
+     */
+    public int peek(int n) {
+        return mOrder[(mCursor + n) % mOrder.length];
+    }
+
+    /**
+     * 播放列表变化后增量修正排列：保留的歌曲保持原有顺序，删除的移除，新增的随机插入到当前下标之后。
+     *
+     * @param oldToNew 旧列表位置到新列表位置的映射，-1 表示已经删除
+     * @param newSize  新列表长度
+     */
+    public void patch(int[] oldToNew, int newSize) {
+        int[] order = new int[newSize];
+        boolean[] present = new boolean[newSize];
+        int count = 0;
+        int cursor = 0;
+        for (int i = 0; i < mOrder.length; i++) {
+            int position = mOrder[i] < oldToNew.length ? oldToNew[mOrder[i]] : -1;
+            if (position >= 0 && position < newSize && !present[position]) {
+                present[position] = true;
+                if (i <= mCursor) {
+                    cursor = count;
+                }
+                order[count++] = position;
+            }
+        }
+        int added = newSize - count;
+        if (added > 0) {
+            int[] addedPositions = new int[added];
+            int n = 0;
+            for (int position = 0; position < newSize; position++) {
+                if (!present[position]) {
+                    addedPositions[n++] = position;
+                }
+            }
+            RandomUtil.shuffle(addedPositions, 0, added);
+            // 新增的和当前下标之后原有的随机交错：每个位置按两边剩余的数量随机取一个，
+            // 和逐首随机插入的结果分布相同，但只需要一趟，不用每首都移动数组
+            int from = count == 0 ? 0 : cursor + 1;
+            int[] tail = Arrays.copyOfRange(order, from, count);
+            int t = 0;
+            int a = 0;
+            for (int slot = from; slot < newSize; slot++) {
+                int remainingAdded = added - a;
+                order[slot] = RandomUtil.nextInt(tail.length - t + remainingAdded) < remainingAdded
+                        ? addedPositions[a++] : tail[t++];
+            }
+        }
+        mOrder = order;
+        mCursor = newSize == 0 ? 0 : Math.min(cursor, newSize - 1);
+        buildIndex();
+    }
+
+    public String save() {
+        StringBuilder builder = new StringBuilder(mOrder.length * 4);
+        for (int i = 0; i < mOrder.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(mOrder[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 恢复保存的排列，内容不是 0 ~ size-1 的排列时返回null。
+     */
+    @Nullable
+    public static ShuffleOrder restore(String saved, int cursor, int size) {
+        if (saved == null || saved.isEmpty() || size == 0) {
+            return null;
+        }
+        String[] items = saved.split(SEPARATOR);
+        if (items.length != size || cursor < 0 || cursor >= size) {
+            return null;
+        }
+        int[] order = new int[size];
+        boolean[] present = new boolean[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                int position = Integer.parseInt(items[i]);
+                if (position < 0 || position >= size || present[position]) {
+                    return null;
+                }
+                present[position] = true;
+                order[i] = position;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new ShuffleOrder(order, cursor);
+    }
+
+    /**
+     * 重新洗牌，startPosition 不小于0时把它放在第一首。
+     */
+    private void reshuffle(int startPosition) {
+        RandomUtil.shuffle(mOrder, 0, mOrder.length);
+        mCursor = 0;
+        buildIndex();
+        if (startPosition >= 0 && startPosition < mOrder.length) {
+            swap(0, mIndex[startPosition]);
+        }
+    }
+
+    private void swap(int i, int j) {
+        int temp = mOrder[i];
+        mOrder[i] = mOrder[j];
+        mOrder[j] = temp;
+        mIndex[mOrder[i]] = i;
+        mIndex[mOrder[j]] = j;
+    }
+
+    private void buildIndex() {
+        mIndex = new int[mOrder.length];
+        for (int i = 0; i < mOrder.length; i++) {
+            mIndex[mOrder[i]] = i;
+        }
+    }
+}
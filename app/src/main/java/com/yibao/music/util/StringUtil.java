@@ -169,6 +169,9 @@ public class StringUtil {
         return string != null && string.length() > 0 && !"null".equals(string);
     }
 
+    /**
+     * 收藏时间，当前的毫秒时间戳。收藏列表的索引 (IS_FAVORITE, TIME DESC) 按字符串排序，依赖所有值位数相同
+     */
     public static String getTime() {
         return String.valueOf(System.currentTimeMillis());
     }
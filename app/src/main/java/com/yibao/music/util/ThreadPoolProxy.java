@@ -0,0 +1,251 @@
+package com.yibao.music.util;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * @author Luoshipeng
+ * @ Name:    ThreadPoolProxy
+ * @ Des:     一个有名字的共享线程池。队列有容量上限，按优先级执行，同优先级先进先出；
+ * 队列满时按创建时的策略由提交任务的线程执行或者丢弃，拒绝的次数计入统计。空闲的线程超时后退出。
+ * 通过 getScheduler 提交的 RxJava 任务不受队列容量限制，不会在提交任务的线程（比如主线程）执行，也不会丢弃。
+ */
+public class ThreadPoolProxy {
+    private static final String TAG = "====" + ThreadPoolProxy.class.getSimpleName() + "    ";
+    public static final int PRIORITY_HIGH = 10;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_LOW = 0;
+    private static final long KEEP_ALIVE = 30;
+
+    private final String mName;
+    private final int mQueueCapacity;
+    private final boolean mCallerRunsWhenFull;
+    private final Executor mExecutor;
+    private final AtomicLong mSequence = new AtomicLong();
+    private final AtomicLong mRejectedCount = new AtomicLong();
+    private final AtomicLong mWaitCount = new AtomicLong();
+    private final AtomicLong mTotalWaitMs = new AtomicLong();
+    private volatile long mMaxWaitMs;
+    private volatile Scheduler mScheduler;
+    private OnRejectedListener mRejectedListener;
+
+    public interface OnRejectedListener {
+        /**
+         * 队列已满，任务被拒绝
+         *
+         * @param pool     线程池
+         * @param executed 是否已经由提交任务的线程执行
+         */
+        void onRejected(ThreadPoolProxy pool, boolean executed);
+    }
+
+    /**
+     * @param name               线程池名字，也是线程名的前缀
+     * @param threadCount        线程数
+     * @param queueCapacity      等待队列的容量
+     * @param threadPriority     线程优先级，android.os.Process 中的常量
+     * @param callerRunsWhenFull 队列满时由提交任务的线程执行，false 时丢弃
+     */
+    ThreadPoolProxy(String name, int threadCount, int queueCapacity, int threadPriority, boolean callerRunsWhenFull) {
+        mName = name;
+        mQueueCapacity = queueCapacity;
+        mCallerRunsWhenFull = callerRunsWhenFull;
+        AtomicInteger threadNumber = new AtomicInteger();
+        mExecutor = new Executor(threadCount, queueCapacity, r -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(threadPriority);
+                r.run();
+            }, "music-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (r, executor) -> onRejected(r));
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void execute(Runnable task) {
+        execute(task, PRIORITY_NORMAL);
+    }
+
+    /**
+     * @param task     任务
+     * @param priority 优先级，数值大的先执行
+     */
+    public void execute(Runnable task, int priority) {
+        mExecutor.execute(new PriorityTask(task, priority, mSequence.getAndIncrement(), true));
+    }
+
+    /**
+     * 桥接到 RxJava 的 Scheduler，subscribeOn / observeOn 的任务同样计入这个线程池的统计。
+     * 这些任务总是进入队列，队列满时也不走拒绝策略：subscribeOn(Schedulers.io()) 的数据库和网络操作不能回到主线程执行。
+     */
+    public Scheduler getScheduler() {
+        if (mScheduler == null) {
+            synchronized (this) {
+                if (mScheduler == null) {
+                    mScheduler = Schedulers.from(command -> mExecutor.execute(
+                            new PriorityTask(command, PRIORITY_NORMAL, mSequence.getAndIncrement(), false)));
+                }
+            }
+        }
+        return mScheduler;
+    }
+
+    /**
+     * 取消所有还没有开始执行的任务
+     */
+    public void clearQueue() {
+        mExecutor.getQueue().clear();
+    }
+
+    public void setOnRejectedListener(OnRejectedListener listener) {
+        mRejectedListener = listener;
+    }
+
+    public int getQueueSize() {
+        return mExecutor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return mExecutor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return mExecutor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return mRejectedCount.get();
+    }
+
+    /**
+     * 任务从提交到开始执行的平均等待时间 ms
+     */
+    public long getAverageWaitMs() {
+        long count = mWaitCount.get();
+        return count == 0 ? 0 : mTotalWaitMs.get() / count;
+    }
+
+    public long getMaxWaitMs() {
+        return mMaxWaitMs;
+    }
+
+    public String getMetrics() {
+        return mName + "  排队 " + getQueueSize() + "/" + mQueueCapacity + "  执行中 " + getActiveCount()
+                + "  完成 " + getCompletedCount() + "  拒绝 " + getRejectedCount()
+                + "  平均等待 " + getAverageWaitMs() + " ms  最长等待 " + getMaxWaitMs() + " ms";
+    }
+
+    private void onRejected(Runnable r) {
+        mRejectedCount.incrementAndGet();
+        boolean executed = false;
+        if (mCallerRunsWhenFull && !mExecutor.isShutdown()) {
+            r.run();
+            executed = true;
+        }
+        LogUtil.d(TAG, mName + " 队列已满  " + (executed ? "在提交线程执行" : "丢弃任务"));
+        OnRejectedListener listener = mRejectedListener;
+        if (listener != null) {
+            listener.onRejected(this, executed);
+        }
+    }
+
+    private void onStart(Runnable r) {
+        if (r instanceof PriorityTask) {
+            long waitMs = SystemClock.elapsedRealtime() - ((PriorityTask) r).submitTime;
+            mWaitCount.incrementAndGet();
+            mTotalWaitMs.addAndGet(waitMs);
+            if (waitMs > mMaxWaitMs) {
+                mMaxWaitMs = waitMs;
+            }
+        }
+    }
+
+    private static final class PriorityTask implements Runnable, Comparable<PriorityTask> {
+        final Runnable task;
+        final int priority;
+        final long sequence;
+        /**
+         * 是否受队列容量限制，RxJava 的任务不受限制
+         */
+        final boolean bounded;
+        final long submitTime = SystemClock.elapsedRealtime();
+
+        PriorityTask(Runnable task, int priority, long sequence, boolean bounded) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.bounded = bounded;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PriorityTask other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * 优先级队列本身没有容量上限，超过容量时 offer 返回 false，由线程池走拒绝策略。不受限制的任务总是加入队列。
+     */
+    private static final class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+        private final int mCapacity;
+
+        BoundedPriorityQueue(int capacity) {
+            mCapacity = capacity;
+        }
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            if (runnable instanceof PriorityTask && !((PriorityTask) runnable).bounded) {
+                return super.offer(runnable);
+            }
+            // 并发提交时可能略微超过容量，不影响使用
+            return size() < mCapacity && super.offer(runnable);
+        }
+    }
+
+    private final class Executor extends ThreadPoolExecutor {
+
+        Executor(int threadCount, int queueCapacity, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+            super(threadCount, threadCount, KEEP_ALIVE, TimeUnit.SECONDS, new BoundedPriorityQueue(queueCapacity),
+                    threadFactory, handler);
+        }
+
+        /**
+         * 其它直接提交的任务不是 PriorityTask，按普通优先级包装，保证队列中的元素可以比较
+         */
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command instanceof PriorityTask ? command
+                    : new PriorityTask(command, PRIORITY_NORMAL, mSequence.getAndIncrement(), true));
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            onStart(r);
+        }
+    }
+}
@@ -1,14 +1,8 @@
 package com.yibao.music.util;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.RejectedExecutionHandler;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import android.os.Process;
+
+import io.reactivex.plugins.RxJavaPlugins;
 
 /**
  * @author Luoshipeng
@@ -16,37 +10,89 @@ import java.util.concurrent.TimeUnit;
  * @ Email:   strangermy98@gmail.com
  * @ GitHub:  https://github.com/1900Star
  * @ Time:    2019/3/3/ 18:27
- * @ Des:     TODO
+ * @ Des:     全局共享的几个线程池，按用途区分：数据库写入（单线程，按提交顺序执行）、文件和网络 I/O、计算、
+ * 低优先级的预加载。RxJava 的 Schedulers.computation() 也跑在计算线程池上，Schedulers.io() 保持 RxJava 自己的弹性线程池。
  */
 public class ThreadPoolProxyFactory {
-    private ThreadPoolExecutor mExecutor;
+    private static final String TAG = "====" + ThreadPoolProxyFactory.class.getSimpleName() + "    ";
     private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
-    private static final int CORE_POOL_SIZE = CPU_COUNT + 1;
-    private static final int MAXIMUM_POOL_SIZE = CPU_COUNT * 2 + 1;
-    private static final int KEEP_ALIVE = 2000;
 
-    public static ThreadPoolProxyFactory newInstance() {
+    private static volatile ThreadPoolProxy sDbWriter;
+    private static volatile ThreadPoolProxy sIo;
+    private static volatile ThreadPoolProxy sCpu;
+    private static volatile ThreadPoolProxy sPrefetch;
 
-        return new ThreadPoolProxyFactory();
+    /**
+     * 数据库写入，单线程，同优先级的任务按提交顺序执行。队列满时由提交任务的线程执行，写入不会丢失。
+     * 写操作通过 MusicDbWriter 提交，不直接使用这个线程池。
+     */
+    public static ThreadPoolProxy getDbWriter() {
+        if (sDbWriter == null) {
+            synchronized (ThreadPoolProxyFactory.class) {
+                if (sDbWriter == null) {
+                    sDbWriter = new ThreadPoolProxy("db-writer", 1, 512, Process.THREAD_PRIORITY_BACKGROUND, true);
+                }
+            }
+        }
+        return sDbWriter;
     }
 
-    public void execute(Runnable task) {
-        initThreadPoolExecutor();
-        mExecutor.execute(task);
+    /**
+     * 文件读写、数据库查询和网络请求。线程数固定，提交会长时间阻塞的任务（等待下载或者 MusicDbWriter 的结果）时
+     * 注意不要占满，RxJava 中需要阻塞的订阅使用 Schedulers.io()
+     */
+    public static ThreadPoolProxy getIo() {
+        if (sIo == null) {
+            synchronized (ThreadPoolProxyFactory.class) {
+                if (sIo == null) {
+                    sIo = new ThreadPoolProxy("io", Math.max(4, CPU_COUNT * 2), 256, Process.THREAD_PRIORITY_BACKGROUND, true);
+                }
+            }
+        }
+        return sIo;
     }
 
-    private void initThreadPoolExecutor() {
-        if (mExecutor == null || mExecutor.isShutdown() || mExecutor.isTerminated()) {
+    /**
+     * 计算任务，线程数和 CPU 核数相同
+     */
+    public static ThreadPoolProxy getCpu() {
+        if (sCpu == null) {
             synchronized (ThreadPoolProxyFactory.class) {
-                if (mExecutor == null || mExecutor.isShutdown() || mExecutor.isTerminated()) {
-                    TimeUnit unit = TimeUnit.MILLISECONDS;
-                    BlockingQueue<Runnable> workQueue = new LinkedBlockingDeque<>();
-                    ThreadFactory threadFactory = Executors.defaultThreadFactory();
-                    RejectedExecutionHandler handler = new ThreadPoolExecutor.DiscardPolicy();
-                    mExecutor = new ThreadPoolExecutor(CORE_POOL_SIZE, MAXIMUM_POOL_SIZE, KEEP_ALIVE, unit, workQueue,
-                            threadFactory, handler);
+                if (sCpu == null) {
+                    sCpu = new ThreadPoolProxy("cpu", CPU_COUNT, 256, Process.THREAD_PRIORITY_DEFAULT, true);
                 }
             }
         }
+        return sCpu;
+    }
+
+    /**
+     * 歌词和封面的预加载，最低优先级，队列满时直接丢弃
+     */
+    public static ThreadPoolProxy getPrefetch() {
+        if (sPrefetch == null) {
+            synchronized (ThreadPoolProxyFactory.class) {
+                if (sPrefetch == null) {
+                    sPrefetch = new ThreadPoolProxy("prefetch", 2, 32, Process.THREAD_PRIORITY_LOWEST, false);
+                }
+            }
+        }
+        return sPrefetch;
+    }
+
+    /**
+     * 让 RxJava 的 computation 调度器使用共享的计算线程池，在 Application 启动时调用一次。
+     * io 调度器不替换：它按需创建线程，下载、等待数据库写入这类阻塞的订阅不会占满固定大小的线程池，卡住其它 RxJava 任务。
+     */
+    public static void installRxSchedulers() {
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> getCpu().getScheduler());
+    }
+
+    public static void logMetrics() {
+        for (ThreadPoolProxy pool : new ThreadPoolProxy[]{sDbWriter, sIo, sCpu, sPrefetch}) {
+            if (pool != null) {
+                LogUtil.d(TAG, pool.getMetrics());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -31,6 +31,10 @@ public class LyricsView
     private int mViewH;
     private String mCurrentLrc;
     private static List<MusicLyricBean> musicLyrList;
+    /**
+     * 每行歌词的开始时间，setLrcFile时构建一次，rollText时二分查找。
+     */
+    private static int[] mStartTimes;
     private static int centerLine;
     private float mBigText;
     private int mLyricsSelected;
@@ -69,6 +73,7 @@ public class LyricsView
         mPaint.setColor(mLyricsSelected);
         mPaint.setTextSize(mBigText);
         musicLyrList = new ArrayList<>();
+        mStartTimes = new int[0];
 
     }
 
@@ -163,26 +168,55 @@ public class LyricsView
         }
         this.currentProgress = progress;
         this.duration = duration;
-        int startTime = musicLyrList.get(musicLyrList.size() - 1)
-                .getStartTime();
+        centerLine = findCenterLine(progress);
+//        触发重新绘制
+        invalidate();
+    }
 
-        if (progress >= startTime) {
-            centerLine = musicLyrList.size() - 1;
-        } else {
-            for (int i = 0; i < musicLyrList.size() - 1; i++) {
-                boolean b = progress >= musicLyrList.get(i)
-                        .getStartTime() && progress < musicLyrList.get(i + 1)
-                        .getStartTime();
-                if (b) {
-                    centerLine = i;
-                    break;
-                }
+    /**
+     * 查找当前进度对应的居中行。正常播放时进度只会落在当前行或下一行，直接命中；
+     * 拖动进度时再二分查找最后一个开始时间不大于进度的行。
+     *
+     * @param progress p
+     * @return 居中行
+     */
+    private static int findCenterLine(int progress) {
+        int[] startTimes = mStartTimes;
+        int size = startTimes.length;
+        if (size == 0 || progress < startTimes[0]) {
+            return 0;
+        }
+        int line = centerLine;
+        if (line >= 0 && line < size && progress >= startTimes[line]) {
+            if (line == size - 1 || progress < startTimes[line + 1]) {
+                return line;
             }
+            if (line + 2 >= size || progress < startTimes[line + 2]) {
+                return line + 1;
+            }
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startTimes[mid] <= progress) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
 
-
+    private static int[] buildStartTimes(List<MusicLyricBean> lrcList) {
+        if (lrcList == null) {
+            return new int[0];
         }
-//        触发重新绘制
-        invalidate();
+        int[] startTimes = new int[lrcList.size()];
+        for (int i = 0; i < startTimes.length; i++) {
+            startTimes[i] = lrcList.get(i).getStartTime();
+        }
+        return startTimes;
     }
 
     /**
@@ -193,6 +227,7 @@ public class LyricsView
     public void setLrcFile(List<MusicLyricBean> lrcList, String lyricsMsg) {
         mLyricsMsg = lyricsMsg;
         musicLyrList = lrcList;
+        mStartTimes = buildStartTimes(lrcList);
         //默认剧中行=0
         centerLine = 0;
         invalidate();
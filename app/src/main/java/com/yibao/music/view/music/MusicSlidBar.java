@@ -13,10 +13,8 @@ import android.widget.FrameLayout;
 import android.widget.TextView;
 
 import com.yibao.music.R;
-import com.yibao.music.adapter.AlbumAdapter;
-import com.yibao.music.adapter.ArtistAdapter;
-import com.yibao.music.adapter.SongAdapter;
-import com.yibao.music.util.Constant;
+import com.yibao.music.base.bindings.BaseBindingAdapter;
+import com.yibao.music.util.SectionIndex;
 
 
 /**
@@ -26,6 +24,10 @@ import com.yibao.music.util.Constant;
  */
 public class MusicSlidBar
         extends View {
+    /**
+     * 没有条目的字母的颜色
+     */
+    private static final int EMPTY_SECTION_COLOR = Color.parseColor("#D8D8D8");
 
     private String[] names = new String[]{"A",
             "B",
@@ -62,7 +64,6 @@ public class MusicSlidBar
     private Paint mCirclePaint;
     private Context mContext;
     private TextView mStickyViwe;
-    private int adapterType;
 
     public MusicSlidBar(Context context) {
         super(context);
@@ -108,8 +109,12 @@ public class MusicSlidBar
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        SectionIndex sectionIndex = getSectionIndex();
         for (int i = 0; i < names.length; i++) {
-            if (i == 0) {
+            if (sectionIndex != null && sectionIndex.getCount(names[i].charAt(0)) == 0) {
+                // 列表里没有这个字母开头的条目，置灰
+                mTvPaint.setColor(EMPTY_SECTION_COLOR);
+            } else if (i == 0) {
                 mTvPaint.setColor(Color.GRAY);
             } else if (i == mIndex) {
 //                mTvPaint.setColor(Color.WHITE);
@@ -135,16 +140,6 @@ public class MusicSlidBar
     }
 
 
-    /**
-     * 设置Adapter的类型 1 : SongListAdapter  、 2  ：ArtistAdapter  、
-     * 3  ： AlbumAdapter  普通视图  、 4  ： AlbumAdapter  平铺视图 GridView3列
-     *
-     * @param type
-     */
-    public void setAdapterType(int type) {
-        this.adapterType = type;
-    }
-
     public void setBarVisibility(int visibilityType) {
         setVisibility(visibilityType);
     }
@@ -199,16 +194,10 @@ public class MusicSlidBar
         initView();
         //设置导航字母    “mStickyViwe.setText(name);”
         int sectionForPosition = 1;
-        // 根据adapterType得到指定页面的Adapter
-        if (adapterType == Constant.NUMBER_ONE) {
-            SongAdapter songListAdapter = (SongAdapter) mRecyclerView.getAdapter();
-            sectionForPosition = songListAdapter.getPositionForSection(name.charAt(0));
-        } else if (adapterType == Constant.NUMBER_TWO) {
-            ArtistAdapter artistAdapter = (ArtistAdapter) mRecyclerView.getAdapter();
-            sectionForPosition = artistAdapter.getPositionForSection(name.charAt(0));
-        } else if (adapterType == Constant.NUMBER_THREE || adapterType == Constant.NUMBER_FOUR) {
-            AlbumAdapter albumAdapter = (AlbumAdapter) mRecyclerView.getAdapter();
-            sectionForPosition = albumAdapter.getPositionForSection(name.charAt(0));
+        // 歌曲、艺术家、专辑列表的Adapter都从字母分组直接得到位置
+        RecyclerView.Adapter<?> adapter = mRecyclerView.getAdapter();
+        if (adapter instanceof BaseBindingAdapter) {
+            sectionForPosition = ((BaseBindingAdapter<?>) adapter).getPositionForSection(name.charAt(0));
         }
         if (sectionForPosition != -1) {
             LinearLayoutManager manager = (LinearLayoutManager) mRecyclerView.getLayoutManager();
@@ -232,6 +221,18 @@ public class MusicSlidBar
     }
 
 
+    /**
+     * 当前列表的字母分组，列表不支持时返回null
+     */
+    private SectionIndex getSectionIndex() {
+        if (!(getParent() instanceof FrameLayout)) {
+            return null;
+        }
+        initView();
+        RecyclerView.Adapter<?> adapter = mRecyclerView == null ? null : mRecyclerView.getAdapter();
+        return adapter instanceof BaseBindingAdapter ? ((BaseBindingAdapter<?>) adapter).getSectionIndex() : null;
+    }
+
     public int dip2px(float dpValue) {
         final float scale = mContext.getResources()
                 .getDisplayMetrics().density;
@@ -85,7 +85,6 @@ public class MusicView
      * @param isShowSlideBar 只有按歌曲名排列时，Slidebar才显示 。
      */
     public void setAdapter(Context context, int adapterType, boolean isShowSlideBar, RecyclerView.Adapter<RecyclerView.ViewHolder> adapter) {
-        mSlidebar.setAdapterType(adapterType);
         if (adapterType == Constant.NUMBER_FOUR) {
             GridLayoutManager manager = new GridLayoutManager(context, Constant.NUMBER_THREE);
             manager.setOrientation(GridLayoutManager.VERTICAL);
@@ -102,6 +101,8 @@ public class MusicView
         mRecyclerView.setHasFixedSize(true);
         mRecyclerView.setAdapter(adapter);
         mSlidebar.setBarVisibility(isShowSlideBar ? VISIBLE : GONE);
+        // 按新列表的字母分组重新绘制导航栏
+        mSlidebar.invalidate();
 
     }
 
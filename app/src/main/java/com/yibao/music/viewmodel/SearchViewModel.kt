@@ -1,75 +1,126 @@
 package com.yibao.music.viewmodel
 
+import android.os.SystemClock
+import android.util.LruCache
 import com.yibao.music.MusicApplication
 import com.yibao.music.base.BaseViewModel
 import com.yibao.music.livedata.SingleLiveEvent
 import com.yibao.music.model.MusicBean
+import com.yibao.music.model.MusicCountBean
 import com.yibao.music.model.SearchHistoryBean
-import com.yibao.music.model.greendao.MusicBeanDao
 import com.yibao.music.model.greendao.SearchHistoryBeanDao
+import com.yibao.music.util.Constant
 import com.yibao.music.util.LogUtil
+import com.yibao.music.util.MusicSearchUtil
+import com.yibao.music.util.RxBus
+import io.reactivex.Observable
+import io.reactivex.disposables.Disposable
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.PublishSubject
+import java.util.concurrent.TimeUnit
 
 class SearchViewModel : BaseViewModel() {
 
-    val searchViewModel = SingleLiveEvent<List<MusicBean>>()
-
-
-    fun searchMusic(key: String, position: Int) {
-
-        val musicDao = MusicApplication.getInstance().musicDao
-
-        LogUtil.d("====", "=========== searchPosition    $position  searchKey  $key");
-        val dataList = ArrayList<MusicBean>()
-        // 全部
-        when (position) {
-
-            11 -> {
-                // 根据歌名精确搜索
-                val songList =
-                    musicDao.queryBuilder().where(MusicBeanDao.Properties.Title.eq(key)).build()
-                        .list()
-                if (songList.isNotEmpty()) {
-                    dataList.addAll(songList)
-                } else {
-                    // 模糊匹配搜索, % 加在前面为包含key，加在后面查询的结果是以 key 开头的数据。
-                    val searchSongList: List<MusicBean> = musicDao.queryBuilder().where(
-                        MusicBeanDao.Properties.Title.like("%$key%")
-                    ).list()
-                    if (searchSongList.isNotEmpty()) {
-                        dataList.addAll(searchSongList)
-                    }
-                }
-            }
-            12 -> {
-                // 按专辑搜索
-                val albumList =
-                    musicDao.queryBuilder().where(MusicBeanDao.Properties.Album.eq(key)).build()
-                        .list()
-                if (albumList.isNotEmpty()) {
-                    dataList.addAll(albumList)
-                }
-            }
-            13 -> {
-                // 按歌手搜索
-                val artistList =
-                    musicDao.queryBuilder().where(MusicBeanDao.Properties.Artist.eq(key)).build()
-                        .list()
-                if (artistList.isNotEmpty()) {
-                    dataList.addAll(artistList)
-                }
-            }
-           14 -> {
-                // 按歌手搜索
-                val artistList =
-                    musicDao.queryBuilder().where(MusicBeanDao.Properties.Artist.eq(key)).build()
-                        .list()
-                if (artistList.isNotEmpty()) {
-                    dataList.addAll(artistList)
-                }
+    companion object {
+        /**
+         * 输入停顿多久才开始搜索
+         */
+        private const val SEARCH_DEBOUNCE = 250L
+        private const val CACHE_SIZE = 16
+    }
+
+    /**
+     * 一次搜索的结果，key 和 position 是产生这份结果的关键字和类别，播放时按它们重新查询队列。
+     */
+    class SearchResult(val key: String, val position: Int, val musicList: List<MusicBean>)
+
+    private class SearchRequest(val key: String, val position: Int, val immediate: Boolean) {
+        val startTime = SystemClock.elapsedRealtime()
+    }
+
+    val searchViewModel = SingleLiveEvent<SearchResult>()
+
+    private val mSearchSubject = PublishSubject.create<SearchRequest>()
+
+    /**
+     * (类别, 关键字) -> 结果
+     */
+    private val mSearchCache = LruCache<String, List<MusicBean>>(CACHE_SIZE)
+
+    /**
+     * 上一次完成的搜索。被 switchMap 丢弃的旧请求也可能写入，但关键字和结果总是对应的，用来筛选不会出错。
+     */
+    @Volatile
+    private var mLastResult: SearchResult? = null
+
+    // 输入时防抖；switchMap 订阅新请求时丢弃还没返回的旧请求，旧结果不会覆盖新结果。
+    private val mSearchDisposable: Disposable = mSearchSubject
+        .debounce { request ->
+            if (request.immediate) Observable.just(0L)
+            else Observable.timer(SEARCH_DEBOUNCE, TimeUnit.MILLISECONDS)
+        }
+        .switchMap { request ->
+            if (request.key.isEmpty()) Observable.empty()
+            else Observable.fromCallable { search(request) }.subscribeOn(Schedulers.io())
+        }
+        .subscribe({ result -> searchViewModel.postValue(result) },
+            { e -> LogUtil.d(mTag, "搜索出错 ${e.message}") })
+
+    // 扫描新增或者删除歌曲后，缓存的结果和上一次的结果都已经过时
+    private val mInvalidateDisposable: Disposable = Observable.merge<Any>(
+        RxBus.getInstance().toObserverable(MusicCountBean::class.java),
+        RxBus.getInstance().toObservableType(Constant.DELETE_SONG, Any::class.java)
+    ).subscribe { clearCache() }
+
+    /**
+     * @param key 搜索关键字，为空时立即取消还没完成的搜索
+     * @param position 搜索类别：  11歌曲 、 12专辑 、 13 艺术家 、14 全部
+     * @param immediate 切换类别等不需要等待输入的搜索
+     */
+    fun searchMusic(key: String, position: Int, immediate: Boolean = false) {
+        val searchKey = key.trim()
+        mSearchSubject.onNext(SearchRequest(searchKey, position, immediate || searchKey.isEmpty()))
+    }
+
+    private fun search(request: SearchRequest): SearchResult {
+        val queryStart = SystemClock.elapsedRealtime()
+        val cacheKey = "${request.position}|${request.key}"
+        val last = mLastResult
+        var source = "缓存"
+        var musicList = mSearchCache.get(cacheKey)
+        if (musicList == null) {
+            // 关键字在上一次的基础上继续输入时，新结果是上一次结果的子集，在内存中筛选
+            if (last != null && last.position == request.position && request.key.startsWith(last.key)
+                && MusicSearchUtil.toMatchQuery(last.key) != null
+            ) {
+                musicList = MusicSearchUtil.refine(last.musicList, request.key, request.position)
+                source = "筛选"
+            } else {
+                val musicDao = MusicApplication.getInstance().musicDao
+                musicList = MusicSearchUtil.search(musicDao, request.key, request.position)
+                source = "查询"
             }
+            mSearchCache.put(cacheKey, musicList)
         }
+        val result = SearchResult(request.key, request.position, musicList!!)
+        mLastResult = result
+        val now = SystemClock.elapsedRealtime()
+        LogUtil.d(
+            mTag, "搜索 ${request.position} ${request.key}  ${musicList.size} 首  $source ${now - queryStart} ms  " +
+                    "输入到结果 ${now - request.startTime} ms"
+        )
+        return result
+    }
+
+    private fun clearCache() {
+        mSearchCache.evictAll()
+        mLastResult = null
+    }
 
-        searchViewModel.postValue(dataList)
+    override fun onCleared() {
+        super.onCleared()
+        mSearchDisposable.dispose()
+        mInvalidateDisposable.dispose()
     }
 
     val historyViewModel = SingleLiveEvent<List<SearchHistoryBean>>()
@@ -84,4 +135,4 @@ class SearchViewModel : BaseViewModel() {
         historyViewModel.postValue(hisList)
     }
 
-}
\ No newline at end of file
+}
@@ -4,69 +4,36 @@ import com.yibao.music.MusicApplication
 import com.yibao.music.base.BaseViewModel
 import com.yibao.music.livedata.SingleLiveEvent
 import com.yibao.music.model.MusicBean
-import com.yibao.music.model.greendao.MusicBeanDao
-import java.util.Collections.sort
+import com.yibao.music.util.MusicPageList
+import com.yibao.music.util.PlayStatsRecorder
 
 class SongViewModel : BaseViewModel() {
 
     val listModel = SingleLiveEvent<List<MusicBean>>()
 
     /**
-     * 获取歌曲列表
-     * @param sortFlag 列表排序方式，  1 按歌名 、 2 按评分 、 3 按播放次数 、 4 按添加时间
+     * 获取歌曲列表，只读出排好序的id，歌曲在列表滚动到时按页加载。
+     * @param sortFlag 列表排序方式，  0 按歌名 、 1 按评分 、 2 按播放次数 、 3 按添加时间
      */
     fun getMusicList(sortFlag: Int) {
-        val queryBuilder = MusicApplication.getInstance().musicDao.queryBuilder()
-
-        when (sortFlag) {
-            0 -> {
-                listModel.postValue(sortMusicAbc(queryBuilder.build().list()))
-            }
-            1 -> {
-                val scoreList = queryBuilder.orderDesc(MusicBeanDao.Properties.SongScore).build().list()
-
-                listModel.postValue(scoreList)
-            }
-            2 -> {
-                val frequencyList = queryBuilder.orderDesc(MusicBeanDao.Properties.PlayFrequency).build().list()
-                listModel.postValue(frequencyList)
-            }
-            3 -> {
-                val timeList = queryBuilder.orderDesc(MusicBeanDao.Properties.AddTime).build().list()
-                listModel.postValue(timeList)
-
-            }
-
+        val orderBy = when (sortFlag) {
+            1 -> MusicPageList.ORDER_SCORE
+            2 -> MusicPageList.ORDER_FREQUENCY
+            3 -> MusicPageList.ORDER_ADD_TIME
+            else -> MusicPageList.ORDER_ABC
         }
-
-    }
-
-
-    /**
-     * 按ABCD 首字母排序
-     *
-     * @param musicList d
-     */
-    private fun sortMusicAbc(musicList: List<MusicBean>): List<MusicBean> {
-        val str = "#"
-        sort(
-            musicList
-        ) { m1: MusicBean, m2: MusicBean ->
-
-            when (str) {
-                m2.firstChar -> {
-                    -1
-                }
-                m1.firstChar -> {
-                    1
-                }
-                else -> {
-                    m1.firstChar.compareTo(m2.firstChar)
-                }
-            }
+        if (sortFlag == 1 || sortFlag == 2) {
+            // 先写入还在内存中的播放统计，排序包含最近的播放
+            PlayStatsRecorder.getInstance().flush().whenComplete { _, _ -> postMusicList(orderBy) }
+        } else {
+            postMusicList(orderBy)
         }
-        return musicList
     }
 
+    private fun postMusicList(orderBy: String) {
+        listModel.postValue(
+            MusicPageList(MusicApplication.getInstance().musicDao, null, null, orderBy)
+        )
+    }
 
-}
\ No newline at end of file
+}